@@ -1,5 +1,7 @@
 plugins {
     java
+    // JMH benchmarks of the handlers' CPU-bound paths, in src/jmh/java
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -15,6 +17,28 @@ repositories {
     }
 }
 
+// The HTTP client modules behind each AWS_HTTP_CLIENT setting. Only the ones that -PawsHttpClient selects, APACHE by
+// default, are packaged; AWS_HTTP_CLIENT must name the same client. Async clients use Netty unless CRT is chosen.
+val awsHttpClientModules = mapOf(
+    "APACHE" to listOf("software.amazon.awssdk:apache-client", "software.amazon.awssdk:netty-nio-client"),
+    "URL_CONNECTION" to listOf(
+        "software.amazon.awssdk:url-connection-client",
+        "software.amazon.awssdk:netty-nio-client"),
+    "CRT" to listOf("software.amazon.awssdk:aws-crt-client", "software.amazon.awssdk.crt:aws-crt:0.40.3"),
+)
+val awsHttpClient = (project.findProperty("awsHttpClient") as String?) ?: "APACHE"
+
+// End-to-end load harness in src/loadtest/java; it runs the handlers against DynamoDB Local and in-process stand-ins.
+val loadtest by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[loadtest.implementationConfigurationName].extendsFrom(
+    configurations.implementation.get(),
+    configurations.testImplementation.get())
+configurations[loadtest.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
 dependencies {
     // This dependency is used by the application.
     implementation(libs.guava)
@@ -29,14 +53,26 @@ dependencies {
     implementation("com.amazonaws:aws-lambda-java-core:1.4.0")
     implementation("com.amazonaws:aws-lambda-java-events:3.16.1")
     runtimeOnly("com.amazonaws:aws-lambda-java-log4j2:1.5.1")
+    // CRaC hooks for SnapStart priming
+    implementation("org.crac:crac:1.5.0")
     // AWS SDK
     // DynamoDB Java client
     implementation(platform("software.amazon.awssdk:bom:2.41.10"))
-    implementation("software.amazon.awssdk:dynamodb-enhanced")
-    implementation("software.amazon.awssdk:s3")
-    implementation("software.amazon.awssdk:sqs")
-    // twitch4j
-    implementation("com.github.twitch4j:twitch4j:1.25.0")
+    // The service modules also depend on the Apache and Netty clients, which would ship whichever client is selected.
+    listOf("dynamodb-enhanced", "s3", "sqs").forEach {
+        implementation("software.amazon.awssdk:$it") {
+            exclude(group = "software.amazon.awssdk", module = "apache-client")
+            exclude(group = "software.amazon.awssdk", module = "netty-nio-client")
+        }
+    }
+    // HTTP clients selectable with AWS_HTTP_CLIENT. AwsModule compiles against all of them and the cold start and
+    // benchmark harnesses compare them, but only the selected one is on the function's runtime classpath.
+    awsHttpClientModules.values.flatten().distinct().forEach {
+        compileOnly(it)
+        "loadtestImplementation"(it)
+        jmh(it)
+    }
+    awsHttpClientModules.getValue(awsHttpClient).forEach { runtimeOnly(it) }
     // Data
     implementation("org.seattleoba:soba-dataformats:1.0")
     // Jackson for report generation
@@ -47,6 +83,13 @@ dependencies {
     testImplementation("org.mockito:mockito-junit-jupiter:5.21.0")
     // DynamoDB Local for unit testing
     testImplementation("software.amazon.dynamodb:DynamoDBLocal:3.2.0")
+    // Dagger components of the load harness
+    "loadtestAnnotationProcessor"("javax.annotation:javax.annotation-api:1.3.2")
+    "loadtestAnnotationProcessor"("com.google.dagger:dagger-compiler:2.53.1")
+    // The Lambda runtime's event serialization, to feed the stream handler the JSON Lambda delivers and as the
+    // baseline of the stream decoding benchmark
+    "loadtestImplementation"("com.amazonaws:aws-lambda-java-serialization:1.1.5")
+    jmh("com.amazonaws:aws-lambda-java-serialization:1.1.5")
 }
 
 testing {
@@ -59,6 +102,18 @@ testing {
     }
 }
 
+jmh {
+    jmhVersion = "1.37"
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    resultFormat = "JSON"
+    // Select benchmarks with -PjmhIncludes=<regex>, e.g. -PjmhIncludes=LoginValidation
+    project.findProperty("jmhIncludes")?.let { includes = listOf(it.toString()) }
+    // Attach profilers with -PjmhProfilers=<name>, e.g. -PjmhProfilers=gc for allocation rates
+    project.findProperty("jmhProfilers")?.let { profilers = listOf(it.toString()) }
+}
+
 // Apply a specific Java toolchain to ease working on different environments.
 java {
     toolchain {
@@ -66,6 +121,17 @@ java {
     }
 }
 
+// The function settings that the load test and cold start harnesses give the handlers.
+val loadTestEnvironment = mapOf(
+    "AWS_REGION" to "us-west-2",
+    "CLIENT_ID" to "loadtest",
+    "SQS_QUEUE_URL" to "https://sqs.us-west-2.amazonaws.com/000000000000/loadtest-ticket-events",
+    "S3_BUCKET_NAME" to "loadtest-reports",
+    "ERROR_TABLE_NAME" to "loadtest-errors",
+    "IMPORT_CHECKPOINT_TABLE_NAME" to "loadtest-import-checkpoints",
+    "TWITCH_LOGIN_TABLE_NAME" to "loadtest-twitch-logins",
+)
+
 tasks {
     register<Zip>("buildZip") {
         dependsOn(jar)
@@ -79,4 +145,46 @@ tasks {
     build {
         dependsOn("buildZip")
     }
+
+    // DynamoDB Local stores tables with sqlite4java, which loads its native library from a directory.
+    val copySqliteNatives by registering(Copy::class) {
+        from(configurations.testRuntimeClasspath) {
+            include("*.so", "*.dylib", "*.dll")
+        }
+        into(layout.buildDirectory.dir("sqlite4java"))
+    }
+
+    test {
+        dependsOn(copySqliteNatives)
+        systemProperty("sqlite4java.library.path", layout.buildDirectory.dir("sqlite4java").get().asFile.path)
+    }
+
+    // ./gradlew loadTest -PloadTestArgs="--rows=100000 --import-mode=PARALLEL --helix-latency-ms=80"
+    register<JavaExec>("loadTest") {
+        group = "verification"
+        description = "Runs the roster import, stream, SQS consumer and DLQ report handlers against local stand-ins."
+        dependsOn(copySqliteNatives)
+        classpath = loadtest.runtimeClasspath
+        mainClass = "org.seattleoba.lambda.loadtest.LoadTestRunner"
+        args = (project.findProperty("loadTestArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+        maxHeapSize = "4g"
+        systemProperty("sqlite4java.library.path", layout.buildDirectory.dir("sqlite4java").get().asFile.path)
+        systemProperty("log4j2.configurationFile", "log4j2-loadtest.xml")
+        systemProperty("loadtest.outputDir", layout.buildDirectory.dir("loadtest").get().asFile.path)
+        systemProperty("sun.net.httpserver.nodelay", "true")
+        environment(loadTestEnvironment)
+    }
+
+    // ./gradlew coldStart -PcoldStartArgs="--runs=10 --entry-points=STREAM,SQS --http-clients=APACHE,CRT"
+    register<JavaExec>("coldStart") {
+        group = "verification"
+        description = "Times each handler's init, beforeCheckpoint and first request in fresh JVMs."
+        classpath = loadtest.runtimeClasspath
+        mainClass = "org.seattleoba.lambda.loadtest.ColdStartRunner"
+        args = (project.findProperty("coldStartArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+        systemProperty("log4j2.configurationFile", "log4j2-loadtest.xml")
+        systemProperty("loadtest.outputDir", layout.buildDirectory.dir("loadtest").get().asFile.path)
+        systemProperty("sun.net.httpserver.nodelay", "true")
+        environment(loadTestEnvironment)
+    }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package org.seattleoba.lambda.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.seattleoba.lambda.dagger.AwsModule;
+import org.seattleoba.lambda.dagger.ConfigModule;
+import org.seattleoba.lambda.dagger.JacksonModule;
+import org.seattleoba.lambda.message.BevyTicketEventCodec;
+import org.seattleoba.lambda.model.AwsHttpClientType;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQS SendMessageBatch calls through each sync HTTP client that {@link AwsModule} builds, against a local endpoint that
+ * answers after {@code endpointLatencyMillis}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AwsHttpClientBenchmark {
+    private static final int BATCH_SIZE = 10;
+    private static final int ENDPOINT_THREADS = 64;
+    private static final byte[] RESPONSE = "{}".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"APACHE", "URL_CONNECTION", "CRT"})
+    public AwsHttpClientType httpClientType;
+
+    @Param({"10", "50"})
+    public int maxConnections;
+
+    @Param("20")
+    public long endpointLatencyMillis;
+
+    private HttpServer endpoint;
+    private ExecutorService endpointExecutor;
+    private SdkHttpClient httpClient;
+    private SqsClient sqsClient;
+    private SendMessageBatchRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Without TCP_NODELAY the endpoint's small responses wait on Nagle's algorithm.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        endpoint = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), ENDPOINT_THREADS);
+        endpointExecutor = Executors.newFixedThreadPool(ENDPOINT_THREADS);
+        endpoint.setExecutor(endpointExecutor);
+        endpoint.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(endpointLatencyMillis);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.0");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            exchange.getResponseBody().write(RESPONSE);
+            exchange.close();
+        });
+        endpoint.start();
+
+        // The function's default timeouts, with no settings in the environment.
+        final ConfigModule config = new ConfigModule(Map.of());
+        httpClient = AwsModule.httpClient(httpClientType, maxConnections,
+                config.providesAwsHttpConnectionTimeout(), config.providesAwsHttpSocketTimeout());
+        final URI endpointUri = URI.create(String.format("http://localhost:%d", endpoint.getAddress().getPort()));
+        sqsClient = SqsClient.builder()
+                .httpClient(httpClient)
+                .endpointOverride(endpointUri)
+                .region(Region.US_WEST_2)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create("benchmark", "benchmark")))
+                .build();
+
+        final BevyTicketEventCodec codec = new BevyTicketEventCodec(new JacksonModule().providesObjectMapper());
+        final List<SendMessageBatchRequestEntry> entries = new ArrayList<>(BATCH_SIZE);
+        for (final BevyTicketEvent event : BenchmarkFixtures.ticketEvents(BATCH_SIZE)) {
+            entries.add(SendMessageBatchRequestEntry.builder()
+                    .id(Integer.toString(entries.size()))
+                    .messageBody(codec.encode(event))
+                    .build());
+        }
+        request = SendMessageBatchRequest.builder()
+                .queueUrl(endpointUri + "/000000000000/ticket-events")
+                .entries(entries)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sqsClient.close();
+        httpClient.close();
+        endpoint.stop(0);
+        endpointExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public SendMessageBatchResponse singleCaller() {
+        return sqsClient.sendMessageBatch(request);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public SendMessageBatchResponse concurrentCallers() {
+        return sqsClient.sendMessageBatch(request);
+    }
+}
@@ -0,0 +1,110 @@
+package org.seattleoba.lambda.benchmark;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import org.seattleoba.lambda.model.BevyTicketErrorEntry;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Synthetic inputs shared by the benchmarks. A fixed seed keeps every run on the same data.
+ */
+final class BenchmarkFixtures {
+    static final int EVENT_ID = 467;
+    private static final long SEED = 467L;
+    private static final String LOGIN_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_";
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<BevyTicketEvent> ticketEvents(final int count) {
+        final Random random = new Random(SEED);
+        final List<BevyTicketEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new BevyTicketEvent(EVENT_ID, 40_000 + i, ticketNumber(i), login(random)));
+        }
+        return events;
+    }
+
+    /**
+     * Stream records in the mix seen during a roster sync: mostly inserts, some edits to a ticket already in the
+     * batch, a few no-op MODIFYs and an occasional REMOVE.
+     */
+    static List<DynamodbEvent.DynamodbStreamRecord> streamRecords(final int count) {
+        final Random random = new Random(SEED);
+        final List<DynamodbEvent.DynamodbStreamRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int roll = random.nextInt(100);
+            final int ticketId = roll < 70 || i == 0 ? 40_000 + i : 40_000 + random.nextInt(i);
+            final Map<String, AttributeValue> image = image(ticketId, login(random));
+            if (roll < 70) {
+                records.add(streamRecord("INSERT", i, image, null));
+            } else if (roll < 85) {
+                records.add(streamRecord("MODIFY", i, image, image(ticketId, login(random))));
+            } else if (roll < 97) {
+                records.add(streamRecord("MODIFY", i, image, image));
+            } else {
+                records.add(streamRecord("REMOVE", i, null, image));
+            }
+        }
+        return records;
+    }
+
+    static List<BevyTicketErrorEntry> errorEntries(final int count) {
+        final Random random = new Random(SEED);
+        final List<BevyTicketErrorEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new BevyTicketErrorEntry(
+                    EVENT_ID,
+                    40_000 + i,
+                    ticketNumber(i),
+                    login(random),
+                    i % 3 == 0 ? "INVALID_NAME" : "TWITCH_API_ERROR"));
+        }
+        return entries;
+    }
+
+    static String login(final Random random) {
+        final int length = 4 + random.nextInt(21);
+        final StringBuilder login = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            login.append(LOGIN_CHARACTERS.charAt(random.nextInt(LOGIN_CHARACTERS.length())));
+        }
+        return login.toString();
+    }
+
+    private static String ticketNumber(final int index) {
+        return String.format("%d-%06d", EVENT_ID, index);
+    }
+
+    private static Map<String, AttributeValue> image(final int ticketId, final String purchaserName) {
+        return Map.of(
+                "event_id", new AttributeValue().withN(Integer.toString(EVENT_ID)),
+                "id", new AttributeValue().withN(Integer.toString(ticketId)),
+                "ticket_id", new AttributeValue(ticketNumber(ticketId)),
+                "purchaser_name", new AttributeValue(purchaserName));
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord streamRecord(
+            final String eventName,
+            final int sequenceNumber,
+            final Map<String, AttributeValue> newImage,
+            final Map<String, AttributeValue> oldImage) {
+        final Map<String, AttributeValue> image = Objects.isNull(newImage) ? oldImage : newImage;
+        final StreamRecord streamRecord = new StreamRecord();
+        streamRecord.setSequenceNumber(Integer.toString(sequenceNumber));
+        streamRecord.setKeys(Map.of("event_id", image.get("event_id"), "id", image.get("id")));
+        streamRecord.setNewImage(newImage);
+        streamRecord.setOldImage(oldImage);
+        final DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventName(eventName);
+        record.setDynamodb(streamRecord);
+        return record;
+    }
+}
@@ -0,0 +1,71 @@
+package org.seattleoba.lambda.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.seattleoba.lambda.dagger.JacksonModule;
+import org.seattleoba.lambda.message.BevyTicketEventCodec;
+import org.seattleoba.lambda.message.BevyTicketEventMessage;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Ticket event message bodies written by the stream handler and read by the SQS consumer and the DLQ classifier,
+ * through the {@code ObjectMapper} the handlers get from {@link JacksonModule}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BevyTicketEventCodecBenchmark {
+    @Param({"1", "100"})
+    public int eventsPerMessage;
+
+    private BevyTicketEventCodec codec;
+    private BevyTicketEvent event;
+    private List<BevyTicketEvent> events;
+    private String singleBody;
+    private String packedBody;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        codec = new BevyTicketEventCodec(new JacksonModule().providesObjectMapper());
+        events = BenchmarkFixtures.ticketEvents(eventsPerMessage);
+        event = events.get(0);
+        singleBody = codec.encode(event);
+        packedBody = codec.encode(events);
+    }
+
+    @Benchmark
+    public String encodeSingle() throws JsonProcessingException {
+        return codec.encode(event);
+    }
+
+    @Benchmark
+    public BevyTicketEventMessage decodeSingle() throws JsonProcessingException {
+        return codec.decode(singleBody);
+    }
+
+    @Benchmark
+    public String encodePacked() throws JsonProcessingException {
+        return codec.encode(events);
+    }
+
+    @Benchmark
+    public BevyTicketEventMessage decodePacked() throws JsonProcessingException {
+        return codec.decode(packedBody);
+    }
+
+    @Benchmark
+    public List<List<BevyTicketEvent>> pack() throws JsonProcessingException {
+        return codec.pack(events, Function.identity(), eventsPerMessage, BevyTicketEventCodec.MAX_PAYLOAD_BYTES);
+    }
+}
@@ -0,0 +1,63 @@
+package org.seattleoba.lambda.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.seattleoba.data.model.BevyTicket;
+import org.seattleoba.lambda.dynamodb.bean.HashedBevyTicket;
+import org.seattleoba.lambda.importer.BevyTicketMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of a parsed roster row to a table item, including the date and ticket number conversions and the content
+ * hash.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BevyTicketMapperBenchmark {
+    @Param("2024-10-19T18:30:00Z")
+    public String checkInDate;
+
+    @Param("2024-09-02T09:15:42Z")
+    public String purchaseDate;
+
+    @Param("467-046381")
+    public String ticketNumber;
+
+    @Param("25.00")
+    public String price;
+
+    private BevyTicket row;
+    private HashedBevyTicket mapped;
+
+    @Setup
+    public void setUp() {
+        row = new BevyTicket(
+                "A1B2C3",
+                checkInDate,
+                ticketNumber,
+                "ORDER-12345",
+                price,
+                purchaseDate,
+                "Kenley",
+                "General Admission");
+        mapped = BevyTicketMapper.toBevyTicket(BenchmarkFixtures.EVENT_ID, row);
+    }
+
+    @Benchmark
+    public HashedBevyTicket toBevyTicket() {
+        return BevyTicketMapper.toBevyTicket(BenchmarkFixtures.EVENT_ID, row);
+    }
+
+    @Benchmark
+    public String contentHash() {
+        return BevyTicketMapper.contentHash(mapped);
+    }
+}
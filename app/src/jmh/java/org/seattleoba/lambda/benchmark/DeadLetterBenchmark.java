@@ -0,0 +1,113 @@
+package org.seattleoba.lambda.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.seattleoba.data.dynamodb.bean.BevyTicket;
+import org.seattleoba.lambda.dagger.JacksonModule;
+import org.seattleoba.lambda.dlq.DeadLetterClassification;
+import org.seattleoba.lambda.dlq.DeadLetterClassifier;
+import org.seattleoba.lambda.dynamodb.BatchGetOutcome;
+import org.seattleoba.lambda.dynamodb.DynamoDbBatchExecutor;
+import org.seattleoba.lambda.message.BevyTicketEventCodec;
+import org.seattleoba.lambda.model.BevyTicketErrorEntry;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DLQ report's CPU-bound work: classifying a drained batch of dead letters, with the Bevy ticket table lookups
+ * answered from memory, and writing error entries as report CSV.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DeadLetterBenchmark {
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+    private static final CsvSchema CSV_SCHEMA = CSV_MAPPER.schemaFor(BevyTicketErrorEntry.class).withHeader();
+
+    // One drain batch of the DLQ handler.
+    @Param("500")
+    public int messageCount;
+
+    private DeadLetterClassifier classifier;
+    private List<Message> messages;
+    private List<BevyTicketErrorEntry> errorEntries;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        final BevyTicketEventCodec codec = new BevyTicketEventCodec(new JacksonModule().providesObjectMapper());
+        classifier = new DeadLetterClassifier(new InMemoryBatchExecutor(), null, codec);
+        messages = new ArrayList<>(messageCount);
+        final List<BevyTicketEvent> events = BenchmarkFixtures.ticketEvents(messageCount);
+        for (int i = 0; i < messageCount; i++) {
+            // Events written before ticket numbers were carried in messages are completed from the ticket table.
+            final BevyTicketEvent event = i % 2 == 0
+                    ? events.get(i)
+                    : new BevyTicketEvent(events.get(i).eventId(), events.get(i).ticketId(), null,
+                    events.get(i).purchaserName());
+            messages.add(Message.builder()
+                    .messageId(Integer.toString(i))
+                    .body(codec.encode(event))
+                    .build());
+        }
+        errorEntries = BenchmarkFixtures.errorEntries(messageCount);
+    }
+
+    @Benchmark
+    public DeadLetterClassification classify() {
+        return classifier.classify(messages);
+    }
+
+    @Benchmark
+    public void writeReport() throws IOException {
+        try (final SequenceWriter writer = CSV_MAPPER.writer(CSV_SCHEMA).writeValues(OutputStream.nullOutputStream())) {
+            for (final BevyTicketErrorEntry errorEntry : errorEntries) {
+                writer.write(errorEntry);
+            }
+        }
+    }
+
+    /**
+     * Answers every lookup with a ticket, without calling DynamoDB.
+     */
+    private static final class InMemoryBatchExecutor extends DynamoDbBatchExecutor {
+        InMemoryBatchExecutor() {
+            super(null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> BatchGetOutcome<T> getItems(final DynamoDbTable<T> table, final Collection<Key> keys) {
+            final Map<Key, T> items = new HashMap<>();
+            for (final Key key : keys) {
+                final BevyTicket bevyTicket = new BevyTicket();
+                bevyTicket.setTicketId(String.format("%d-%s",
+                        BenchmarkFixtures.EVENT_ID,
+                        key.sortKeyValue().orElseThrow().n()));
+                items.put(key, (T) bevyTicket);
+            }
+            return new BatchGetOutcome<>(items, Collections.emptyList(), 0);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.seattleoba.lambda.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Twitch login validation as the SQS consumer and the DLQ classifier do it, with {@code String.matches}, which
+ * compiles the expression on every call, against a precompiled pattern and a plain character scan. About one login
+ * in ten is invalid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoginValidationBenchmark {
+    private static final int LOGIN_COUNT = 1_024;
+    private static final String LOGIN_REGEX = "[A-Za-z0-9_]+";
+    private static final Pattern LOGIN_PATTERN = Pattern.compile(LOGIN_REGEX);
+
+    private final String[] logins = new String[LOGIN_COUNT];
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(LOGIN_COUNT);
+        for (int i = 0; i < LOGIN_COUNT; i++) {
+            final String login = BenchmarkFixtures.login(random);
+            logins[i] = i % 10 == 0 ? login + " " + login : login;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOGIN_COUNT)
+    public void stringMatches(final Blackhole blackhole) {
+        for (final String login : logins) {
+            blackhole.consume(login.matches(LOGIN_REGEX));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOGIN_COUNT)
+    public void precompiledPattern(final Blackhole blackhole) {
+        for (final String login : logins) {
+            blackhole.consume(LOGIN_PATTERN.matcher(login).matches());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOGIN_COUNT)
+    public void characterScan(final Blackhole blackhole) {
+        for (final String login : logins) {
+            blackhole.consume(isLogin(login));
+        }
+    }
+
+    private static boolean isLogin(final String login) {
+        if (login.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < login.length(); i++) {
+            final char c = login.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+package org.seattleoba.lambda.benchmark;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.serialization.PojoSerializer;
+import com.amazonaws.services.lambda.runtime.serialization.events.LambdaEventSerializers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.seattleoba.lambda.dagger.JacksonModule;
+import org.seattleoba.lambda.message.BevyTicketEventCodec;
+import org.seattleoba.lambda.stream.CoalescedTicketEvent;
+import org.seattleoba.lambda.stream.TicketEventCoalescer;
+import org.seattleoba.lambda.stream.TicketStreamEventSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A stream batch from event JSON to SQS message bodies, once through the Lambda runtime's {@link DynamodbEvent}
+ * deserialization and once through {@link TicketStreamEventSerializer}. Run with {@code -PjmhProfilers=gc} to compare
+ * allocation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StreamEventDecodingBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int recordCount;
+
+    private PojoSerializer<DynamodbEvent> runtimeSerializer;
+    private TicketStreamEventSerializer streamEventSerializer;
+    private BevyTicketEventCodec codec;
+    private byte[] eventJson;
+
+    @Setup
+    public void setUp() {
+        runtimeSerializer = LambdaEventSerializers.serializerFor(DynamodbEvent.class, getClass().getClassLoader());
+        final ObjectMapper objectMapper = new JacksonModule().providesObjectMapper();
+        streamEventSerializer = new TicketStreamEventSerializer(objectMapper);
+        codec = new BevyTicketEventCodec(objectMapper);
+        final DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(BenchmarkFixtures.streamRecords(recordCount));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        runtimeSerializer.toJson(event, output);
+        eventJson = output.toByteArray();
+    }
+
+    @Benchmark
+    public List<String> runtimeDeserialization() throws IOException {
+        final DynamodbEvent event = runtimeSerializer.fromJson(new ByteArrayInputStream(eventJson));
+        final List<CoalescedTicketEvent> events = TicketEventCoalescer.coalesce(event.getRecords());
+        final List<String> bodies = new ArrayList<>(events.size());
+        for (final CoalescedTicketEvent coalescedTicketEvent : events) {
+            bodies.add(codec.encode(coalescedTicketEvent.bevyTicketEvent()));
+        }
+        return bodies;
+    }
+
+    @Benchmark
+    public List<String> streamingDeserialization() throws IOException {
+        final List<CoalescedTicketEvent> events = TicketEventCoalescer.coalesceRecords(
+                streamEventSerializer.read(new ByteArrayInputStream(eventJson)));
+        final List<String> bodies = new ArrayList<>(events.size());
+        for (final CoalescedTicketEvent coalescedTicketEvent : events) {
+            bodies.add(codec.encode(coalescedTicketEvent.bevyTicketEvent()));
+        }
+        return bodies;
+    }
+}
@@ -0,0 +1,40 @@
+package org.seattleoba.lambda.benchmark;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.seattleoba.lambda.stream.CoalescedTicketEvent;
+import org.seattleoba.lambda.stream.TicketEventCoalescer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Attribute extraction from a batch of Bevy ticket table stream records, up to the largest batch a stream event
+ * source delivers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TicketEventCoalescerBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int recordCount;
+
+    private List<DynamodbEvent.DynamodbStreamRecord> records;
+
+    @Setup
+    public void setUp() {
+        records = BenchmarkFixtures.streamRecords(recordCount);
+    }
+
+    @Benchmark
+    public List<CoalescedTicketEvent> coalesce() {
+        return TicketEventCoalescer.coalesce(records);
+    }
+}
@@ -0,0 +1,68 @@
+package org.seattleoba.lambda.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the calls made to each stand-in API, keyed as {@code <service>.<operation>}. Every attempt is a call, so SDK
+ * retries are counted; attempts that were answered with an injected throttle or error are also counted separately.
+ */
+public class ApiCallCounter {
+    private final Map<String, Counts> counts = new ConcurrentHashMap<>();
+
+    public void called(final String operation) {
+        countsOf(operation).calls.increment();
+    }
+
+    public void throttled(final String operation) {
+        countsOf(operation).throttled.increment();
+    }
+
+    public void failed(final String operation) {
+        countsOf(operation).failed.increment();
+    }
+
+    /**
+     * Current totals, sorted by operation.
+     */
+    public Map<String, CallCounts> snapshot() {
+        final Map<String, CallCounts> snapshot = new TreeMap<>();
+        counts.forEach((operation, operationCounts) -> snapshot.put(operation, new CallCounts(
+                operationCounts.calls.sum(),
+                operationCounts.throttled.sum(),
+                operationCounts.failed.sum())));
+        return snapshot;
+    }
+
+    /**
+     * Calls made since {@code earlier} was taken, leaving out operations that were not called.
+     */
+    public Map<String, CallCounts> since(final Map<String, CallCounts> earlier) {
+        final Map<String, CallCounts> delta = new TreeMap<>();
+        snapshot().forEach((operation, current) -> {
+            final CallCounts before = earlier.getOrDefault(operation, new CallCounts(0L, 0L, 0L));
+            if (current.calls() > before.calls()) {
+                delta.put(operation, new CallCounts(
+                        current.calls() - before.calls(),
+                        current.throttled() - before.throttled(),
+                        current.failed() - before.failed()));
+            }
+        });
+        return delta;
+    }
+
+    private Counts countsOf(final String operation) {
+        return counts.computeIfAbsent(operation, ignored -> new Counts());
+    }
+
+    public record CallCounts(long calls, long throttled, long failed) {
+    }
+
+    private static final class Counts {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+    }
+}
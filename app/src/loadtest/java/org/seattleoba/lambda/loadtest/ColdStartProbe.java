@@ -0,0 +1,123 @@
+package org.seattleoba.lambda.loadtest;
+
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import org.crac.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Times one cold start of a Lambda entry point in a fresh JVM started by {@link ColdStartRunner}, and prints the
+ * timings as one line starting with {@link #RESULT_PREFIX}.
+ */
+public final class ColdStartProbe {
+    static final String RESULT_PREFIX = "COLD_START_RESULT ";
+    private static final String COMPONENT_FIELD_NAME = "lambdaComponent";
+    private static final long FUNCTION_TIMEOUT_MILLIS = 900_000L;
+
+    /**
+     * The function entry points, as named in each function's handler setting.
+     */
+    public enum EntryPoint {
+        IMPORT("org.seattleoba.lambda.TicketImportRequestHandler"),
+        STREAM("org.seattleoba.lambda.DynamoDbEventRequestHandler"),
+        SQS("org.seattleoba.lambda.SQSEventRequestHandler"),
+        DLQ("org.seattleoba.lambda.DLQRequestHandler");
+
+        private final String className;
+
+        EntryPoint(final String className) {
+            this.className = className;
+        }
+    }
+
+    private ColdStartProbe() {
+    }
+
+    /**
+     * Arguments: the {@link EntryPoint}, whether to call {@code beforeCheckpoint}, and the number of stream records
+     * in the stream entry point's first invocation.
+     */
+    public static void main(final String[] args) throws Exception {
+        final long mainStart = System.nanoTime();
+        final EntryPoint entryPoint = EntryPoint.valueOf(args[0]);
+        final boolean primed = Boolean.parseBoolean(args[1]);
+        final byte[] streamEvent = streamEvent(Integer.parseInt(args[2]));
+
+        long start = System.nanoTime();
+        final Resource handler = (Resource) Class.forName(entryPoint.className).getDeclaredConstructor().newInstance();
+        final long initMillis = millisSince(start);
+
+        long primeMillis = 0L;
+        if (primed) {
+            start = System.nanoTime();
+            handler.beforeCheckpoint(null);
+            primeMillis = millisSince(start);
+        }
+
+        start = System.nanoTime();
+        if (entryPoint == EntryPoint.STREAM) {
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            ((RequestStreamHandler) handler).handleRequest(
+                    new ByteArrayInputStream(streamEvent),
+                    response,
+                    new LoadTestContext("ColdStart", FUNCTION_TIMEOUT_MILLIS));
+            // A partial batch response means the events were not delivered, so the timing would not be comparable.
+            if (response.toString(StandardCharsets.UTF_8).contains("itemIdentifier")) {
+                throw new IllegalStateException("Stream batch was not delivered: " + response);
+            }
+        } else {
+            buildRequestHandler(handler);
+        }
+        final long firstRequestMillis = millisSince(start);
+
+        final long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        // Not a log line: the result line on stdout is how the probe reports to ColdStartRunner, which parses it.
+        System.out.printf("%s{\"jvmStartMillis\":%d,\"initMillis\":%d,\"primeMillis\":%d,\"firstRequestMillis\":%d}%n",
+                RESULT_PREFIX,
+                uptimeMillis - millisSince(mainStart),
+                initMillis,
+                primeMillis,
+                firstRequestMillis);
+        // The SDK clients' connection pools keep non-daemon threads alive.
+        System.exit(0);
+    }
+
+    /**
+     * Calls {@code requestHandler()} on the entry point's Dagger component, which the entry points keep private.
+     */
+    private static void buildRequestHandler(final Resource handler) throws ReflectiveOperationException {
+        final Field componentField = handler.getClass().getDeclaredField(COMPONENT_FIELD_NAME);
+        componentField.setAccessible(true);
+        final Object component = componentField.get(handler);
+        final Method requestHandler = component.getClass().getMethod("requestHandler");
+        requestHandler.setAccessible(true);
+        requestHandler.invoke(component);
+    }
+
+    /**
+     * A batch of INSERT records of distinct tickets, as Lambda delivers it to the stream entry point.
+     */
+    private static byte[] streamEvent(final int records) {
+        final StringBuilder event = new StringBuilder("{\"Records\":[");
+        for (int i = 0; i < records; i++) {
+            if (i > 0) {
+                event.append(',');
+            }
+            event.append(String.format("{\"eventName\":\"INSERT\",\"dynamodb\":{"
+                    + "\"Keys\":{\"event_id\":{\"N\":\"467\"},\"id\":{\"N\":\"%d\"}},"
+                    + "\"NewImage\":{\"event_id\":{\"N\":\"467\"},\"id\":{\"N\":\"%d\"},"
+                    + "\"ticket_id\":{\"S\":\"467-%06d\"},\"purchaser_name\":{\"S\":\"viewer_%d\"}},"
+                    + "\"SequenceNumber\":\"%d\",\"StreamViewType\":\"NEW_AND_OLD_IMAGES\"}}", i, i, i, i, 1_000 + i));
+        }
+        return event.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long millisSince(final long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+}
@@ -0,0 +1,205 @@
+package org.seattleoba.lambda.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.lambda.model.AwsHttpClientType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Times cold starts of the Lambda entry points, each in a fresh JVM running {@link ColdStartProbe}, with and without
+ * their SnapStart {@code beforeCheckpoint} hook.
+ */
+public final class ColdStartRunner {
+    private static final Logger LOG = LogManager.getLogger(ColdStartRunner.class);
+    private static final Path OUTPUT_DIR = Path.of(Optional.ofNullable(System.getProperty("loadtest.outputDir"))
+            .orElse("build/loadtest"));
+    // Lambda's Java runtimes stop at the C1 compiler unless JAVA_TOOL_OPTIONS says otherwise.
+    private static final String DEFAULT_JVM_ARGS = "-XX:+TieredCompilation,-XX:TieredStopAtLevel=1";
+    private static final byte[] SQS_RESPONSE = "{}".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int runs;
+    private final List<ColdStartProbe.EntryPoint> entryPoints;
+    private final List<AwsHttpClientType> httpClientTypes;
+    private final int streamRecords;
+    private final List<String> jvmArgs;
+
+    private ColdStartRunner(final String[] args) {
+        final CommandLineOptions options = new CommandLineOptions(args);
+        this.runs = options.get("runs", Integer::parseInt, 5);
+        this.entryPoints = options.get("entry-points", list(ColdStartProbe.EntryPoint::valueOf),
+                Arrays.asList(ColdStartProbe.EntryPoint.values()));
+        this.httpClientTypes = options.get("http-clients", list(AwsHttpClientType::valueOf),
+                List.of(AwsHttpClientType.APACHE));
+        this.streamRecords = options.get("stream-records", Integer::parseInt, 50);
+        this.jvmArgs = options.get("jvm-args", list(Function.identity()), list(Function.identity()).apply(DEFAULT_JVM_ARGS));
+        options.rejectUnknown();
+    }
+
+    public static void main(final String[] args) {
+        int status = 0;
+        try {
+            new ColdStartRunner(args).run();
+        } catch (final Exception exception) {
+            LOG.error("Cold start run failed", exception);
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    private void run() throws IOException, InterruptedException {
+        final HttpServer sqsEndpoint = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        sqsEndpoint.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.0");
+            exchange.sendResponseHeaders(200, SQS_RESPONSE.length);
+            exchange.getResponseBody().write(SQS_RESPONSE);
+            exchange.close();
+        });
+        sqsEndpoint.start();
+        final String sqsEndpointUrl = String.format("http://localhost:%d", sqsEndpoint.getAddress().getPort());
+
+        final Map<String, List<JsonNode>> results = new LinkedHashMap<>();
+        try {
+            for (int run = 1; run <= runs; run++) {
+                for (final ColdStartProbe.EntryPoint entryPoint : entryPoints) {
+                    for (final AwsHttpClientType httpClientType : httpClientTypes) {
+                        for (final boolean primed : List.of(false, true)) {
+                            final JsonNode result = probe(entryPoint, httpClientType, primed, sqsEndpointUrl);
+                            LOG.info("Run {} of {} {} {}: {}", run, entryPoint, httpClientType,
+                                    primed ? "primed" : "unprimed", result);
+                            results.computeIfAbsent(key(entryPoint, httpClientType, primed), ignored -> new ArrayList<>())
+                                    .add(result);
+                        }
+                    }
+                }
+            }
+        } finally {
+            sqsEndpoint.stop(0);
+        }
+
+        final List<Summary> summaries = new ArrayList<>();
+        results.forEach((key, runResults) -> {
+            final Summary summary = new Summary(
+                    key,
+                    runResults.size(),
+                    Timing.of(runResults, "jvmStartMillis"),
+                    Timing.of(runResults, "initMillis"),
+                    Timing.of(runResults, "primeMillis"),
+                    Timing.of(runResults, "firstRequestMillis"));
+            LOG.info("{}: JVM start {}, init {}, beforeCheckpoint {}, first request {} ms",
+                    key, summary.jvmStart(), summary.init(), summary.prime(), summary.firstRequest());
+            summaries.add(summary);
+        });
+        Files.createDirectories(OUTPUT_DIR);
+        final Path reportPath = OUTPUT_DIR.resolve(String.format("cold-start-%d.json", System.currentTimeMillis()));
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportPath.toFile(), summaries);
+        LOG.info("Wrote {}", reportPath);
+    }
+
+    private JsonNode probe(
+            final ColdStartProbe.EntryPoint entryPoint,
+            final AwsHttpClientType httpClientType,
+            final boolean primed,
+            final String sqsEndpointUrl) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ColdStartProbe.class.getName());
+        command.add(entryPoint.name());
+        command.add(Boolean.toString(primed));
+        command.add(Integer.toString(streamRecords));
+
+        final ProcessBuilder processBuilder = new ProcessBuilder(command).redirectErrorStream(true);
+        final Map<String, String> environment = processBuilder.environment();
+        environment.put("AWS_HTTP_CLIENT", httpClientType.name());
+        environment.put("AWS_ENDPOINT_URL_SQS", sqsEndpointUrl);
+        environment.put("AWS_ACCESS_KEY_ID", "coldstart");
+        environment.put("AWS_SECRET_ACCESS_KEY", "coldstart");
+        // Keeps the SQS entry point from fetching Twitch credentials during init, as it does under SnapStart.
+        environment.put("AWS_LAMBDA_INITIALIZATION_TYPE", "snap-start");
+
+        final Process process = processBuilder.start();
+        final List<String> output = new ArrayList<>();
+        String result = null;
+        try (final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (Objects.nonNull(line = reader.readLine())) {
+                if (line.startsWith(ColdStartProbe.RESULT_PREFIX)) {
+                    result = line.substring(ColdStartProbe.RESULT_PREFIX.length());
+                } else {
+                    output.add(line);
+                }
+            }
+        }
+        final int exitCode = process.waitFor();
+        if (exitCode != 0 || Objects.isNull(result)) {
+            output.forEach(LOG::error);
+            throw new IllegalStateException(String.format("Cold start probe of %s exited with %d", entryPoint, exitCode));
+        }
+        return objectMapper.readTree(result);
+    }
+
+    private static String key(
+            final ColdStartProbe.EntryPoint entryPoint,
+            final AwsHttpClientType httpClientType,
+            final boolean primed) {
+        return String.format("%s %s %s", entryPoint, httpClientType, primed ? "primed" : "unprimed");
+    }
+
+    private static <T> Function<String, List<T>> list(final Function<String, T> parser) {
+        return value -> Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(element -> !element.isEmpty())
+                .map(parser)
+                .collect(Collectors.toList());
+    }
+
+    public record Summary(
+            String configuration,
+            int runs,
+            Timing jvmStart,
+            Timing init,
+            Timing prime,
+            Timing firstRequest) {
+    }
+
+    public record Timing(long minMillis, long medianMillis, long maxMillis) {
+        private static Timing of(final List<JsonNode> results, final String fieldName) {
+            final long[] values = results.stream()
+                    .mapToLong(result -> result.get(fieldName).asLong())
+                    .sorted()
+                    .toArray();
+            return new Timing(values[0], values[values.length / 2], values[values.length - 1]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d/%d", minMillis, medianMillis, maxMillis);
+        }
+    }
+}
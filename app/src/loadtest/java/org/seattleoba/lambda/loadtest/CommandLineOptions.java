@@ -0,0 +1,48 @@
+package org.seattleoba.lambda.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * {@code --name=value} arguments of the harness entry points. Options that no {@link #get} asked for are rejected by
+ * {@link #rejectUnknown()}, so that a misspelt option fails the run instead of being ignored.
+ */
+final class CommandLineOptions {
+    private final Map<String, String> values = new HashMap<>();
+    private final Set<String> used = new TreeSet<>();
+
+    CommandLineOptions(final String[] args) {
+        for (final String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+    }
+
+    <T> T get(final String name, final Function<String, T> parser, final T defaultValue) {
+        used.add(name);
+        final String value = values.get(name);
+        if (Objects.isNull(value)) {
+            return defaultValue;
+        }
+        try {
+            return parser.apply(value);
+        } catch (final RuntimeException exception) {
+            throw new IllegalArgumentException(String.format("Invalid value for --%s: %s", name, value), exception);
+        }
+    }
+
+    void rejectUnknown() {
+        final Set<String> unknown = new TreeSet<>(values.keySet());
+        unknown.removeAll(used);
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + unknown);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.seattleoba.lambda.loadtest;
+
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * HTTP client for the DynamoDB client that talks to DynamoDB Local. Each attempt draws a fault before it is sent: a
+ * throttled or failed attempt is answered here with the error DynamoDB would return, and never reaches DynamoDB Local,
+ * so that a throttled write is not applied. Retries are left to the SDK's own retry policy, as in Lambda.
+ */
+public class DynamoDbFaultInjectingHttpClient implements SdkHttpClient {
+    private static final String TARGET_HEADER = "X-Amz-Target";
+    private static final String ERROR_TYPE_PREFIX = "com.amazonaws.dynamodb.v20120810#";
+
+    private final SdkHttpClient delegate;
+    private final FaultInjector faultInjector;
+
+    public DynamoDbFaultInjectingHttpClient(final SdkHttpClient delegate, final FaultInjector faultInjector) {
+        this.delegate = delegate;
+        this.faultInjector = faultInjector;
+    }
+
+    @Override
+    public ExecutableHttpRequest prepareRequest(final HttpExecuteRequest request) {
+        // The target header is "DynamoDB_20120810.<Operation>".
+        final String operation = request.httpRequest().firstMatchingHeader(TARGET_HEADER)
+                .map(target -> target.substring(target.indexOf('.') + 1))
+                .orElse("Unknown");
+        return new ExecutableHttpRequest() {
+            private volatile ExecutableHttpRequest delegateRequest;
+
+            @Override
+            public HttpExecuteResponse call() throws IOException {
+                return switch (faultInjector.attempt(operation)) {
+                    case THROTTLE -> errorResponse(400, "ProvisionedThroughputExceededException",
+                            "The level of configured provisioned throughput for the table was exceeded.");
+                    case ERROR -> errorResponse(500, "InternalServerError", "Internal server error");
+                    case NONE -> {
+                        delegateRequest = delegate.prepareRequest(request);
+                        yield delegateRequest.call();
+                    }
+                };
+            }
+
+            @Override
+            public void abort() {
+                final ExecutableHttpRequest prepared = delegateRequest;
+                if (Objects.nonNull(prepared)) {
+                    prepared.abort();
+                }
+            }
+        };
+    }
+
+    @Override
+    public String clientName() {
+        return delegate.clientName();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private static HttpExecuteResponse errorResponse(final int statusCode, final String errorType, final String message) {
+        final byte[] body = String.format("{\"__type\":\"%s%s\",\"message\":\"%s\"}", ERROR_TYPE_PREFIX, errorType, message)
+                .getBytes(StandardCharsets.UTF_8);
+        return HttpExecuteResponse.builder()
+                .response(SdkHttpResponse.builder()
+                        .statusCode(statusCode)
+                        .putHeader("Content-Type", "application/x-amz-json-1.0")
+                        .putHeader("Content-Length", Integer.toString(body.length))
+                        .build())
+                .responseBody(AbortableInputStream.create(new ByteArrayInputStream(body)))
+                .build();
+    }
+}
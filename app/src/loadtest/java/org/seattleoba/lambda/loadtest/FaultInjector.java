@@ -0,0 +1,91 @@
+package org.seattleoba.lambda.loadtest;
+
+import org.seattleoba.lambda.util.ExponentialBackoff;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Applies a {@link FaultProfile} to the calls of an in-process stand-in. Calls that draw a throttle or an error are
+ * retried with backoff the way the SDK's standard retry mode would, so the handlers see the extra latency and the
+ * stand-in's call count includes every attempt; only a call that fails on every attempt reaches the handler.
+ */
+public class FaultInjector {
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final String service;
+    private final FaultProfile profile;
+    private final ApiCallCounter apiCallCounter;
+    private final ExponentialBackoff backoff = new ExponentialBackoff(100L, 20_000L);
+
+    public FaultInjector(final String service, final FaultProfile profile, final ApiCallCounter apiCallCounter) {
+        this.service = service;
+        this.profile = profile;
+        this.apiCallCounter = apiCallCounter;
+    }
+
+    /**
+     * Counts one attempt of {@code operation}, waits out the injected latency and draws its fault.
+     */
+    public Fault attempt(final String operation) {
+        final String name = service + "." + operation;
+        apiCallCounter.called(name);
+        if (profile.latencyMillis() > 0L) {
+            sleep(profile.latencyMillis());
+        }
+        final double draw = ThreadLocalRandom.current().nextDouble();
+        if (draw < profile.throttleRate()) {
+            apiCallCounter.throttled(name);
+            return Fault.THROTTLE;
+        }
+        if (draw < profile.throttleRate() + profile.errorRate()) {
+            apiCallCounter.failed(name);
+            return Fault.ERROR;
+        }
+        return Fault.NONE;
+    }
+
+    /**
+     * Runs {@code call} once an attempt draws no fault, or throws the exception for the last attempt's fault.
+     */
+    public <T> T call(
+            final String operation,
+            final Supplier<T> call,
+            final Function<Fault, RuntimeException> exceptionOf) {
+        for (int attempt = 1; ; attempt++) {
+            final Fault fault = attempt(operation);
+            if (fault == Fault.NONE) {
+                return call.get();
+            }
+            if (attempt >= MAX_ATTEMPTS) {
+                throw exceptionOf.apply(fault);
+            }
+            backoff.pause(attempt);
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during injected latency", exception);
+        }
+    }
+
+    public enum Fault {
+        /**
+         * The call goes through.
+         */
+        NONE,
+        /**
+         * The call is rejected as throttled.
+         */
+        THROTTLE,
+        /**
+         * The call fails with a server error.
+         */
+        ERROR
+    }
+}
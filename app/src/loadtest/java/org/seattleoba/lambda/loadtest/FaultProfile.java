@@ -0,0 +1,9 @@
+package org.seattleoba.lambda.loadtest;
+
+/**
+ * Faults injected into every call to one stand-in service: a fixed latency, and the fraction of calls that are
+ * throttled or fail with a server error.
+ */
+public record FaultProfile(long latencyMillis, double throttleRate, double errorRate) {
+    public static final FaultProfile NONE = new FaultProfile(0L, 0d, 0d);
+}
@@ -0,0 +1,140 @@
+package org.seattleoba.lambda.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.seattleoba.lambda.twitch.HelixUser;
+import org.seattleoba.lambda.twitch.HelixUserList;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Helix Get Users endpoint served on the loopback interface, rate limited like Twitch. Every login exists except
+ * those starting with {@link RosterGenerator#UNKNOWN_LOGIN_PREFIX}.
+ */
+public class HelixStandIn implements AutoCloseable {
+    private static final String OPERATION = "Helix.GetUsers";
+    private static final String USERS_PATH = "/helix/users";
+    private static final double REFILL_PERIOD_MILLIS = 60_000d;
+
+    private final HttpServer server;
+    private final ObjectMapper objectMapper;
+    private final FaultInjector faultInjector;
+    private final ApiCallCounter apiCallCounter;
+    private final int rateLimitPerMinute;
+    private double tokens;
+    private long lastRefillMillis = System.currentTimeMillis();
+
+    public HelixStandIn(
+            final ObjectMapper objectMapper,
+            final FaultInjector faultInjector,
+            final ApiCallCounter apiCallCounter,
+            final int rateLimitPerMinute) throws IOException {
+        this.objectMapper = objectMapper;
+        this.faultInjector = faultInjector;
+        this.apiCallCounter = apiCallCounter;
+        this.rateLimitPerMinute = rateLimitPerMinute;
+        this.tokens = rateLimitPerMinute;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(USERS_PATH, this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    public String baseUrl() {
+        return String.format("http://%s:%d/helix",
+                server.getAddress().getHostString(),
+                server.getAddress().getPort());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final FaultInjector.Fault fault = faultInjector.attempt("GetUsers");
+            final boolean admitted;
+            final long remaining;
+            final long resetSeconds;
+            synchronized (this) {
+                final long now = System.currentTimeMillis();
+                tokens = Math.min(rateLimitPerMinute,
+                        tokens + (now - lastRefillMillis) * rateLimitPerMinute / REFILL_PERIOD_MILLIS);
+                lastRefillMillis = now;
+                // An injected throttle answers as if the bucket were empty.
+                admitted = fault != FaultInjector.Fault.THROTTLE && tokens >= 1d;
+                if (admitted) {
+                    tokens -= 1d;
+                }
+                remaining = admitted ? (long) tokens : 0L;
+                final double millisUntilFull = (rateLimitPerMinute - remaining)
+                        * REFILL_PERIOD_MILLIS / rateLimitPerMinute;
+                resetSeconds = (now + (long) Math.ceil(millisUntilFull)) / 1000L + 1L;
+            }
+            if (!admitted && fault != FaultInjector.Fault.THROTTLE) {
+                apiCallCounter.throttled(OPERATION);
+            }
+            exchange.getResponseHeaders().add("Ratelimit-Limit", Integer.toString(rateLimitPerMinute));
+            exchange.getResponseHeaders().add("Ratelimit-Remaining", Long.toString(remaining));
+            exchange.getResponseHeaders().add("Ratelimit-Reset", Long.toString(resetSeconds));
+
+            if (fault == FaultInjector.Fault.ERROR) {
+                respond(exchange, 503, "{\"error\":\"Service Unavailable\",\"status\":503}");
+            } else if (!admitted) {
+                respond(exchange, 429, "{\"error\":\"Too Many Requests\",\"status\":429}");
+            } else {
+                respond(exchange, 200, objectMapper.writeValueAsString(new HelixUserList(logins(exchange).stream()
+                        .filter(login -> !login.startsWith(RosterGenerator.UNKNOWN_LOGIN_PREFIX))
+                        .map(HelixStandIn::user)
+                        .collect(Collectors.toList()))));
+            }
+        }
+    }
+
+    private static List<String> logins(final HttpExchange exchange) {
+        final String query = exchange.getRequestURI().getRawQuery();
+        if (Objects.isNull(query)) {
+            return List.of();
+        }
+        return Arrays.stream(query.split("&"))
+                .filter(parameter -> parameter.startsWith("login="))
+                .map(parameter -> URLDecoder.decode(parameter.substring("login=".length()), StandardCharsets.UTF_8))
+                .map(login -> login.toLowerCase(Locale.ROOT))
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static HelixUser user(final String login) {
+        return new HelixUser(
+                String.valueOf(login.hashCode() & Integer.MAX_VALUE),
+                login,
+                login,
+                "",
+                "",
+                "",
+                "2016-01-01T00:00:00Z");
+    }
+
+    private static void respond(final HttpExchange exchange, final int statusCode, final String body)
+            throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (final OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.seattleoba.lambda.loadtest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A standard SQS queue held in memory. Received messages are in flight until they are deleted or released; a
+ * released message becomes visible again at the back of the queue. There is no visibility timer: whoever received a
+ * message decides when it is released.
+ */
+public class InMemoryQueue {
+    private final String name;
+    private final Deque<QueuedMessage> visible = new ArrayDeque<>();
+    private final Map<String, QueuedMessage> inFlight = new HashMap<>();
+
+    public InMemoryQueue(final String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized String send(final String body) {
+        final QueuedMessage message =
+                new QueuedMessage(UUID.randomUUID().toString(), body, 0, null, System.currentTimeMillis());
+        visible.addLast(message);
+        return message.messageId();
+    }
+
+    public synchronized List<QueuedMessage> receive(final int maxMessages) {
+        final List<QueuedMessage> messages = new ArrayList<>();
+        while (messages.size() < maxMessages && !visible.isEmpty()) {
+            final QueuedMessage queued = visible.removeFirst();
+            final QueuedMessage received = new QueuedMessage(
+                    queued.messageId(),
+                    queued.body(),
+                    queued.receiveCount() + 1,
+                    UUID.randomUUID().toString(),
+                    queued.sentTimestamp());
+            inFlight.put(received.receiptHandle(), received);
+            messages.add(received);
+        }
+        return messages;
+    }
+
+    public synchronized boolean delete(final String receiptHandle) {
+        return Objects.nonNull(inFlight.remove(receiptHandle));
+    }
+
+    public synchronized boolean isInFlight(final String receiptHandle) {
+        return inFlight.containsKey(receiptHandle);
+    }
+
+    /**
+     * Takes a message out of flight without deleting it, for the caller to requeue or move to a dead-letter queue.
+     */
+    public synchronized QueuedMessage release(final String receiptHandle) {
+        return inFlight.remove(receiptHandle);
+    }
+
+    public synchronized void requeue(final QueuedMessage message) {
+        visible.addLast(message);
+    }
+
+    /**
+     * Adds a message moved from another queue, keeping its id and body but starting its receive count over.
+     */
+    public synchronized void redrive(final QueuedMessage message) {
+        visible.addLast(new QueuedMessage(message.messageId(), message.body(), 0, null, message.sentTimestamp()));
+    }
+
+    public synchronized int visibleCount() {
+        return visible.size();
+    }
+
+    public synchronized int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public record QueuedMessage(
+            String messageId,
+            String body,
+            int receiveCount,
+            String receiptHandle,
+            long sentTimestamp) {
+    }
+}
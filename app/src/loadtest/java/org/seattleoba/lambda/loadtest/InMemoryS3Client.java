@@ -0,0 +1,229 @@
+package org.seattleoba.lambda.loadtest;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * S3 stand-in holding objects in memory. It supports the calls the roster import and the DLQ report make: HEAD and
+ * ranged, conditional GETs of the roster, and single or multipart uploads of the report.
+ */
+public class InMemoryS3Client implements S3Client {
+    private static final int NOT_FOUND = 404;
+    private static final int PRECONDITION_FAILED = 412;
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+
+    private final FaultInjector faultInjector;
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    public InMemoryS3Client(final FaultInjector faultInjector) {
+        this.faultInjector = faultInjector;
+    }
+
+    /**
+     * Stores an object directly, without going through the fault injector.
+     */
+    public void store(final String bucket, final String key, final byte[] content) {
+        objects.put(path(bucket, key), new StoredObject(content, eTag(content)));
+    }
+
+    public Optional<byte[]> content(final String bucket, final String key) {
+        return Optional.ofNullable(objects.get(path(bucket, key))).map(StoredObject::content);
+    }
+
+    @Override
+    public HeadObjectResponse headObject(final HeadObjectRequest request) {
+        return faultInjector.call("HeadObject", () -> {
+            final StoredObject object = find(request.bucket(), request.key());
+            return HeadObjectResponse.builder()
+                    .contentLength((long) object.content().length)
+                    .eTag(object.eTag())
+                    .build();
+        }, InMemoryS3Client::faultException);
+    }
+
+    @Override
+    public ResponseInputStream<GetObjectResponse> getObject(final GetObjectRequest request) {
+        return faultInjector.call("GetObject", () -> {
+            final StoredObject object = find(request.bucket(), request.key());
+            if (Objects.nonNull(request.ifMatch()) && !request.ifMatch().equals(object.eTag())) {
+                throw exception(PRECONDITION_FAILED, "PreconditionFailed", "ETag does not match");
+            }
+            final int length = object.content().length;
+            int start = 0;
+            int end = length;
+            if (Objects.nonNull(request.range())) {
+                final String[] bounds = request.range().substring("bytes=".length()).split("-", -1);
+                start = Integer.parseInt(bounds[0]);
+                end = bounds[1].isEmpty() ? length : Math.min(length, Integer.parseInt(bounds[1]) + 1);
+                if (start >= length) {
+                    throw exception(RANGE_NOT_SATISFIABLE, "InvalidRange", "Range starts past the object");
+                }
+            }
+            final GetObjectResponse response = GetObjectResponse.builder()
+                    .contentLength((long) (end - start))
+                    .eTag(object.eTag())
+                    .build();
+            return new ResponseInputStream<>(response, AbortableInputStream.create(
+                    new ByteArrayInputStream(object.content(), start, end - start)));
+        }, InMemoryS3Client::faultException);
+    }
+
+    @Override
+    public PutObjectResponse putObject(final PutObjectRequest request, final RequestBody requestBody) {
+        final byte[] content = read(requestBody);
+        return faultInjector.call("PutObject", () -> {
+            store(request.bucket(), request.key(), content);
+            return PutObjectResponse.builder().eTag(eTag(content)).build();
+        }, InMemoryS3Client::faultException);
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(final CreateMultipartUploadRequest request) {
+        return faultInjector.call("CreateMultipartUpload", () -> {
+            final String uploadId = UUID.randomUUID().toString();
+            uploads.put(uploadId, new Upload(request.bucket(), request.key(), new ConcurrentSkipListMap<>()));
+            return CreateMultipartUploadResponse.builder()
+                    .bucket(request.bucket())
+                    .key(request.key())
+                    .uploadId(uploadId)
+                    .build();
+        }, InMemoryS3Client::faultException);
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(final UploadPartRequest request, final RequestBody requestBody) {
+        final byte[] content = read(requestBody);
+        return faultInjector.call("UploadPart", () -> {
+            upload(request.uploadId()).parts().put(request.partNumber(), content);
+            return UploadPartResponse.builder().eTag(eTag(content)).build();
+        }, InMemoryS3Client::faultException);
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(final CompleteMultipartUploadRequest request) {
+        return faultInjector.call("CompleteMultipartUpload", () -> {
+            final Upload upload = upload(request.uploadId());
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            upload.parts().values().forEach(content::writeBytes);
+            store(upload.bucket(), upload.key(), content.toByteArray());
+            uploads.remove(request.uploadId());
+            return CompleteMultipartUploadResponse.builder()
+                    .bucket(upload.bucket())
+                    .key(upload.key())
+                    .eTag(objects.get(path(upload.bucket(), upload.key())).eTag())
+                    .build();
+        }, InMemoryS3Client::faultException);
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(final AbortMultipartUploadRequest request) {
+        return faultInjector.call("AbortMultipartUpload", () -> {
+            uploads.remove(request.uploadId());
+            return AbortMultipartUploadResponse.builder().build();
+        }, InMemoryS3Client::faultException);
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private StoredObject find(final String bucket, final String key) {
+        final StoredObject object = objects.get(path(bucket, key));
+        if (Objects.isNull(object)) {
+            throw exception(NOT_FOUND, "NoSuchKey", "No object " + path(bucket, key));
+        }
+        return object;
+    }
+
+    private Upload upload(final String uploadId) {
+        final Upload upload = uploads.get(uploadId);
+        if (Objects.isNull(upload)) {
+            throw exception(NOT_FOUND, "NoSuchUpload", "No upload " + uploadId);
+        }
+        return upload;
+    }
+
+    private static byte[] read(final RequestBody requestBody) {
+        try (final InputStream inputStream = requestBody.contentStreamProvider().newStream()) {
+            return inputStream.readAllBytes();
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static String path(final String bucket, final String key) {
+        return bucket + "/" + key;
+    }
+
+    private static String eTag(final byte[] content) {
+        try {
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content)) + "\"";
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static RuntimeException faultException(final FaultInjector.Fault fault) {
+        return fault == FaultInjector.Fault.THROTTLE
+                ? exception(503, "SlowDown", "Please reduce your request rate.")
+                : exception(500, "InternalError", "We encountered an internal error. Please try again.");
+    }
+
+    private static S3Exception exception(final int statusCode, final String errorCode, final String message) {
+        return (S3Exception) S3Exception.builder()
+                .statusCode(statusCode)
+                .message(message)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                        .errorCode(errorCode)
+                        .errorMessage(message)
+                        .serviceName("S3")
+                        .build())
+                .build();
+    }
+
+    private record StoredObject(byte[] content, String eTag) {
+    }
+
+    private record Upload(String bucket, String key, SortedMap<Integer, byte[]> parts) {
+    }
+}
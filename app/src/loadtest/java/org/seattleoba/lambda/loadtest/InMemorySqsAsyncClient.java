@@ -0,0 +1,114 @@
+package org.seattleoba.lambda.loadtest;
+
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Receives from and deletes on one {@link InMemoryQueue}, for the DLQ report's drainer and its batch manager. An
+ * empty queue answers a long poll at once, so the drainer stops as soon as the queue is empty.
+ */
+public class InMemorySqsAsyncClient implements SqsAsyncClient {
+    private final InMemoryQueue queue;
+    private final FaultInjector faultInjector;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public InMemorySqsAsyncClient(final InMemoryQueue queue, final FaultInjector faultInjector) {
+        this.queue = queue;
+        this.faultInjector = faultInjector;
+    }
+
+    @Override
+    public CompletableFuture<ReceiveMessageResponse> receiveMessage(final ReceiveMessageRequest request) {
+        return call("ReceiveMessage", () -> ReceiveMessageResponse.builder()
+                .messages(queue.receive(request.maxNumberOfMessages()).stream()
+                        .map(message -> Message.builder()
+                                .messageId(message.messageId())
+                                .receiptHandle(message.receiptHandle())
+                                .body(message.body())
+                                .attributes(Map.of(
+                                        MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT,
+                                        Integer.toString(message.receiveCount()),
+                                        MessageSystemAttributeName.SENT_TIMESTAMP,
+                                        Long.toString(message.sentTimestamp())))
+                                .build())
+                        .collect(Collectors.toList()))
+                .build());
+    }
+
+    @Override
+    public CompletableFuture<DeleteMessageBatchResponse> deleteMessageBatch(final DeleteMessageBatchRequest request) {
+        return call("DeleteMessageBatch", () -> {
+            final List<DeleteMessageBatchResultEntry> successful = new ArrayList<>();
+            final List<BatchResultErrorEntry> failed = new ArrayList<>();
+            request.entries().forEach(entry -> {
+                if (queue.delete(entry.receiptHandle())) {
+                    successful.add(DeleteMessageBatchResultEntry.builder().id(entry.id()).build());
+                } else {
+                    failed.add(receiptHandleIsInvalid(entry.id()));
+                }
+            });
+            return DeleteMessageBatchResponse.builder().successful(successful).failed(failed).build();
+        });
+    }
+
+    @Override
+    public CompletableFuture<ChangeMessageVisibilityBatchResponse> changeMessageVisibilityBatch(
+            final ChangeMessageVisibilityBatchRequest request) {
+        return call("ChangeMessageVisibilityBatch", () -> {
+            final List<ChangeMessageVisibilityBatchResultEntry> successful = new ArrayList<>();
+            final List<BatchResultErrorEntry> failed = new ArrayList<>();
+            request.entries().forEach(entry -> {
+                if (queue.isInFlight(entry.receiptHandle())) {
+                    successful.add(ChangeMessageVisibilityBatchResultEntry.builder().id(entry.id()).build());
+                } else {
+                    failed.add(receiptHandleIsInvalid(entry.id()));
+                }
+            });
+            return ChangeMessageVisibilityBatchResponse.builder().successful(successful).failed(failed).build();
+        });
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private <T> CompletableFuture<T> call(final String operation, final Supplier<T> call) {
+        return CompletableFuture.supplyAsync(
+                () -> faultInjector.call(operation, call, InMemorySqsClient::faultException),
+                executor);
+    }
+
+    private static BatchResultErrorEntry receiptHandleIsInvalid(final String id) {
+        return BatchResultErrorEntry.builder()
+                .id(id)
+                .code("ReceiptHandleIsInvalid")
+                .message("The receipt handle is not in flight")
+                .senderFault(true)
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package org.seattleoba.lambda.loadtest;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends to one {@link InMemoryQueue}, whatever queue URL a request names, so that handlers sharing the
+ * {@code SQS_QUEUE_URL} variable in one JVM still reach the queue their Lambda function would. Throttles apply to a
+ * whole request; errors fail single entries, as SQS reports them in a batch response.
+ */
+public class InMemorySqsClient implements SqsClient {
+    private static final String OPERATION = "SendMessageBatch";
+
+    private final InMemoryQueue queue;
+    private final FaultInjector faultInjector;
+    private final double entryErrorRate;
+    private final ApiCallCounter apiCallCounter;
+
+    public InMemorySqsClient(
+            final InMemoryQueue queue,
+            final FaultInjector faultInjector,
+            final double entryErrorRate,
+            final ApiCallCounter apiCallCounter) {
+        this.queue = queue;
+        this.faultInjector = faultInjector;
+        this.entryErrorRate = entryErrorRate;
+        this.apiCallCounter = apiCallCounter;
+    }
+
+    @Override
+    public SendMessageBatchResponse sendMessageBatch(final SendMessageBatchRequest request) {
+        return faultInjector.call(OPERATION, () -> {
+            final List<SendMessageBatchResultEntry> successful = new ArrayList<>();
+            final List<BatchResultErrorEntry> failed = new ArrayList<>();
+            for (final SendMessageBatchRequestEntry entry : request.entries()) {
+                if (ThreadLocalRandom.current().nextDouble() < entryErrorRate) {
+                    apiCallCounter.failed("SQS." + OPERATION);
+                    failed.add(BatchResultErrorEntry.builder()
+                            .id(entry.id())
+                            .code("InternalError")
+                            .message("Injected entry failure")
+                            .senderFault(false)
+                            .build());
+                } else {
+                    successful.add(SendMessageBatchResultEntry.builder()
+                            .id(entry.id())
+                            .messageId(queue.send(entry.messageBody()))
+                            .build());
+                }
+            }
+            return SendMessageBatchResponse.builder()
+                    .successful(successful)
+                    .failed(failed)
+                    .build();
+        }, InMemorySqsClient::faultException);
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    static SqsException faultException(final FaultInjector.Fault fault) {
+        return (SqsException) SqsException.builder()
+                .statusCode(fault == FaultInjector.Fault.THROTTLE ? 400 : 500)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                        .errorCode(fault == FaultInjector.Fault.THROTTLE ? "RequestThrottled" : "InternalError")
+                        .serviceName("SQS")
+                        .build())
+                .build();
+    }
+}
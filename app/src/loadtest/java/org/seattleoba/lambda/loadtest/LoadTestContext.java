@@ -0,0 +1,95 @@
+package org.seattleoba.lambda.loadtest;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Context of one simulated invocation. The remaining time counts down from the function timeout, starting when the
+ * context is created.
+ */
+public class LoadTestContext implements Context {
+    private static final Logger LOG = LogManager.getLogger(LoadTestContext.class);
+    // Goes through log4j, so that the handlers' Context logger follows the load test's log configuration.
+    private static final LambdaLogger LOGGER = new LambdaLogger() {
+        @Override
+        public void log(final String message) {
+            LOG.info(message.stripTrailing());
+        }
+
+        @Override
+        public void log(final byte[] message) {
+            log(new String(message, StandardCharsets.UTF_8));
+        }
+    };
+
+    private final String functionName;
+    private final long deadlineMillis;
+    private final String awsRequestId = UUID.randomUUID().toString();
+
+    public LoadTestContext(final String functionName, final long timeoutMillis) {
+        this.functionName = functionName;
+        this.deadlineMillis = System.currentTimeMillis() + timeoutMillis;
+    }
+
+    @Override
+    public String getAwsRequestId() {
+        return awsRequestId;
+    }
+
+    @Override
+    public String getLogGroupName() {
+        return "/aws/lambda/" + functionName;
+    }
+
+    @Override
+    public String getLogStreamName() {
+        return "loadtest";
+    }
+
+    @Override
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    @Override
+    public String getFunctionVersion() {
+        return "$LATEST";
+    }
+
+    @Override
+    public String getInvokedFunctionArn() {
+        return "arn:aws:lambda:us-west-2:000000000000:function:" + functionName;
+    }
+
+    @Override
+    public CognitoIdentity getIdentity() {
+        return null;
+    }
+
+    @Override
+    public ClientContext getClientContext() {
+        return null;
+    }
+
+    @Override
+    public int getRemainingTimeInMillis() {
+        return (int) Math.max(0L, deadlineMillis - System.currentTimeMillis());
+    }
+
+    @Override
+    public int getMemoryLimitInMB() {
+        return (int) (Runtime.getRuntime().maxMemory() / (1024L * 1024L));
+    }
+
+    @Override
+    public LambdaLogger getLogger() {
+        return LOGGER;
+    }
+}
@@ -0,0 +1,72 @@
+package org.seattleoba.lambda.loadtest;
+
+import org.seattleoba.lambda.model.BevyRosterImportMode;
+
+/**
+ * Settings of one load test run, parsed from {@code --name=value} arguments. Each stand-in service takes
+ * {@code --<service>-latency-ms}, {@code --<service>-throttle-rate} and {@code --<service>-error-rate}, where the
+ * service is {@code dynamodb}, {@code s3}, {@code sqs} or {@code helix}.
+ */
+public record LoadTestOptions(
+        int rows,
+        int eventId,
+        BevyRosterImportMode importMode,
+        int ticketsPerPurchaser,
+        double invalidLoginRate,
+        double unknownLoginRate,
+        int streamBatchSize,
+        int sqsBatchSize,
+        int consumerConcurrency,
+        int maxReceiveCount,
+        long lambdaTimeoutSeconds,
+        int helixRateLimit,
+        long seed,
+        FaultProfile dynamoDbFaults,
+        FaultProfile s3Faults,
+        FaultProfile sqsFaults,
+        FaultProfile helixFaults) {
+    private static final int MIN_ROWS = 10;
+    private static final int MAX_ROWS = 1_000_000;
+
+    public static LoadTestOptions parse(final String[] args) {
+        final CommandLineOptions options = new CommandLineOptions(args);
+        final LoadTestOptions loadTestOptions = new LoadTestOptions(
+                options.get("rows", Integer::parseInt, 10_000),
+                options.get("event-id", Integer::parseInt, 467),
+                options.get("import-mode", BevyRosterImportMode::valueOf, BevyRosterImportMode.STREAMING),
+                options.get("tickets-per-purchaser", Integer::parseInt, 2),
+                options.get("invalid-login-rate", Double::parseDouble, 0.01d),
+                options.get("unknown-login-rate", Double::parseDouble, 0.01d),
+                options.get("stream-batch-size", Integer::parseInt, 100),
+                options.get("sqs-batch-size", Integer::parseInt, 10),
+                options.get("consumer-concurrency", Integer::parseInt, 5),
+                options.get("max-receive-count", Integer::parseInt, 3),
+                options.get("lambda-timeout-seconds", Long::parseLong, 900L),
+                options.get("helix-rate-limit", Integer::parseInt, 800),
+                options.get("seed", Long::parseLong, 42L),
+                faults(options, "dynamodb"),
+                faults(options, "s3"),
+                faults(options, "sqs"),
+                faults(options, "helix"));
+        options.rejectUnknown();
+        if (loadTestOptions.rows() < MIN_ROWS || loadTestOptions.rows() > MAX_ROWS) {
+            throw new IllegalArgumentException(
+                    String.format("--rows must be between %d and %d", MIN_ROWS, MAX_ROWS));
+        }
+        return loadTestOptions;
+    }
+
+    /**
+     * Number of distinct purchasers in the generated roster.
+     */
+    public int purchasers() {
+        return Math.max(1, rows / Math.max(1, ticketsPerPurchaser));
+    }
+
+    private static FaultProfile faults(final CommandLineOptions options, final String service) {
+        return new FaultProfile(
+                options.get(service + "-latency-ms", Long::parseLong, 0L),
+                options.get(service + "-throttle-rate", Double::parseDouble, 0d),
+                options.get(service + "-error-rate", Double::parseDouble, 0d));
+    }
+}
@@ -0,0 +1,54 @@
+package org.seattleoba.lambda.loadtest;
+
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+
+/**
+ * Results of a load test run: the settings it ran with, each stage's statistics and what ended up in the tables,
+ * queues and report. Written as JSON so that runs can be compared.
+ */
+public record LoadTestReport(
+        LoadTestOptions options,
+        long rosterBytes,
+        List<StageStats.Summary> stages,
+        Outcome outcome) {
+
+    public void log(final Logger logger) {
+        logger.info(String.format("%-9s %7s %9s %7s %9s %10s %8s %8s %8s",
+                "Stage", "Invokes", "Items", "Failed", "Wall ms", "Items/s", "p50 ms", "p99 ms", "max ms"));
+        stages.forEach(stage -> logger.info(String.format("%-9s %7d %9d %7d %9d %10.1f %8d %8d %8d",
+                stage.stage(),
+                stage.invocations(),
+                stage.items(),
+                stage.failedItems(),
+                stage.wallMillis(),
+                stage.itemsPerSecond(),
+                stage.p50Millis(),
+                stage.p99Millis(),
+                stage.maxMillis())));
+        stages.forEach(stage -> {
+            logger.info("API calls during {}:", stage.stage());
+            stage.apiCalls().forEach((operation, counts) -> logger.info(String.format("  %-40s %9d calls %7d throttled %7d failed",
+                    operation,
+                    counts.calls(),
+                    counts.throttled(),
+                    counts.failed())));
+        });
+        logger.info("Tickets stored: {}, registrations stored: {}, stream records skipped: {}, messages left in queue: {}",
+                outcome.tickets(),
+                outcome.registrations(),
+                outcome.skippedStreamRecords(),
+                outcome.messagesLeft());
+        logger.info("DLQ report: {} entries, {} bytes", outcome.reportEntries(), outcome.reportBytes());
+    }
+
+    public record Outcome(
+            long tickets,
+            long registrations,
+            long skippedStreamRecords,
+            int messagesLeft,
+            int reportEntries,
+            long reportBytes) {
+    }
+}
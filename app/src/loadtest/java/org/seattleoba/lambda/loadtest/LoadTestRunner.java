@@ -0,0 +1,506 @@
+package org.seattleoba.lambda.loadtest;
+
+import com.amazonaws.services.dynamodbv2.local.main.ServerRunner;
+import com.amazonaws.services.dynamodbv2.local.server.DynamoDBProxyServer;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.amazonaws.services.lambda.runtime.serialization.PojoSerializer;
+import com.amazonaws.services.lambda.runtime.serialization.events.LambdaEventSerializers;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.lambda.dagger.ConfigModule;
+import org.seattleoba.lambda.loadtest.dagger.DaggerLoadTestComponent;
+import org.seattleoba.lambda.loadtest.dagger.LoadTestComponent;
+import org.seattleoba.lambda.loadtest.dagger.StandInAwsModule;
+import org.seattleoba.lambda.loadtest.dagger.StandInTwitchModule;
+import org.seattleoba.lambda.model.BevyDLQReportResult;
+import org.seattleoba.lambda.model.BevyRosterImportRequest;
+import org.seattleoba.lambda.model.BevyRosterImportResult;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.CreateTableEnhancedRequest;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+import software.amazon.awssdk.services.dynamodb.model.StreamSpecification;
+import software.amazon.awssdk.services.dynamodb.model.StreamViewType;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the ticket pipeline end to end on one machine against DynamoDB Local and in-process S3, SQS and Helix
+ * stand-ins. Handler settings such as {@code SQS_MESSAGE_FORMAT} are taken from the environment of this JVM.
+ */
+public final class LoadTestRunner implements AutoCloseable {
+    private static final Logger LOG = LogManager.getLogger(LoadTestRunner.class);
+    private static final String REGION = Optional.ofNullable(System.getenv("AWS_REGION")).orElse("us-west-2");
+    private static final String ERROR_TABLE_NAME = System.getenv("ERROR_TABLE_NAME");
+    private static final String REPORT_BUCKET_NAME = System.getenv("S3_BUCKET_NAME");
+    private static final Path OUTPUT_DIR = Path.of(Optional.ofNullable(System.getProperty("loadtest.outputDir"))
+            .orElse("build/loadtest"));
+    private static final String ROSTER_BUCKET_NAME = "loadtest-rosters";
+    // Lambda's retry attempts for a stream batch that keeps failing, before its records are skipped.
+    private static final int MAX_STREAM_ATTEMPTS = 3;
+    private static final long IDLE_POLL_MILLIS = 20L;
+    private static final int MAX_CONNECTIONS = 50;
+    // DynamoDB Local accepts any credentials.
+    private static final StaticCredentialsProvider CREDENTIALS_PROVIDER =
+            StaticCredentialsProvider.create(AwsBasicCredentials.create("loadtest", "loadtest"));
+
+    // Serializes stream batches as Lambda delivers them, since the stream handler reads the event JSON itself.
+    private static final PojoSerializer<DynamodbEvent> STREAM_EVENT_SERIALIZER =
+            LambdaEventSerializers.serializerFor(DynamodbEvent.class, LoadTestRunner.class.getClassLoader());
+
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ApiCallCounter apiCallCounter = new ApiCallCounter();
+    private final InMemoryQueue queue = new InMemoryQueue("ticket-events");
+    private final InMemoryQueue deadLetterQueue = new InMemoryQueue("ticket-events-dlq");
+    private final InMemoryS3Client s3Client;
+    private final InMemorySqsClient sqsClient;
+    private final InMemorySqsAsyncClient sqsAsyncClient;
+    private final HelixStandIn helixStandIn;
+    private final Map<String, String> environment;
+    private final DynamoDBProxyServer dynamoDbLocal;
+    private final URI dynamoDbEndpoint;
+    private final DynamoDbClient adminClient;
+    private final DynamoDbStreamsClient streamsClient;
+    private final List<DynamoDbClient> dynamoDbClients = new ArrayList<>();
+
+    private LoadTestRunner(final LoadTestOptions options) throws Exception {
+        this.options = options;
+        this.s3Client = new InMemoryS3Client(new FaultInjector("S3", options.s3Faults(), apiCallCounter));
+        // SQS errors fail single entries of a batch, so the request itself is only throttled.
+        final FaultInjector sqsFaultInjector = new FaultInjector("SQS",
+                new FaultProfile(options.sqsFaults().latencyMillis(), options.sqsFaults().throttleRate(), 0d),
+                apiCallCounter);
+        this.sqsClient = new InMemorySqsClient(queue, sqsFaultInjector, options.sqsFaults().errorRate(), apiCallCounter);
+        this.sqsAsyncClient = new InMemorySqsAsyncClient(deadLetterQueue, sqsFaultInjector);
+        this.helixStandIn = new HelixStandIn(
+                objectMapper,
+                new FaultInjector("Helix", options.helixFaults(), apiCallCounter),
+                apiCallCounter,
+                options.helixRateLimit());
+        final Map<String, String> environment = new HashMap<>(System.getenv());
+        environment.put("TWITCH_HELIX_BASE_URL", helixStandIn.baseUrl());
+        this.environment = environment;
+
+        final int port;
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        this.dynamoDbLocal = ServerRunner.createServerFromCommandLineArgs(
+                new String[]{"-inMemory", "-port", Integer.toString(port)});
+        dynamoDbLocal.start();
+        this.dynamoDbEndpoint = URI.create("http://localhost:" + port);
+        this.adminClient = dynamoDbClient(ApacheHttpClient.builder().build());
+        this.streamsClient = DynamoDbStreamsClient.builder()
+                .endpointOverride(dynamoDbEndpoint)
+                .region(Region.of(REGION))
+                .credentialsProvider(CREDENTIALS_PROVIDER)
+                .httpClient(ApacheHttpClient.builder().build())
+                .build();
+    }
+
+    public static void main(final String[] args) {
+        int status = 0;
+        try {
+            final LoadTestOptions options = LoadTestOptions.parse(args);
+            final LoadTestReport report;
+            try (final LoadTestRunner runner = new LoadTestRunner(options)) {
+                report = runner.run();
+            }
+            report.log(LOG);
+            Files.createDirectories(OUTPUT_DIR);
+            final Path reportPath = OUTPUT_DIR.resolve(String.format("report-%d.json", System.currentTimeMillis()));
+            new ObjectMapper()
+                    .enable(SerializationFeature.INDENT_OUTPUT)
+                    .writeValue(reportPath.toFile(), report);
+            LOG.info("Wrote {}", reportPath);
+        } catch (final Exception exception) {
+            LOG.error("Load test failed", exception);
+            status = 1;
+        }
+        // The handlers' executors and HTTP clients keep non-daemon threads alive.
+        System.exit(status);
+    }
+
+    private LoadTestReport run() throws Exception {
+        final LoadTestComponent component = component();
+        final String streamArn = createTables(component);
+
+        final String objectKey = String.format("rosters/%d.csv", options.eventId());
+        final long generateStart = System.currentTimeMillis();
+        final byte[] roster = new RosterGenerator(
+                options.eventId(),
+                options.purchasers(),
+                options.invalidLoginRate(),
+                options.unknownLoginRate(),
+                options.seed()).generate(options.rows());
+        s3Client.store(ROSTER_BUCKET_NAME, objectKey, roster);
+        LOG.info("Generated a roster of {} rows ({} bytes) in {} ms",
+                options.rows(),
+                roster.length,
+                System.currentTimeMillis() - generateStart);
+
+        final List<StageStats.Summary> stages = new ArrayList<>();
+        stages.add(importRoster(component, objectKey));
+        final StreamStage streamStage = processStream(component, streamArn);
+        stages.add(streamStage.summary());
+        stages.add(consumeQueue());
+        final DeadLetterStage deadLetterStage = reportDeadLetters(component);
+        stages.add(deadLetterStage.summary());
+
+        return new LoadTestReport(
+                options,
+                roster.length,
+                stages,
+                new LoadTestReport.Outcome(
+                        count(component.bevyTicketTable().tableName()),
+                        count(component.eventRegistrationTable().tableName()),
+                        streamStage.skippedRecords(),
+                        queue.visibleCount() + queue.inFlightCount(),
+                        deadLetterStage.recordsReported(),
+                        deadLetterStage.reportBytes()));
+    }
+
+    private StageStats.Summary importRoster(final LoadTestComponent component, final String objectKey) {
+        final StageStats stats = new StageStats("import", apiCallCounter);
+        stats.start();
+        long rowsBefore = 0L;
+        long failedBefore = 0L;
+        String continuationToken = null;
+        do {
+            final long start = System.currentTimeMillis();
+            final BevyRosterImportResult result = component.importRequestHandler().handleRequest(
+                    new BevyRosterImportRequest(
+                            options.eventId(),
+                            ROSTER_BUCKET_NAME,
+                            objectKey,
+                            options.importMode(),
+                            continuationToken),
+                    context("BevyTicketImport"));
+            // Counts of a resumed import include the rows of the invocations before it.
+            final long rows = result.recordsImported() + result.recordsUnchanged() + result.recordsFailed()
+                    + result.recordsDuplicated();
+            stats.record(System.currentTimeMillis() - start, rows - rowsBefore, result.recordsFailed() - failedBefore);
+            rowsBefore = rows;
+            failedBefore = result.recordsFailed();
+            continuationToken = result.continuationToken();
+        } while (Objects.nonNull(continuationToken));
+        return stats.finish();
+    }
+
+    /**
+     * Feeds the stream to the stream handler one batch at a time, as a single-shard event source mapping would. A
+     * batch that reports a failure is retried from the failed record, and skipped after its last attempt.
+     */
+    private StreamStage processStream(final LoadTestComponent component, final String streamArn) {
+        final StageStats stats = new StageStats("stream", apiCallCounter);
+        stats.start();
+        final StreamRecordSource source = new StreamRecordSource(streamsClient, streamArn, REGION);
+        long skippedRecords = 0L;
+        List<DynamodbEvent.DynamodbStreamRecord> batch = source.next(options.streamBatchSize());
+        while (!batch.isEmpty()) {
+            List<DynamodbEvent.DynamodbStreamRecord> pending = batch;
+            for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                final byte[] event = toEventJson(pending);
+                final long start = System.currentTimeMillis();
+                final int failedFrom = invokeStreamHandler(component, pending, event);
+                stats.record(System.currentTimeMillis() - start, failedFrom, pending.size() - failedFrom);
+                pending = pending.subList(failedFrom, pending.size());
+                if (!pending.isEmpty() && attempt >= MAX_STREAM_ATTEMPTS) {
+                    LOG.warn("Skipping {} stream records after {} attempts", pending.size(), attempt);
+                    skippedRecords += pending.size();
+                    break;
+                }
+            }
+            batch = source.next(options.streamBatchSize());
+        }
+        return new StreamStage(stats.finish(), skippedRecords);
+    }
+
+    /**
+     * Invokes the stream handler with {@code event}, the JSON of {@code records}, returning the index of the first
+     * record it reported as failed, or the number of records if none failed.
+     */
+    private int invokeStreamHandler(
+            final LoadTestComponent component,
+            final List<DynamodbEvent.DynamodbStreamRecord> records,
+            final byte[] event) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            component.dynamodbEventRequestHandler().handleRequest(
+                    new ByteArrayInputStream(event),
+                    output,
+                    context("BevyTicketStream"));
+            int failedFrom = records.size();
+            for (final JsonNode failure : objectMapper.readTree(output.toByteArray()).path("batchItemFailures")) {
+                failedFrom = Math.min(failedFrom, indexOf(records, failure.path("itemIdentifier").asText()));
+            }
+            return failedFrom;
+        } catch (final IOException | RuntimeException exception) {
+            LOG.error("Stream handler failed on a batch of {} records", records.size(), exception);
+            return 0;
+        }
+    }
+
+    private static byte[] toEventJson(final List<DynamodbEvent.DynamodbStreamRecord> records) {
+        final DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(records);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        STREAM_EVENT_SERIALIZER.toJson(event, output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Consumes the ticket event queue with concurrent workers, each holding its own execution environment, as an SQS
+     * event source mapping scaled to {@code consumerConcurrency} would. Failed messages become visible again at once
+     * rather than after a visibility timeout, and move to the dead-letter queue on their {@code maxReceiveCount}th
+     * receive.
+     */
+    private StageStats.Summary consumeQueue() throws InterruptedException {
+        final StageStats stats = new StageStats("consumer", apiCallCounter);
+        stats.start();
+        try (final ExecutorService executor = Executors.newFixedThreadPool(options.consumerConcurrency())) {
+            final List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < options.consumerConcurrency(); i++) {
+                final LoadTestComponent component = component();
+                workers.add(executor.submit(() -> {
+                    consume(component, stats);
+                    return null;
+                }));
+            }
+            for (final Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (final ExecutionException exception) {
+                    throw new IllegalStateException("SQS consumer failed", exception.getCause());
+                }
+            }
+        }
+        return stats.finish();
+    }
+
+    private void consume(final LoadTestComponent component, final StageStats stats) throws InterruptedException {
+        while (true) {
+            final List<InMemoryQueue.QueuedMessage> messages = queue.receive(options.sqsBatchSize());
+            if (messages.isEmpty()) {
+                // A worker that puts a failed message back polls again, so an empty queue seen here stays empty.
+                if (queue.visibleCount() == 0 && queue.inFlightCount() == 0) {
+                    return;
+                }
+                Thread.sleep(IDLE_POLL_MILLIS);
+                continue;
+            }
+            final long start = System.currentTimeMillis();
+            Set<String> failedMessageIds;
+            try {
+                final SQSBatchResponse response =
+                        component.sqsEventRequestHandler().handleRequest(toSqsEvent(messages), context("BevyTicketSQS"));
+                failedMessageIds = response.getBatchItemFailures().stream()
+                        .map(SQSBatchResponse.BatchItemFailure::getItemIdentifier)
+                        .collect(Collectors.toSet());
+            } catch (final RuntimeException exception) {
+                LOG.error("SQS handler failed on a batch of {} messages", messages.size(), exception);
+                failedMessageIds = messages.stream()
+                        .map(InMemoryQueue.QueuedMessage::messageId)
+                        .collect(Collectors.toSet());
+            }
+            stats.record(System.currentTimeMillis() - start,
+                    messages.size() - failedMessageIds.size(),
+                    failedMessageIds.size());
+            for (final InMemoryQueue.QueuedMessage message : messages) {
+                if (!failedMessageIds.contains(message.messageId())) {
+                    queue.delete(message.receiptHandle());
+                } else if (message.receiveCount() >= options.maxReceiveCount()) {
+                    deadLetterQueue.redrive(queue.release(message.receiptHandle()));
+                } else {
+                    queue.requeue(queue.release(message.receiptHandle()));
+                }
+            }
+        }
+    }
+
+    private DeadLetterStage reportDeadLetters(final LoadTestComponent component) {
+        final StageStats stats = new StageStats("dlq", apiCallCounter);
+        stats.start();
+        int recordsReported = 0;
+        final List<String> objectKeys = new ArrayList<>();
+        do {
+            final int deadLetters = deadLetterQueue.visibleCount();
+            final long start = System.currentTimeMillis();
+            final BevyDLQReportResult result =
+                    component.dlqEventRequestHandler().handleRequest(null, context("BevyTicketDLQ"));
+            final int remaining = deadLetterQueue.visibleCount() + deadLetterQueue.inFlightCount();
+            stats.record(System.currentTimeMillis() - start, deadLetters - remaining, remaining);
+            recordsReported += result.recordsReported();
+            objectKeys.add(result.reportObjectKey());
+        } while (deadLetterQueue.visibleCount() > 0);
+        final long reportBytes = objectKeys.stream()
+                .map(objectKey -> s3Client.content(REPORT_BUCKET_NAME, objectKey).map(content -> content.length))
+                .mapToLong(length -> length.orElse(0))
+                .sum();
+        return new DeadLetterStage(stats.finish(), recordsReported, reportBytes);
+    }
+
+    /**
+     * Creates every table the handlers use, and returns the ARN of the ticket table's stream.
+     */
+    private String createTables(final LoadTestComponent component) {
+        final DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(adminClient)
+                .build();
+        createTable(enhancedClient, component.bevyTicketTable(), StreamSpecification.builder()
+                .streamEnabled(true)
+                .streamViewType(StreamViewType.NEW_AND_OLD_IMAGES)
+                .build());
+        createTable(enhancedClient, component.twitchAccountTable(), null);
+        createTable(enhancedClient, component.eventRegistrationTable(), null);
+        createTable(enhancedClient, component.importCheckpointTable(), null);
+        createTable(enhancedClient, component.twitchLoginTable(), null);
+        adminClient.createTable(request -> request
+                .tableName(ERROR_TABLE_NAME)
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .attributeDefinitions(
+                        AttributeDefinition.builder()
+                                .attributeName("event_id")
+                                .attributeType(ScalarAttributeType.N)
+                                .build(),
+                        AttributeDefinition.builder()
+                                .attributeName("entry_key")
+                                .attributeType(ScalarAttributeType.S)
+                                .build())
+                .keySchema(
+                        KeySchemaElement.builder().attributeName("event_id").keyType(KeyType.HASH).build(),
+                        KeySchemaElement.builder().attributeName("entry_key").keyType(KeyType.RANGE).build()));
+        return adminClient.describeTable(request -> request.tableName(component.bevyTicketTable().tableName()))
+                .table()
+                .latestStreamArn();
+    }
+
+    private static <T> void createTable(
+            final DynamoDbEnhancedClient enhancedClient,
+            final DynamoDbTable<T> table,
+            final StreamSpecification streamSpecification) {
+        enhancedClient.table(table.tableName(), table.tableSchema())
+                .createTable(CreateTableEnhancedRequest.builder()
+                        .streamSpecification(streamSpecification)
+                        .build());
+    }
+
+    private long count(final String tableName) {
+        return adminClient.scanPaginator(request -> request.tableName(tableName).select(Select.COUNT)).stream()
+                .mapToLong(ScanResponse::count)
+                .sum();
+    }
+
+    /**
+     * Builds the handlers of a new execution environment, with its own DynamoDB client and connection pool.
+     */
+    private LoadTestComponent component() {
+        final DynamoDbClient dynamoDbClient = dynamoDbClient(new DynamoDbFaultInjectingHttpClient(
+                ApacheHttpClient.builder().maxConnections(MAX_CONNECTIONS).build(),
+                new FaultInjector("DynamoDB", options.dynamoDbFaults(), apiCallCounter)));
+        synchronized (dynamoDbClients) {
+            dynamoDbClients.add(dynamoDbClient);
+        }
+        return DaggerLoadTestComponent.builder()
+                .standInAwsModule(new StandInAwsModule(dynamoDbClient, s3Client, sqsClient, sqsAsyncClient))
+                .configModule(new ConfigModule(environment))
+                .standInTwitchModule(new StandInTwitchModule())
+                .build();
+    }
+
+    private DynamoDbClient dynamoDbClient(final SdkHttpClient httpClient) {
+        return DynamoDbClient.builder()
+                .endpointOverride(dynamoDbEndpoint)
+                .region(Region.of(REGION))
+                .credentialsProvider(CREDENTIALS_PROVIDER)
+                .httpClient(httpClient)
+                .build();
+    }
+
+    private LoadTestContext context(final String functionName) {
+        return new LoadTestContext(functionName, options.lambdaTimeoutSeconds() * 1000L);
+    }
+
+    private static SQSEvent toSqsEvent(final List<InMemoryQueue.QueuedMessage> messages) {
+        final SQSEvent event = new SQSEvent();
+        event.setRecords(messages.stream()
+                .map(queued -> {
+                    final SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+                    message.setMessageId(queued.messageId());
+                    message.setReceiptHandle(queued.receiptHandle());
+                    message.setBody(queued.body());
+                    message.setAttributes(Map.of(
+                            "ApproximateReceiveCount", Integer.toString(queued.receiveCount()),
+                            "SentTimestamp", Long.toString(queued.sentTimestamp())));
+                    message.setEventSource("aws:sqs");
+                    message.setAwsRegion(REGION);
+                    return message;
+                })
+                .collect(Collectors.toList()));
+        return event;
+    }
+
+    private static int indexOf(final List<DynamodbEvent.DynamodbStreamRecord> records, final String sequenceNumber) {
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).getDynamodb().getSequenceNumber().equals(sequenceNumber)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() throws Exception {
+        helixStandIn.close();
+        sqsAsyncClient.close();
+        synchronized (dynamoDbClients) {
+            dynamoDbClients.forEach(DynamoDbClient::close);
+        }
+        streamsClient.close();
+        adminClient.close();
+        dynamoDbLocal.stop();
+    }
+
+    private record StreamStage(StageStats.Summary summary, long skippedRecords) {
+    }
+
+    private record DeadLetterStage(StageStats.Summary summary, int recordsReported, long reportBytes) {
+    }
+}
@@ -0,0 +1,121 @@
+package org.seattleoba.lambda.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic Bevy roster exports, with a share of purchasers whose names are not valid or not known Twitch
+ * logins.
+ */
+public class RosterGenerator {
+    /**
+     * Prefix of the generated logins that {@link HelixStandIn} reports as not found.
+     */
+    public static final String UNKNOWN_LOGIN_PREFIX = "ghost_";
+    private static final List<String> HEADER = List.of(
+            "Ticket Number",
+            "Order Number",
+            "Access Code",
+            "Purchaser Name",
+            "Ticket Type",
+            "Price",
+            "Purchase Date",
+            "Check In Date");
+    private static final String ACCESS_CODE_CHARACTERS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+    private static final int ACCESS_CODE_LENGTH = 8;
+    private static final int MAX_TICKETS_PER_ORDER = 4;
+    private static final Instant SALES_START = Instant.parse("2024-06-01T17:00:00Z");
+    private static final long SALES_PERIOD_SECONDS = 120L * 24L * 3600L;
+    private static final double CHECKED_IN_RATE = 0.05d;
+
+    private final int eventId;
+    private final int purchasers;
+    private final double invalidLoginRate;
+    private final double unknownLoginRate;
+    private final Random random;
+
+    public RosterGenerator(
+            final int eventId,
+            final int purchasers,
+            final double invalidLoginRate,
+            final double unknownLoginRate,
+            final long seed) {
+        this.eventId = eventId;
+        this.purchasers = Math.max(1, purchasers);
+        this.invalidLoginRate = invalidLoginRate;
+        this.unknownLoginRate = unknownLoginRate;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Returns a roster of {@code rows} tickets, numbered from 1, as UTF-8 CSV bytes with a header row.
+     */
+    public byte[] generate(final int rows) {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream(rows * 110 + 128);
+        try (final Writer writer = new OutputStreamWriter(content, StandardCharsets.UTF_8)) {
+            writeRow(writer, HEADER);
+            int ticketNumber = 1;
+            int orderNumber = 1;
+            while (ticketNumber <= rows) {
+                final int tickets = Math.min(rows - ticketNumber + 1, 1 + random.nextInt(MAX_TICKETS_PER_ORDER));
+                final String purchaserName = purchaserName(random.nextInt(purchasers));
+                final Instant purchaseDate = SALES_START.plusSeconds((long) (random.nextDouble() * SALES_PERIOD_SECONDS));
+                for (int i = 0; i < tickets; i++, ticketNumber++) {
+                    writeRow(writer, List.of(
+                            String.format("%d-%06d", eventId, ticketNumber),
+                            String.format("%d-%06d", eventId, orderNumber),
+                            accessCode(),
+                            purchaserName,
+                            i == 0 ? "General Admission" : "General Admission - Guest",
+                            "25.00",
+                            purchaseDate.toString(),
+                            random.nextDouble() < CHECKED_IN_RATE ? "2024-10-19T18:30:00Z" : ""));
+                }
+                orderNumber++;
+            }
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * Name of purchaser {@code index}. The same index always gets the same name, whichever row it is drawn for.
+     */
+    private String purchaserName(final int index) {
+        final Random purchaserRandom = new Random(index * 0x9E3779B97F4A7C15L);
+        final double draw = purchaserRandom.nextDouble();
+        if (draw < invalidLoginRate) {
+            return String.format("Purchaser %d", index);
+        }
+        if (draw < invalidLoginRate + unknownLoginRate) {
+            return String.format("%s%d", UNKNOWN_LOGIN_PREFIX, index);
+        }
+        return String.format("viewer_%d", index);
+    }
+
+    private String accessCode() {
+        final StringBuilder accessCode = new StringBuilder(ACCESS_CODE_LENGTH);
+        for (int i = 0; i < ACCESS_CODE_LENGTH; i++) {
+            accessCode.append(ACCESS_CODE_CHARACTERS.charAt(random.nextInt(ACCESS_CODE_CHARACTERS.length())));
+        }
+        return accessCode.toString();
+    }
+
+    private static void writeRow(final Writer writer, final List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(values.get(i));
+        }
+        writer.write('\n');
+    }
+}
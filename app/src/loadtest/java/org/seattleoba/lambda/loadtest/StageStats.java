@@ -0,0 +1,80 @@
+package org.seattleoba.lambda.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Invocation latencies and item counts of one pipeline stage, recorded from any number of concurrent invokers, and
+ * the API calls the stage made.
+ */
+public class StageStats {
+    private final String name;
+    private final ApiCallCounter apiCallCounter;
+    private final List<Long> latencies = new ArrayList<>();
+    private long items;
+    private long failedItems;
+    private long startMillis;
+    private Map<String, ApiCallCounter.CallCounts> callsBefore;
+
+    public StageStats(final String name, final ApiCallCounter apiCallCounter) {
+        this.name = name;
+        this.apiCallCounter = apiCallCounter;
+    }
+
+    public synchronized void start() {
+        callsBefore = apiCallCounter.snapshot();
+        startMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Records one invocation that took {@code latencyMillis} for {@code items} items, {@code failedItems} of which it
+     * reported as failed.
+     */
+    public synchronized void record(final long latencyMillis, final long items, final long failedItems) {
+        latencies.add(latencyMillis);
+        this.items += items;
+        this.failedItems += failedItems;
+    }
+
+    public synchronized Summary finish() {
+        final long wallMillis = System.currentTimeMillis() - startMillis;
+        final List<Long> sorted = new ArrayList<>(latencies);
+        sorted.sort(Long::compare);
+        return new Summary(
+                name,
+                sorted.size(),
+                items,
+                failedItems,
+                wallMillis,
+                items * 1000d / Math.max(1L, wallMillis),
+                percentile(sorted, 50d),
+                percentile(sorted, 99d),
+                sorted.isEmpty() ? 0L : sorted.get(sorted.size() - 1),
+                apiCallCounter.since(callsBefore));
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values.
+     */
+    private static long percentile(final List<Long> sorted, final double percentile) {
+        if (sorted.isEmpty()) {
+            return 0L;
+        }
+        final int rank = (int) Math.ceil(percentile / 100d * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    public record Summary(
+            String stage,
+            int invocations,
+            long items,
+            long failedItems,
+            long wallMillis,
+            double itemsPerSecond,
+            long p50Millis,
+            long p99Millis,
+            long maxMillis,
+            Map<String, ApiCallCounter.CallCounts> apiCalls) {
+    }
+}
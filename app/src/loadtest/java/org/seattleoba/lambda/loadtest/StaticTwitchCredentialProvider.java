@@ -0,0 +1,39 @@
+package org.seattleoba.lambda.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.seattleoba.lambda.twitch.TwitchCredentialProvider;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Serves a fixed app access token, which {@link HelixStandIn} accepts without checking, instead of fetching a client
+ * secret and a token from Twitch.
+ */
+public class StaticTwitchCredentialProvider extends TwitchCredentialProvider {
+    private static final String ACCESS_TOKEN = "loadtest";
+
+    public StaticTwitchCredentialProvider(
+            final HttpClient httpClient,
+            final ObjectMapper objectMapper,
+            final String clientId) {
+        super(httpClient, objectMapper, clientId, null, Duration.ZERO, Duration.ZERO);
+    }
+
+    @Override
+    public void prefetch() {
+    }
+
+    @Override
+    public String accessToken() {
+        return ACCESS_TOKEN;
+    }
+
+    @Override
+    public void invalidate(final String rejectedAccessToken) {
+    }
+
+    @Override
+    public void refresh() {
+    }
+}
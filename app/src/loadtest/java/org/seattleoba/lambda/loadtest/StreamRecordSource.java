@@ -0,0 +1,168 @@
+package org.seattleoba.lambda.loadtest;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.model.StreamDescription;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Reads a table's stream from DynamoDB Local the way a Lambda event source mapping does: each shard from its trim
+ * horizon, a page of records at a time, converted to the records a {@code DynamodbEvent} carries. Shards are read one
+ * after another in the order DynamoDB lists them, which puts parents before their children.
+ */
+public class StreamRecordSource {
+    private static final int PAGE_SIZE = 1000;
+    private static final String EVENT_SOURCE = "aws:dynamodb";
+
+    private final DynamoDbStreamsClient streamsClient;
+    private final String streamArn;
+    private final String region;
+    private final Deque<DynamodbEvent.DynamodbStreamRecord> buffer = new ArrayDeque<>();
+    private Iterator<Shard> shards;
+    private String shardIterator;
+
+    public StreamRecordSource(
+            final DynamoDbStreamsClient streamsClient,
+            final String streamArn,
+            final String region) {
+        this.streamsClient = streamsClient;
+        this.streamArn = streamArn;
+        this.region = region;
+    }
+
+    /**
+     * Returns up to {@code maxRecords} records in stream order, or an empty list once every shard has been read.
+     */
+    public List<DynamodbEvent.DynamodbStreamRecord> next(final int maxRecords) {
+        boolean more = true;
+        while (buffer.size() < maxRecords && more) {
+            more = fetchPage();
+        }
+        final List<DynamodbEvent.DynamodbStreamRecord> records = new ArrayList<>(Math.min(maxRecords, buffer.size()));
+        while (records.size() < maxRecords && !buffer.isEmpty()) {
+            records.add(buffer.removeFirst());
+        }
+        return records;
+    }
+
+    /**
+     * Buffers the next page of records, returning false once there are none left to read.
+     */
+    private boolean fetchPage() {
+        if (Objects.isNull(shards)) {
+            shards = listShards().iterator();
+        }
+        while (Objects.isNull(shardIterator)) {
+            if (!shards.hasNext()) {
+                return false;
+            }
+            shardIterator = streamsClient.getShardIterator(GetShardIteratorRequest.builder()
+                    .streamArn(streamArn)
+                    .shardId(shards.next().shardId())
+                    .shardIteratorType(ShardIteratorType.TRIM_HORIZON)
+                    .build()).shardIterator();
+        }
+        final GetRecordsResponse response = streamsClient.getRecords(GetRecordsRequest.builder()
+                .shardIterator(shardIterator)
+                .limit(PAGE_SIZE)
+                .build());
+        // An open shard always returns a next iterator; the writes are done, so an empty page means it is caught up.
+        shardIterator = response.records().isEmpty() ? null : response.nextShardIterator();
+        response.records().forEach(record -> buffer.addLast(toStreamRecord(record)));
+        return true;
+    }
+
+    private List<Shard> listShards() {
+        final List<Shard> shards = new ArrayList<>();
+        String exclusiveStartShardId = null;
+        do {
+            final StreamDescription description = streamsClient.describeStream(DescribeStreamRequest.builder()
+                    .streamArn(streamArn)
+                    .exclusiveStartShardId(exclusiveStartShardId)
+                    .build()).streamDescription();
+            shards.addAll(description.shards());
+            exclusiveStartShardId = description.lastEvaluatedShardId();
+        } while (Objects.nonNull(exclusiveStartShardId));
+        return shards;
+    }
+
+    private DynamodbEvent.DynamodbStreamRecord toStreamRecord(final Record record) {
+        final StreamRecord streamRecord = new StreamRecord();
+        streamRecord.setSequenceNumber(record.dynamodb().sequenceNumber());
+        streamRecord.setSizeBytes(record.dynamodb().sizeBytes());
+        streamRecord.setStreamViewType(
+                com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamViewType.fromValue(
+                        record.dynamodb().streamViewTypeAsString()));
+        if (Objects.nonNull(record.dynamodb().approximateCreationDateTime())) {
+            streamRecord.setApproximateCreationDateTime(Date.from(record.dynamodb().approximateCreationDateTime()));
+        }
+        streamRecord.setKeys(toImage(record.dynamodb().keys()));
+        if (record.dynamodb().hasNewImage()) {
+            streamRecord.setNewImage(toImage(record.dynamodb().newImage()));
+        }
+        if (record.dynamodb().hasOldImage()) {
+            streamRecord.setOldImage(toImage(record.dynamodb().oldImage()));
+        }
+
+        final DynamodbEvent.DynamodbStreamRecord streamEventRecord = new DynamodbEvent.DynamodbStreamRecord();
+        streamEventRecord.setEventID(record.eventID());
+        streamEventRecord.setEventName(record.eventNameAsString());
+        streamEventRecord.setEventVersion(record.eventVersion());
+        streamEventRecord.setEventSource(EVENT_SOURCE);
+        streamEventRecord.setAwsRegion(region);
+        streamEventRecord.setEventSourceARN(streamArn);
+        streamEventRecord.setDynamodb(streamRecord);
+        return streamEventRecord;
+    }
+
+    private static Map<String, com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue> toImage(
+            final Map<String, AttributeValue> image) {
+        final Map<String, com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue> converted =
+                new LinkedHashMap<>();
+        image.forEach((name, value) -> converted.put(name, toAttributeValue(value)));
+        return converted;
+    }
+
+    private static com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue toAttributeValue(
+            final AttributeValue value) {
+        final com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue converted =
+                new com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue();
+        return switch (value.type()) {
+            case S -> converted.withS(value.s());
+            case N -> converted.withN(value.n());
+            case B -> converted.withB(value.b().asByteBuffer());
+            case SS -> converted.withSS(value.ss());
+            case NS -> converted.withNS(value.ns());
+            case BS -> converted.withBS(value.bs().stream()
+                    .map(SdkBytes::asByteBuffer)
+                    .collect(Collectors.toList()));
+            case M -> converted.withM(toImage(value.m()));
+            case L -> converted.withL(value.l().stream()
+                    .map(StreamRecordSource::toAttributeValue)
+                    .collect(Collectors.toList()));
+            case BOOL -> converted.withBOOL(value.bool());
+            case NUL -> converted.withNULL(value.nul());
+            case UNKNOWN_TO_SDK_VERSION -> throw new IllegalArgumentException("Unsupported attribute value " + value);
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package org.seattleoba.lambda.loadtest.dagger;
+
+import dagger.Component;
+import org.seattleoba.data.dagger.DataModule;
+import org.seattleoba.data.dynamodb.bean.BevyTicket;
+import org.seattleoba.data.dynamodb.bean.EventRegistration;
+import org.seattleoba.data.dynamodb.bean.TwitchAccount;
+import org.seattleoba.lambda.dagger.ConfigModule;
+import org.seattleoba.lambda.dagger.JacksonModule;
+import org.seattleoba.lambda.dagger.TableModule;
+import org.seattleoba.lambda.dynamodb.bean.BevyRosterImportCheckpoint;
+import org.seattleoba.lambda.dynamodb.bean.TwitchLogin;
+import org.seattleoba.lambda.requesthandler.BevyTicketDLQEventRequestHandler;
+import org.seattleoba.lambda.requesthandler.BevyTicketDynamodbEventRequestHandler;
+import org.seattleoba.lambda.requesthandler.BevyTicketImportRequestHandler;
+import org.seattleoba.lambda.requesthandler.BevyTicketSQSEventRequestHandler;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+
+import javax.inject.Singleton;
+
+/**
+ * All four handlers, wired as in their Lambda functions but against the load harness's stand-ins. A component holds
+ * the state of one execution environment, such as the Twitch account cache and the Helix rate limiter, so concurrent
+ * SQS consumers each get their own.
+ */
+@Singleton
+@Component(modules = {
+        StandInAwsModule.class,
+        ConfigModule.class,
+        DataModule.class,
+        JacksonModule.class,
+        TableModule.class,
+        StandInTwitchModule.class})
+public interface LoadTestComponent {
+    BevyTicketImportRequestHandler importRequestHandler();
+
+    BevyTicketDynamodbEventRequestHandler dynamodbEventRequestHandler();
+
+    BevyTicketSQSEventRequestHandler sqsEventRequestHandler();
+
+    BevyTicketDLQEventRequestHandler dlqEventRequestHandler();
+
+    DynamoDbTable<BevyTicket> bevyTicketTable();
+
+    DynamoDbTable<TwitchAccount> twitchAccountTable();
+
+    DynamoDbTable<EventRegistration> eventRegistrationTable();
+
+    DynamoDbTable<BevyRosterImportCheckpoint> importCheckpointTable();
+
+    DynamoDbTable<TwitchLogin> twitchLoginTable();
+}
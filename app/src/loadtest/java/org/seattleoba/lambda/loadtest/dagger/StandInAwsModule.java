@@ -0,0 +1,67 @@
+package org.seattleoba.lambda.loadtest.dagger;
+
+import dagger.Module;
+import dagger.Provides;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+import javax.inject.Singleton;
+
+/**
+ * Replaces {@code AwsModule} in the load harness. The DynamoDB client talks to DynamoDB Local; S3 and SQS are
+ * in-process stand-ins. The sync SQS client sends to the ticket event queue and the async one reads the dead-letter
+ * queue, matching the queues each handler's function is configured with.
+ */
+@Module
+public class StandInAwsModule {
+    private final DynamoDbClient dynamoDbClient;
+    private final S3Client s3Client;
+    private final SqsClient sqsClient;
+    private final SqsAsyncClient sqsAsyncClient;
+
+    public StandInAwsModule(
+            final DynamoDbClient dynamoDbClient,
+            final S3Client s3Client,
+            final SqsClient sqsClient,
+            final SqsAsyncClient sqsAsyncClient) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.s3Client = s3Client;
+        this.sqsClient = sqsClient;
+        this.sqsAsyncClient = sqsAsyncClient;
+    }
+
+    @Provides
+    @Singleton
+    public DynamoDbClient providesDynamoDbClient() {
+        return dynamoDbClient;
+    }
+
+    @Provides
+    @Singleton
+    public DynamoDbEnhancedClient providesDynamoDbEnhancedClient(final DynamoDbClient dynamoDbClient) {
+        return DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+    }
+
+    @Provides
+    @Singleton
+    public S3Client providesS3Client() {
+        return s3Client;
+    }
+
+    @Provides
+    @Singleton
+    public SqsClient providesSqsClient() {
+        return sqsClient;
+    }
+
+    @Provides
+    @Singleton
+    public SqsAsyncClient providesSqsAsyncClient() {
+        return sqsAsyncClient;
+    }
+}
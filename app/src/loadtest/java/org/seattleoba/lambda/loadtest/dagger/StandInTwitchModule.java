@@ -0,0 +1,33 @@
+package org.seattleoba.lambda.loadtest.dagger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dagger.Module;
+import dagger.Provides;
+import org.seattleoba.lambda.loadtest.StaticTwitchCredentialProvider;
+import org.seattleoba.lambda.twitch.TwitchCredentialProvider;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.net.http.HttpClient;
+
+/**
+ * Replaces {@code TwitchModule} in the load harness, skipping the credential fetch. Helix calls go to the stand-in
+ * through the Helix base URL the harness configures.
+ */
+@Module
+public class StandInTwitchModule {
+    @Provides
+    @Singleton
+    public HttpClient providesHttpClient() {
+        return HttpClient.newHttpClient();
+    }
+
+    @Provides
+    @Singleton
+    public TwitchCredentialProvider providesTwitchCredentialProvider(
+            final HttpClient httpClient,
+            final ObjectMapper objectMapper,
+            @Named("clientId") final String clientId) {
+        return new StaticTwitchCredentialProvider(httpClient, objectMapper, clientId);
+    }
+}
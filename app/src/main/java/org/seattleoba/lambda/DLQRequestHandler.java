@@ -2,15 +2,33 @@ package org.seattleoba.lambda;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import org.crac.Core;
+import org.crac.Resource;
 import org.seattleoba.lambda.dagger.BevyTicketDLQRequestHandlerComponent;
 import org.seattleoba.lambda.dagger.DaggerBevyTicketDLQRequestHandlerComponent;
 import org.seattleoba.lambda.model.BevyDLQReportResult;
 
-public class DLQRequestHandler implements RequestHandler<Void, BevyDLQReportResult> {
+public class DLQRequestHandler implements RequestHandler<Void, BevyDLQReportResult>, Resource {
     private final BevyTicketDLQRequestHandlerComponent lambdaComponent = DaggerBevyTicketDLQRequestHandlerComponent.create();
 
+    public DLQRequestHandler() {
+        Core.getGlobalContext().register(this);
+    }
+
     @Override
     public BevyDLQReportResult handleRequest(final Void input, final Context context) {
         return lambdaComponent.requestHandler().handleRequest(input, context);
     }
+
+    @Override
+    public void beforeCheckpoint(final org.crac.Context<? extends Resource> context) {
+        lambdaComponent.requestHandler();
+        lambdaComponent.primer().prime();
+        lambdaComponent.sdkPrimer().prime();
+    }
+
+    @Override
+    public void afterRestore(final org.crac.Context<? extends Resource> context) {
+        lambdaComponent.sdkPrimer().resolveCredentials();
+    }
 }
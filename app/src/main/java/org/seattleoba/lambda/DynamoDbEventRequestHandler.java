@@ -1,17 +1,38 @@
 package org.seattleoba.lambda;
 
 import com.amazonaws.services.lambda.runtime.Context;
-import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
-import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import org.crac.Core;
+import org.crac.Resource;
 import org.seattleoba.lambda.dagger.BevyTicketDynamodbEventHandlerComponent;
 import org.seattleoba.lambda.dagger.DaggerBevyTicketDynamodbEventHandlerComponent;
 
-public class DynamoDbEventRequestHandler implements RequestHandler<DynamodbEvent, StreamsEventResponse> {
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class DynamoDbEventRequestHandler implements RequestStreamHandler, Resource {
     private final BevyTicketDynamodbEventHandlerComponent lambdaComponent = DaggerBevyTicketDynamodbEventHandlerComponent.create();
 
+    public DynamoDbEventRequestHandler() {
+        Core.getGlobalContext().register(this);
+    }
+
+    @Override
+    public void handleRequest(final InputStream input, final OutputStream output, final Context context)
+            throws IOException {
+        lambdaComponent.requestHandler().handleRequest(input, output, context);
+    }
+
+    @Override
+    public void beforeCheckpoint(final org.crac.Context<? extends Resource> context) {
+        lambdaComponent.requestHandler();
+        lambdaComponent.primer().prime();
+        lambdaComponent.sdkPrimer().prime();
+    }
+
     @Override
-    public StreamsEventResponse handleRequest(final DynamodbEvent input, final Context context) {
-        return lambdaComponent.requestHandler().handleRequest(input, context);
+    public void afterRestore(final org.crac.Context<? extends Resource> context) {
+        lambdaComponent.sdkPrimer().resolveCredentials();
     }
 }
@@ -4,14 +4,52 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.crac.Core;
+import org.crac.Resource;
 import org.seattleoba.lambda.dagger.BevyTicketSQSEventRequestHandlerComponent;
 import org.seattleoba.lambda.dagger.DaggerBevyTicketSQSEventRequestHandlerComponent;
 
-public class SQSEventRequestHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
+public class SQSEventRequestHandler implements RequestHandler<SQSEvent, SQSBatchResponse>, Resource {
+    private static final Logger LOG = LogManager.getLogger(SQSEventRequestHandler.class);
+    private static final String SNAP_START_INITIALIZATION_TYPE = "snap-start";
+
     private final BevyTicketSQSEventRequestHandlerComponent lambdaComponent = DaggerBevyTicketSQSEventRequestHandlerComponent.create();
 
+    public SQSEventRequestHandler() {
+        Core.getGlobalContext().register(this);
+        // Credentials fetched while a SnapStart snapshot is being built would be restored stale; they are fetched
+        // in afterRestore instead.
+        if (!SNAP_START_INITIALIZATION_TYPE.equals(System.getenv("AWS_LAMBDA_INITIALIZATION_TYPE"))) {
+            lambdaComponent.twitchCredentialProvider().prefetch();
+        }
+    }
+
     @Override
     public SQSBatchResponse handleRequest(final SQSEvent sqsEvent, final Context context) {
         return lambdaComponent.requestHandler().handleRequest(sqsEvent, context);
     }
+
+    @Override
+    public void beforeCheckpoint(final org.crac.Context<? extends Resource> context) {
+        lambdaComponent.requestHandler();
+        lambdaComponent.primer().prime();
+        lambdaComponent.sdkPrimer().prime();
+    }
+
+    /**
+     * Fetches the AWS and Twitch credentials during restore, so that the first invocation does not wait for them and
+     * a snapshot never serves a token fetched before it was taken.
+     */
+    @Override
+    public void afterRestore(final org.crac.Context<? extends Resource> context) {
+        lambdaComponent.sdkPrimer().resolveCredentials();
+        try {
+            lambdaComponent.twitchCredentialProvider().refresh();
+        } catch (final Exception exception) {
+            // The first Helix call fetches them again.
+            LOG.warn("Unable to fetch Twitch credentials after restore", exception);
+        }
+    }
 }
@@ -2,16 +2,35 @@ package org.seattleoba.lambda;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import org.crac.Core;
+import org.crac.Resource;
 import org.seattleoba.lambda.dagger.BevyTicketImportRequestHandlerComponent;
 import org.seattleoba.lambda.dagger.DaggerBevyTicketImportRequestHandlerComponent;
 import org.seattleoba.lambda.model.BevyRosterImportRequest;
 import org.seattleoba.lambda.model.BevyRosterImportResult;
 
-public class TicketImportRequestHandler implements RequestHandler<BevyRosterImportRequest, BevyRosterImportResult> {
+public class TicketImportRequestHandler implements RequestHandler<BevyRosterImportRequest, BevyRosterImportResult>, Resource {
     private final BevyTicketImportRequestHandlerComponent lambdaComponent = DaggerBevyTicketImportRequestHandlerComponent.create();
 
+    public TicketImportRequestHandler() {
+        Core.getGlobalContext().register(this);
+    }
+
     @Override
     public BevyRosterImportResult handleRequest(final BevyRosterImportRequest request, final Context context) {
         return lambdaComponent.requestHandler().handleRequest(request, context);
     }
+
+    @Override
+    public void beforeCheckpoint(final org.crac.Context<? extends Resource> context) {
+        // Building the handler loads the SDK clients and builds the table schemas.
+        lambdaComponent.requestHandler();
+        lambdaComponent.importPrimer().prime();
+        lambdaComponent.sdkPrimer().prime();
+    }
+
+    @Override
+    public void afterRestore(final org.crac.Context<? extends Resource> context) {
+        lambdaComponent.sdkPrimer().resolveCredentials();
+    }
 }
@@ -2,19 +2,133 @@ package org.seattleoba.lambda.dagger;
 
 import dagger.Module;
 import dagger.Provides;
+import org.seattleoba.lambda.model.AwsHttpClientType;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.ContainerCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.core.client.builder.SdkAsyncClientBuilder;
+import software.amazon.awssdk.core.client.builder.SdkSyncClientBuilder;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 
+import javax.inject.Named;
 import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.Optional;
 
+/**
+ * AWS SDK clients. Every sync client shares one HTTP client and every async client one async HTTP client, of the type
+ * packaged with {@code -PawsHttpClient}.
+ */
 @Module
 public class AwsModule {
     @Provides
     @Singleton
-    public DynamoDbClient providesDynamoDbClient() {
-        return DynamoDbClient.builder().build();
+    public SdkHttpClient providesSdkHttpClient(
+            @Named("awsHttpClientType") final AwsHttpClientType httpClientType,
+            @Named("awsHttpMaxConnections") final int maxConnections,
+            @Named("awsHttpConnectionTimeout") final Duration connectionTimeout,
+            @Named("awsHttpSocketTimeout") final Duration socketTimeout) {
+        try {
+            return httpClient(httpClientType, maxConnections, connectionTimeout, socketTimeout);
+        } catch (final NoClassDefFoundError error) {
+            throw notPackaged(httpClientType, error);
+        }
+    }
+
+    /**
+     * Builds a sync HTTP client of the given type with up to {@code maxConnections} pooled connections. The
+     * {@code URL_CONNECTION} client has no pool to size.
+     */
+    public static SdkHttpClient httpClient(
+            final AwsHttpClientType httpClientType,
+            final int maxConnections,
+            final Duration connectionTimeout,
+            final Duration socketTimeout) {
+        return switch (httpClientType) {
+            case URL_CONNECTION -> UrlConnectionHttpClient.builder()
+                    .connectionTimeout(connectionTimeout)
+                    .socketTimeout(socketTimeout)
+                    .build();
+            case CRT -> AwsCrtHttpClient.builder()
+                    .maxConcurrency(maxConnections)
+                    .connectionTimeout(connectionTimeout)
+                    .build();
+            case APACHE -> ApacheHttpClient.builder()
+                    .maxConnections(maxConnections)
+                    .connectionTimeout(connectionTimeout)
+                    .socketTimeout(socketTimeout)
+                    .build();
+        };
+    }
+
+    @Provides
+    @Singleton
+    public SdkAsyncHttpClient providesSdkAsyncHttpClient(
+            @Named("awsHttpClientType") final AwsHttpClientType httpClientType,
+            @Named("awsHttpMaxConnections") final int maxConnections,
+            @Named("awsHttpConnectionTimeout") final Duration connectionTimeout,
+            @Named("awsHttpSocketTimeout") final Duration socketTimeout) {
+        try {
+            if (httpClientType == AwsHttpClientType.CRT) {
+                return AwsCrtAsyncHttpClient.builder()
+                        .maxConcurrency(maxConnections)
+                        .connectionTimeout(connectionTimeout)
+                        .build();
+            }
+            return NettyNioAsyncHttpClient.builder()
+                    .maxConcurrency(maxConnections)
+                    .connectionTimeout(connectionTimeout)
+                    .readTimeout(socketTimeout)
+                    .build();
+        } catch (final NoClassDefFoundError error) {
+            throw notPackaged(httpClientType, error);
+        }
+    }
+
+    private static IllegalStateException notPackaged(
+            final AwsHttpClientType httpClientType,
+            final NoClassDefFoundError error) {
+        return new IllegalStateException(String.format(
+                "AWS_HTTP_CLIENT is %s, but the function was packaged without that client; build it with "
+                        + "-PawsHttpClient=%s", httpClientType, httpClientType), error);
+    }
+
+    /**
+     * Lambda provides credentials through environment variables, or through a container endpoint for SnapStart
+     * functions, where the credentials change after each restore.
+     */
+    @Provides
+    @Singleton
+    public AwsCredentialsProvider providesAwsCredentialsProvider() {
+        if (Optional.ofNullable(System.getenv("AWS_CONTAINER_CREDENTIALS_FULL_URI")).isPresent()) {
+            return ContainerCredentialsProvider.builder().build();
+        } else if (Optional.ofNullable(System.getenv("AWS_ACCESS_KEY_ID")).isPresent()) {
+            return EnvironmentVariableCredentialsProvider.create();
+        }
+        return DefaultCredentialsProvider.builder().build();
+    }
+
+    @Provides
+    @Singleton
+    public DynamoDbClient providesDynamoDbClient(
+            final SdkHttpClient httpClient,
+            final AwsCredentialsProvider credentialsProvider,
+            @Named("awsRegion") final Optional<Region> region) {
+        return sync(DynamoDbClient.builder(), httpClient, credentialsProvider, region).build();
     }
 
     @Provides
@@ -27,13 +141,46 @@ public class AwsModule {
 
     @Provides
     @Singleton
-    public S3Client providesS3Client() {
-        return S3Client.builder().build();
+    public S3Client providesS3Client(
+            final SdkHttpClient httpClient,
+            final AwsCredentialsProvider credentialsProvider,
+            @Named("awsRegion") final Optional<Region> region) {
+        return sync(S3Client.builder(), httpClient, credentialsProvider, region).build();
+    }
+
+    @Provides
+    @Singleton
+    public SqsClient providesSqsClient(
+            final SdkHttpClient httpClient,
+            final AwsCredentialsProvider credentialsProvider,
+            @Named("awsRegion") final Optional<Region> region) {
+        return sync(SqsClient.builder(), httpClient, credentialsProvider, region).build();
     }
 
     @Provides
     @Singleton
-    public SqsClient providesSqsClient() {
-        return SqsClient.builder().build();
+    public SqsAsyncClient providesSqsAsyncClient(
+            final SdkAsyncHttpClient httpClient,
+            final AwsCredentialsProvider credentialsProvider,
+            @Named("awsRegion") final Optional<Region> region) {
+        return async(SqsAsyncClient.builder(), httpClient, credentialsProvider, region).build();
+    }
+
+    private static <B extends AwsClientBuilder<B, ?> & SdkSyncClientBuilder<B, ?>> B sync(
+            final B builder,
+            final SdkHttpClient httpClient,
+            final AwsCredentialsProvider credentialsProvider,
+            final Optional<Region> region) {
+        region.ifPresent(builder::region);
+        return builder.httpClient(httpClient).credentialsProvider(credentialsProvider);
+    }
+
+    private static <B extends AwsClientBuilder<B, ?> & SdkAsyncClientBuilder<B, ?>> B async(
+            final B builder,
+            final SdkAsyncHttpClient httpClient,
+            final AwsCredentialsProvider credentialsProvider,
+            final Optional<Region> region) {
+        region.ifPresent(builder::region);
+        return builder.httpClient(httpClient).credentialsProvider(credentialsProvider);
     }
 }
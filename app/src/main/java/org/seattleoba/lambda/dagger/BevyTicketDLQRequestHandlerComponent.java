@@ -2,6 +2,8 @@ package org.seattleoba.lambda.dagger;
 
 import dagger.Component;
 import org.seattleoba.data.dagger.DataModule;
+import org.seattleoba.lambda.priming.Primer;
+import org.seattleoba.lambda.priming.SdkPrimer;
 import org.seattleoba.lambda.requesthandler.BevyTicketDLQEventRequestHandler;
 
 import javax.inject.Singleton;
@@ -9,8 +11,13 @@ import javax.inject.Singleton;
 @Singleton
 @Component(modules = {
         AwsModule.class,
+        ConfigModule.class,
         DataModule.class,
         JacksonModule.class})
 public interface BevyTicketDLQRequestHandlerComponent {
     BevyTicketDLQEventRequestHandler requestHandler();
+
+    Primer primer();
+
+    SdkPrimer sdkPrimer();
 }
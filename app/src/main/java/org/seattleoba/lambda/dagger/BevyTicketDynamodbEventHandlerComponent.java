@@ -1,6 +1,8 @@
 package org.seattleoba.lambda.dagger;
 
 import dagger.Component;
+import org.seattleoba.lambda.priming.Primer;
+import org.seattleoba.lambda.priming.SdkPrimer;
 import org.seattleoba.lambda.requesthandler.BevyTicketDynamodbEventRequestHandler;
 
 import javax.inject.Singleton;
@@ -8,7 +10,12 @@ import javax.inject.Singleton;
 @Singleton
 @Component(modules = {
         AwsModule.class,
+        ConfigModule.class,
         JacksonModule.class})
 public interface BevyTicketDynamodbEventHandlerComponent {
     BevyTicketDynamodbEventRequestHandler requestHandler();
+
+    Primer primer();
+
+    SdkPrimer sdkPrimer();
 }
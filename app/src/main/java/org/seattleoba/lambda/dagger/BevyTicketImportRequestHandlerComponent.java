@@ -2,6 +2,8 @@ package org.seattleoba.lambda.dagger;
 
 import dagger.Component;
 import org.seattleoba.data.dagger.DataModule;
+import org.seattleoba.lambda.priming.ImportPrimer;
+import org.seattleoba.lambda.priming.SdkPrimer;
 import org.seattleoba.lambda.requesthandler.BevyTicketImportRequestHandler;
 
 import javax.inject.Singleton;
@@ -9,7 +11,13 @@ import javax.inject.Singleton;
 @Singleton
 @Component(modules = {
         AwsModule.class,
-        DataModule.class})
+        ConfigModule.class,
+        DataModule.class,
+        TableModule.class})
 public interface BevyTicketImportRequestHandlerComponent {
     BevyTicketImportRequestHandler requestHandler();
+
+    ImportPrimer importPrimer();
+
+    SdkPrimer sdkPrimer();
 }
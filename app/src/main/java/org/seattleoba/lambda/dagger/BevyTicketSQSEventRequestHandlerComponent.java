@@ -2,16 +2,27 @@ package org.seattleoba.lambda.dagger;
 
 import dagger.Component;
 import org.seattleoba.data.dagger.DataModule;
+import org.seattleoba.lambda.priming.Primer;
+import org.seattleoba.lambda.priming.SdkPrimer;
 import org.seattleoba.lambda.requesthandler.BevyTicketSQSEventRequestHandler;
+import org.seattleoba.lambda.twitch.TwitchCredentialProvider;
 
 import javax.inject.Singleton;
 
 @Singleton
 @Component(modules = {
         AwsModule.class,
+        ConfigModule.class,
         DataModule.class,
         JacksonModule.class,
+        TableModule.class,
         TwitchModule.class})
 public interface BevyTicketSQSEventRequestHandlerComponent {
     BevyTicketSQSEventRequestHandler requestHandler();
+
+    Primer primer();
+
+    SdkPrimer sdkPrimer();
+
+    TwitchCredentialProvider twitchCredentialProvider();
 }
@@ -0,0 +1,263 @@
+package org.seattleoba.lambda.dagger;
+
+import dagger.Module;
+import dagger.Provides;
+import org.seattleoba.lambda.model.AwsHttpClientType;
+import org.seattleoba.lambda.model.BevyTicketMessageFormat;
+import org.seattleoba.lambda.model.RegistrationWriteMode;
+import software.amazon.awssdk.regions.Region;
+
+import javax.inject.Named;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Function settings, read from the Lambda environment. Settings that are not set fall back to the defaults below.
+ */
+@Module
+public class ConfigModule {
+    private final Map<String, String> environment;
+
+    public ConfigModule() {
+        this(System.getenv());
+    }
+
+    public ConfigModule(final Map<String, String> environment) {
+        this.environment = environment;
+    }
+
+    // AWS SDK clients
+
+    @Provides
+    @Named("awsHttpClientType")
+    public AwsHttpClientType providesAwsHttpClientType() {
+        return setting("AWS_HTTP_CLIENT", AwsHttpClientType::valueOf, AwsHttpClientType.APACHE);
+    }
+
+    @Provides
+    @Named("awsHttpMaxConnections")
+    public int providesAwsHttpMaxConnections() {
+        return setting("AWS_HTTP_MAX_CONNECTIONS", Integer::parseInt, 50);
+    }
+
+    @Provides
+    @Named("awsHttpConnectionTimeout")
+    public Duration providesAwsHttpConnectionTimeout() {
+        return setting("AWS_HTTP_CONNECTION_TIMEOUT_MILLIS", ConfigModule::millis, Duration.ofSeconds(2));
+    }
+
+    @Provides
+    @Named("awsHttpSocketTimeout")
+    public Duration providesAwsHttpSocketTimeout() {
+        return setting("AWS_HTTP_SOCKET_TIMEOUT_MILLIS", ConfigModule::millis, Duration.ofSeconds(30));
+    }
+
+    @Provides
+    @Named("awsRegion")
+    public Optional<Region> providesAwsRegion() {
+        return setting("AWS_REGION").map(Region::of);
+    }
+
+    // Tables, queues and buckets
+
+    @Provides
+    @Named("importCheckpointTableName")
+    public String providesImportCheckpointTableName() {
+        return environment.get("IMPORT_CHECKPOINT_TABLE_NAME");
+    }
+
+    @Provides
+    @Named("twitchLoginTableName")
+    public String providesTwitchLoginTableName() {
+        return environment.get("TWITCH_LOGIN_TABLE_NAME");
+    }
+
+    @Provides
+    @Named("errorTableName")
+    public String providesErrorTableName() {
+        return environment.get("ERROR_TABLE_NAME");
+    }
+
+    /**
+     * The ticket event queue for the stream handler, and the dead-letter queue for the DLQ report.
+     */
+    @Provides
+    @Named("queueUrl")
+    public String providesQueueUrl() {
+        return environment.get("SQS_QUEUE_URL");
+    }
+
+    /**
+     * Queue that the SQS consumer sends failed events of a packed message back to, by default its own source queue.
+     */
+    @Provides
+    @Named("requeueUrl")
+    public String providesRequeueUrl() {
+        return setting("SQS_REQUEUE_URL").orElse(environment.get("SQS_QUEUE_URL"));
+    }
+
+    @Provides
+    @Named("reportBucketName")
+    public String providesReportBucketName() {
+        return environment.get("S3_BUCKET_NAME");
+    }
+
+    // Roster import
+
+    @Provides
+    @Named("checkpointThresholdMillis")
+    public long providesCheckpointThresholdMillis() {
+        return setting("CHECKPOINT_THRESHOLD_MILLIS", Long::parseLong, 30_000L);
+    }
+
+    @Provides
+    @Named("importUpdateConcurrency")
+    public int providesImportUpdateConcurrency() {
+        return setting("IMPORT_UPDATE_CONCURRENCY", Integer::parseInt, 16);
+    }
+
+    @Provides
+    @Named("importParserThreads")
+    public int providesImportParserThreads() {
+        return setting("IMPORT_PARSER_THREADS", Integer::parseInt, 4);
+    }
+
+    @Provides
+    @Named("importWriterThreads")
+    public int providesImportWriterThreads() {
+        return setting("IMPORT_WRITER_THREADS", Integer::parseInt, 8);
+    }
+
+    @Provides
+    @Named("importQueueCapacity")
+    public int providesImportQueueCapacity() {
+        return setting("IMPORT_QUEUE_CAPACITY", Integer::parseInt, 2_000);
+    }
+
+    // Stream handler
+
+    @Provides
+    @Named("messageFormat")
+    public BevyTicketMessageFormat providesMessageFormat() {
+        return setting("SQS_MESSAGE_FORMAT", BevyTicketMessageFormat::valueOf, BevyTicketMessageFormat.SINGLE);
+    }
+
+    /**
+     * Matches the consumer's Helix chunk, so that a packed message is resolved with a single GetUsers call.
+     */
+    @Provides
+    @Named("maxEventsPerMessage")
+    public int providesMaxEventsPerMessage() {
+        return setting("SQS_MAX_EVENTS_PER_MESSAGE", Integer::parseInt, 100);
+    }
+
+    // SQS consumer
+
+    /**
+     * Upper bound on Helix lookups and DynamoDB write stages in flight at once for a single invocation.
+     */
+    @Provides
+    @Named("consumerConcurrency")
+    public int providesConsumerConcurrency() {
+        return setting("SQS_CONSUMER_CONCURRENCY", Integer::parseInt, 16);
+    }
+
+    @Provides
+    @Named("registrationWriteMode")
+    public RegistrationWriteMode providesRegistrationWriteMode() {
+        return setting("REGISTRATION_WRITE_MODE", RegistrationWriteMode::valueOf, RegistrationWriteMode.TRANSACTIONAL);
+    }
+
+    // DLQ report
+
+    @Provides
+    @Named("dlqReceiverCount")
+    public int providesDlqReceiverCount() {
+        return setting("DLQ_RECEIVER_COUNT", Integer::parseInt, 4);
+    }
+
+    /**
+     * Time kept back from the drain so that the report can be finished and uploaded before the timeout.
+     */
+    @Provides
+    @Named("dlqReportReserveMillis")
+    public long providesDlqReportReserveMillis() {
+        return setting("DLQ_REPORT_RESERVE_MILLIS", Long::parseLong, 30_000L);
+    }
+
+    @Provides
+    @Named("errorStoreConcurrency")
+    public int providesErrorStoreConcurrency() {
+        return setting("ERROR_STORE_CONCURRENCY", Integer::parseInt, 16);
+    }
+
+    // Twitch
+
+    @Provides
+    @Named("clientId")
+    public String providesClientId() {
+        return environment.get("CLIENT_ID");
+    }
+
+    @Provides
+    @Named("clientSecretArn")
+    public String providesClientSecretArn() {
+        return environment.get("CLIENT_SECRET_ARN");
+    }
+
+    @Provides
+    @Named("helixBaseUrl")
+    public String providesHelixBaseUrl() {
+        return setting("TWITCH_HELIX_BASE_URL").orElse("https://api.twitch.tv/helix");
+    }
+
+    @Provides
+    @Named("twitchSecretTtl")
+    public Duration providesTwitchSecretTtl() {
+        return setting("TWITCH_SECRET_TTL_SECONDS", ConfigModule::seconds, Duration.ofHours(1));
+    }
+
+    @Provides
+    @Named("twitchTokenRefreshAhead")
+    public Duration providesTwitchTokenRefreshAhead() {
+        return setting("TWITCH_TOKEN_REFRESH_AHEAD_SECONDS", ConfigModule::seconds, Duration.ofMinutes(10));
+    }
+
+    @Provides
+    @Named("twitchCacheMaxEntries")
+    public int providesTwitchCacheMaxEntries() {
+        return setting("TWITCH_CACHE_MAX_ENTRIES", Integer::parseInt, 10_000);
+    }
+
+    @Provides
+    @Named("twitchCacheTtl")
+    public Duration providesTwitchCacheTtl() {
+        return setting("TWITCH_CACHE_TTL_SECONDS", ConfigModule::seconds, Duration.ofDays(1));
+    }
+
+    // Metrics
+
+    @Provides
+    @Named("metricsNamespace")
+    public String providesMetricsNamespace() {
+        return setting("METRICS_NAMESPACE").orElse("SeattleOBA/TicketPipeline");
+    }
+
+    private Optional<String> setting(final String name) {
+        return Optional.ofNullable(environment.get(name));
+    }
+
+    private <T> T setting(final String name, final Function<String, T> parser, final T defaultValue) {
+        return setting(name).map(parser).orElse(defaultValue);
+    }
+
+    private static Duration millis(final String value) {
+        return Duration.ofMillis(Long.parseLong(value));
+    }
+
+    private static Duration seconds(final String value) {
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+}
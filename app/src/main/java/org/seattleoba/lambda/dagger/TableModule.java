@@ -0,0 +1,41 @@
+package org.seattleoba.lambda.dagger;
+
+import dagger.Module;
+import dagger.Provides;
+import org.seattleoba.data.dynamodb.bean.BevyTicket;
+import org.seattleoba.lambda.dynamodb.bean.BevyRosterImportCheckpoint;
+import org.seattleoba.lambda.dynamodb.bean.HashedBevyTicket;
+import org.seattleoba.lambda.dynamodb.bean.TwitchLogin;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+@Module
+public class TableModule {
+    @Provides
+    @Singleton
+    public DynamoDbTable<BevyRosterImportCheckpoint> providesImportCheckpointTable(
+            final DynamoDbEnhancedClient enhancedClient,
+            @Named("importCheckpointTableName") final String tableName) {
+        return enhancedClient.table(tableName, TableSchema.fromBean(BevyRosterImportCheckpoint.class));
+    }
+
+    @Provides
+    @Singleton
+    public DynamoDbTable<HashedBevyTicket> providesHashedBevyTicketTable(
+            final DynamoDbEnhancedClient enhancedClient,
+            final DynamoDbTable<BevyTicket> bevyTicketTable) {
+        return enhancedClient.table(bevyTicketTable.tableName(), TableSchema.fromBean(HashedBevyTicket.class));
+    }
+
+    @Provides
+    @Singleton
+    public DynamoDbTable<TwitchLogin> providesTwitchLoginTable(
+            final DynamoDbEnhancedClient enhancedClient,
+            @Named("twitchLoginTableName") final String tableName) {
+        return enhancedClient.table(tableName, TableSchema.fromBean(TwitchLogin.class));
+    }
+}
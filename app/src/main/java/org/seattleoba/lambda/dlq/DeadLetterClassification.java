@@ -0,0 +1,17 @@
+package org.seattleoba.lambda.dlq;
+
+import org.seattleoba.lambda.model.BevyTicketErrorEntry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Error entries for a batch of dead-lettered messages, keyed by message id; a packed message has one entry per event.
+ * Messages in {@code unresolvedMessageIds} could not be classified because a ticket lookup did not complete, and
+ * should be left on the queue for the next run.
+ */
+public record DeadLetterClassification(
+        Map<String, List<BevyTicketErrorEntry>> errorEntries,
+        Set<String> unresolvedMessageIds) {
+}
@@ -0,0 +1,166 @@
+package org.seattleoba.lambda.dlq;
+
+import com.google.common.collect.Lists;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.data.dynamodb.bean.BevyTicket;
+import org.seattleoba.lambda.dynamodb.BatchGetOutcome;
+import org.seattleoba.lambda.dynamodb.DynamoDbBatchExecutor;
+import org.seattleoba.lambda.message.BevyTicketEventCodec;
+import org.seattleoba.lambda.model.BevyTicketErrorEntry;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Assigns a failure code to each dead-lettered ticket event. Events without a ticket number are completed from the
+ * Bevy ticket table: all of a batch's lookups are collected first, then resolved with concurrent BatchGetItem calls
+ * of up to 100 keys.
+ */
+public class DeadLetterClassifier {
+    private static final Logger LOG = LogManager.getLogger(DeadLetterClassifier.class);
+
+    private final DynamoDbBatchExecutor batchExecutor;
+    private final DynamoDbTable<BevyTicket> bevyTicketTable;
+    private final BevyTicketEventCodec codec;
+
+    @Inject
+    public DeadLetterClassifier(
+            final DynamoDbBatchExecutor batchExecutor,
+            final DynamoDbTable<BevyTicket> bevyTicketTable,
+            final BevyTicketEventCodec codec) {
+        this.batchExecutor = batchExecutor;
+        this.bevyTicketTable = bevyTicketTable;
+        this.codec = codec;
+    }
+
+    public DeadLetterClassification classify(final List<Message> messages) {
+        final Map<String, List<BevyTicketEvent>> bevyTicketEvents = new LinkedHashMap<>();
+        final Set<Key> lookupKeys = new LinkedHashSet<>();
+        for (final Message message : messages) {
+            try {
+                final List<BevyTicketEvent> events = codec.decode(message.body()).events();
+                bevyTicketEvents.put(message.messageId(), events);
+                events.stream()
+                        .filter(bevyTicketEvent -> !hasTicketNumber(bevyTicketEvent))
+                        .forEach(bevyTicketEvent -> lookupKeys.add(keyOf(bevyTicketEvent)));
+            } catch (final Exception exception) {
+                LOG.error("Unable to process message {}", message.messageId(), exception);
+            }
+        }
+
+        final Map<Key, BevyTicket> bevyTickets = new HashMap<>();
+        final Set<Key> unprocessedKeys = new HashSet<>();
+        lookUp(lookupKeys, bevyTickets, unprocessedKeys);
+
+        final Map<String, List<BevyTicketErrorEntry>> errorEntries = new LinkedHashMap<>();
+        final Set<String> unresolvedMessageIds = new HashSet<>();
+        bevyTicketEvents.forEach((messageId, events) -> {
+            final List<BevyTicketErrorEntry> messageEntries = new ArrayList<>();
+            for (final BevyTicketEvent bevyTicketEvent : events) {
+                final BevyTicketErrorEntry errorEntry = classify(bevyTicketEvent, bevyTickets, unprocessedKeys);
+                if (Objects.isNull(errorEntry)) {
+                    LOG.warn("Unable to look up ticket {} for message {}", bevyTicketEvent.ticketId(), messageId);
+                    unresolvedMessageIds.add(messageId);
+                    return;
+                }
+                messageEntries.add(errorEntry);
+            }
+            errorEntries.put(messageId, messageEntries);
+        });
+        return new DeadLetterClassification(errorEntries, unresolvedMessageIds);
+    }
+
+    /**
+     * Returns the error entry for an event, or {@code null} if its ticket lookup did not complete.
+     */
+    private static BevyTicketErrorEntry classify(
+            final BevyTicketEvent bevyTicketEvent,
+            final Map<Key, BevyTicket> bevyTickets,
+            final Set<Key> unprocessedKeys) {
+        final String ticketNumber;
+        final String failureCode;
+        if (hasTicketNumber(bevyTicketEvent)) {
+            ticketNumber = bevyTicketEvent.ticketNumber();
+            failureCode = failureCode(ticketNumber, bevyTicketEvent.purchaserName());
+        } else if (unprocessedKeys.contains(keyOf(bevyTicketEvent))) {
+            return null;
+        } else if (bevyTickets.containsKey(keyOf(bevyTicketEvent))) {
+            ticketNumber = Objects.requireNonNullElse(bevyTickets.get(keyOf(bevyTicketEvent)).getTicketId(), "");
+            failureCode = failureCode(ticketNumber, bevyTicketEvent.purchaserName());
+        } else {
+            // The ticket was removed from the roster after its event was dead-lettered.
+            ticketNumber = null;
+            failureCode = "TICKET_NOT_FOUND";
+        }
+        return new BevyTicketErrorEntry(
+                bevyTicketEvent.eventId(),
+                bevyTicketEvent.ticketId(),
+                ticketNumber,
+                bevyTicketEvent.purchaserName(),
+                failureCode);
+    }
+
+    private void lookUp(final Set<Key> keys, final Map<Key, BevyTicket> bevyTickets, final Set<Key> unprocessedKeys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        final Map<Future<BatchGetOutcome<BevyTicket>>, List<Key>> lookups = new LinkedHashMap<>();
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (final List<Key> chunk :
+                    Lists.partition(new ArrayList<>(keys), DynamoDbBatchExecutor.MAX_BATCH_GET_SIZE)) {
+                lookups.put(executor.submit(() -> batchExecutor.getItems(bevyTicketTable, chunk)), chunk);
+            }
+            for (final Map.Entry<Future<BatchGetOutcome<BevyTicket>>, List<Key>> lookup : lookups.entrySet()) {
+                try {
+                    final BatchGetOutcome<BevyTicket> outcome = lookup.getKey().get();
+                    bevyTickets.putAll(outcome.items());
+                    unprocessedKeys.addAll(outcome.unprocessedKeys());
+                } catch (final ExecutionException exception) {
+                    LOG.error("Unable to look up {} tickets", lookup.getValue().size(), exception.getCause());
+                    unprocessedKeys.addAll(lookup.getValue());
+                }
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static String failureCode(final String ticketNumber, final String purchaserName) {
+        if (ticketNumber.isEmpty() || Objects.isNull(purchaserName)) {
+            return "MISSING_PURCHASER_NAME";
+        } else if (!purchaserName.matches("[A-Za-z0-9_]+")) {
+            return "INVALID_NAME";
+        } else {
+            return "TWITCH_API_ERROR";
+        }
+    }
+
+    private static boolean hasTicketNumber(final BevyTicketEvent bevyTicketEvent) {
+        return Objects.nonNull(bevyTicketEvent.ticketNumber()) && !bevyTicketEvent.ticketNumber().isEmpty();
+    }
+
+    private static Key keyOf(final BevyTicketEvent bevyTicketEvent) {
+        return Key.builder()
+                .partitionValue(bevyTicketEvent.eventId())
+                .sortValue(bevyTicketEvent.ticketId())
+                .build();
+    }
+}
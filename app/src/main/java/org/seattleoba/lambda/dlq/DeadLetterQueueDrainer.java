@@ -0,0 +1,208 @@
+package org.seattleoba.lambda.dlq;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.batchmanager.SqsAsyncBatchManager;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains a queue with several concurrent long-poll receivers feeding a bounded buffer, extending the visibility
+ * timeout of in-flight messages until they are deleted.
+ */
+public class DeadLetterQueueDrainer implements AutoCloseable {
+    private static final Logger LOG = LogManager.getLogger(DeadLetterQueueDrainer.class);
+    private static final int MAX_BATCH_SIZE = 10;
+    private static final int MAX_WAIT_TIME_SECONDS = 20;
+    private static final int VISIBILITY_TIMEOUT_IN_SECONDS = 60;
+    private static final int BUFFER_CAPACITY = 1_000;
+
+    private final SqsAsyncClient sqsAsyncClient;
+    private final SqsAsyncBatchManager batchManager;
+    private final String queueUrl;
+    private final int receiverCount;
+    private final long deadlineMillis;
+    private final BlockingQueue<Message> buffer = new ArrayBlockingQueue<>(BUFFER_CAPACITY);
+    // Latest receipt handle of each message that has been received and not yet deleted.
+    private final Map<String, String> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> receivedMessageIds = ConcurrentHashMap.newKeySet();
+    private final Set<CompletableFuture<?>> pendingRequests = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch receiversDone;
+    private final ExecutorService receivers = Executors.newVirtualThreadPerTaskExecutor();
+    // Runs the visibility heartbeat and the batch manager's flushes.
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private volatile boolean stopped;
+
+    public DeadLetterQueueDrainer(
+            final SqsAsyncClient sqsAsyncClient,
+            final String queueUrl,
+            final int receiverCount,
+            final long deadlineMillis) {
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.batchManager = SqsAsyncBatchManager.builder()
+                .client(sqsAsyncClient)
+                .scheduledExecutor(scheduler)
+                .build();
+        this.queueUrl = queueUrl;
+        this.receiverCount = receiverCount;
+        this.deadlineMillis = deadlineMillis;
+        this.receiversDone = new CountDownLatch(receiverCount);
+    }
+
+    public void start() {
+        for (int i = 0; i < receiverCount; i++) {
+            receivers.submit(this::receive);
+        }
+        final long period = VISIBILITY_TIMEOUT_IN_SECONDS / 2;
+        scheduler.scheduleAtFixedRate(this::extendVisibility, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Waits for at least one message and returns up to {@code maxMessages}. An empty list means the receivers have
+     * stopped and every received message has been returned.
+     */
+    public List<Message> take(final int maxMessages) throws InterruptedException {
+        final List<Message> messages = new ArrayList<>();
+        while (messages.isEmpty()) {
+            final Message message = buffer.poll(100L, TimeUnit.MILLISECONDS);
+            if (Objects.nonNull(message)) {
+                messages.add(message);
+                buffer.drainTo(messages, maxMessages - 1);
+            } else if (receiversDone.getCount() == 0 && buffer.isEmpty()) {
+                break;
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Deletes messages by id, using the most recent receipt handle each was received with.
+     */
+    public void delete(final Collection<String> messageIds) {
+        messageIds.forEach(messageId -> {
+            final String receiptHandle = inFlight.remove(messageId);
+            if (Objects.nonNull(receiptHandle)) {
+                deleteMessage(messageId, receiptHandle);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        stopped = true;
+        // Receivers are only still running if the consumer gave up early; interrupt their long polls.
+        receivers.shutdownNow();
+        try {
+            receivers.awaitTermination(MAX_WAIT_TIME_SECONDS, TimeUnit.SECONDS);
+            CompletableFuture.allOf(pendingRequests.toArray(CompletableFuture[]::new)).get();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (final Exception exception) {
+            // Individual failures are logged as they complete.
+        }
+        batchManager.close();
+        scheduler.shutdownNow();
+        if (!inFlight.isEmpty()) {
+            LOG.info("{} messages were left on queue {}", inFlight.size(), queueUrl);
+        }
+    }
+
+    private void receive() {
+        try {
+            while (!stopped) {
+                final long remainingSeconds = (deadlineMillis - System.currentTimeMillis()) / 1000L;
+                if (remainingSeconds <= 0L) {
+                    LOG.info("Stopping receiver at the drain deadline");
+                    break;
+                }
+                final ReceiveMessageResponse response = sqsAsyncClient.receiveMessage(ReceiveMessageRequest.builder()
+                        .queueUrl(queueUrl)
+                        .maxNumberOfMessages(MAX_BATCH_SIZE)
+                        .waitTimeSeconds((int) Math.min(MAX_WAIT_TIME_SECONDS, remainingSeconds))
+                        .visibilityTimeout(VISIBILITY_TIMEOUT_IN_SECONDS)
+                        .build()).get();
+                if (!response.hasMessages() || response.messages().isEmpty()) {
+                    break;
+                }
+                for (final Message message : response.messages()) {
+                    accept(message);
+                }
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (final Exception exception) {
+            LOG.error("Unable to receive messages from SQS queue {}", queueUrl, exception);
+        } finally {
+            receiversDone.countDown();
+        }
+    }
+
+    private void accept(final Message message) throws InterruptedException {
+        if (receivedMessageIds.add(message.messageId())) {
+            inFlight.put(message.messageId(), message.receiptHandle());
+            while (!buffer.offer(message, 100L, TimeUnit.MILLISECONDS)) {
+                if (stopped) {
+                    return;
+                }
+            }
+        } else if (Objects.nonNull(inFlight.replace(message.messageId(), message.receiptHandle()))) {
+            // Redelivered while in flight; only the new receipt handle can delete it now.
+            LOG.debug("Message {} was redelivered", message.messageId());
+        } else {
+            // Redelivered after it was already handled and deleted.
+            deleteMessage(message.messageId(), message.receiptHandle());
+        }
+    }
+
+    private void deleteMessage(final String messageId, final String receiptHandle) {
+        track(batchManager.deleteMessage(DeleteMessageRequest.builder()
+                .queueUrl(queueUrl)
+                .receiptHandle(receiptHandle)
+                .build()).whenComplete((response, exception) -> {
+            if (Objects.nonNull(exception)) {
+                LOG.error("Failed to delete message {}", messageId, exception);
+            }
+        }));
+    }
+
+    private void extendVisibility() {
+        if (stopped) {
+            return;
+        }
+        inFlight.forEach((messageId, receiptHandle) -> track(batchManager.changeMessageVisibility(
+                ChangeMessageVisibilityRequest.builder()
+                        .queueUrl(queueUrl)
+                        .receiptHandle(receiptHandle)
+                        .visibilityTimeout(VISIBILITY_TIMEOUT_IN_SECONDS)
+                        .build()).whenComplete((response, exception) -> {
+            if (Objects.nonNull(exception)) {
+                LOG.warn("Unable to extend visibility of message {}", messageId, exception);
+            }
+        })));
+    }
+
+    private void track(final CompletableFuture<?> request) {
+        pendingRequests.add(request);
+        request.whenComplete((response, exception) -> pendingRequests.remove(request));
+    }
+}
@@ -0,0 +1,398 @@
+package org.seattleoba.lambda.dlq;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.lambda.model.BevyTicketErrorEntry;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps one item per failing ticket in the DLQ error table, and one {@code CODE#<failure code>} item per event with
+ * the tickets currently failing with that code.
+ */
+public class ErrorStore {
+    private static final Logger LOG = LogManager.getLogger(ErrorStore.class);
+    private static final String TICKET_PREFIX = "TICKET#";
+    private static final String CODE_PREFIX = "CODE#";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String errorTableName;
+    private final int concurrency;
+
+    @Inject
+    public ErrorStore(
+            final DynamoDbClient dynamoDbClient,
+            @Named("errorTableName") final String errorTableName,
+            @Named("errorStoreConcurrency") final int concurrency) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.errorTableName = errorTableName;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Records a batch of error entries keyed by the id of the message they came from, and returns the ids of the
+     * messages with an entry that could not be stored.
+     */
+    public Set<String> record(final Map<String, List<BevyTicketErrorEntry>> errorEntries, final long seenAt) {
+        // Entries for the same ticket are applied in order by one task, so that each sees the previous one's write.
+        final Map<String, List<Map.Entry<String, BevyTicketErrorEntry>>> entriesByTicket = new LinkedHashMap<>();
+        errorEntries.forEach((messageId, messageEntries) -> messageEntries.forEach(errorEntry -> entriesByTicket
+                .computeIfAbsent(errorEntry.eventId() + TICKET_PREFIX + errorEntry.ticketId(),
+                        ignored -> new ArrayList<>())
+                .add(Map.entry(messageId, errorEntry))));
+
+        final Set<String> failedMessageIds = ConcurrentHashMap.newKeySet();
+        final Map<CodeKey, CodeDelta> codeDeltas = new ConcurrentHashMap<>();
+        final Semaphore permits = new Semaphore(concurrency);
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (final List<Map.Entry<String, BevyTicketErrorEntry>> ticketEntries : entriesByTicket.values()) {
+                tasks.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        for (final Map.Entry<String, BevyTicketErrorEntry> entry : ticketEntries) {
+                            try {
+                                upsertTicket(entry.getKey(), entry.getValue(), seenAt, codeDeltas);
+                            } catch (final Exception exception) {
+                                LOG.error("Unable to record error entry for message {}", entry.getKey(), exception);
+                                failedMessageIds.add(entry.getKey());
+                            }
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        } catch (final ExecutionException exception) {
+            throw new IllegalStateException(exception.getCause());
+        }
+
+        updateCodes(codeDeltas, seenAt);
+        return failedMessageIds;
+    }
+
+    /**
+     * Marks the tickets of an event that were not dead-lettered at or after {@code since} as resolved, and removes
+     * them from their failure code's aggregate. Returns the number of tickets resolved.
+     */
+    public int resolveTicketsNotSeenSince(final Integer eventId, final long since) {
+        final Map<CodeKey, CodeDelta> codeDeltas = new HashMap<>();
+        final long resolvedAt = System.currentTimeMillis();
+        int resolved = 0;
+        final Iterator<Map<String, AttributeValue>> items = dynamoDbClient.queryPaginator(QueryRequest.builder()
+                        .tableName(errorTableName)
+                        .keyConditionExpression("#eventId = :eventId AND begins_with(#entryKey, :prefix)")
+                        .filterExpression("#lastSeen < :since AND attribute_exists(#failureCode)")
+                        .expressionAttributeNames(Map.of(
+                                "#eventId", "event_id",
+                                "#entryKey", "entry_key",
+                                "#lastSeen", "last_seen",
+                                "#failureCode", "failure_code"))
+                        .expressionAttributeValues(Map.of(
+                                ":eventId", AttributeValue.fromN(eventId.toString()),
+                                ":prefix", AttributeValue.fromS(TICKET_PREFIX),
+                                ":since", AttributeValue.fromN(Long.toString(since))))
+                        .build())
+                .items()
+                .iterator();
+        while (items.hasNext()) {
+            final Map<String, AttributeValue> item = items.next();
+            try {
+                // The condition skips a ticket that was dead-lettered again since the query read it.
+                dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                        .tableName(errorTableName)
+                        .key(key(eventId, item.get("entry_key").s()))
+                        .updateExpression("SET #resolvedAt = :resolvedAt REMOVE #failureCode")
+                        .conditionExpression("#lastSeen < :since AND attribute_exists(#failureCode)")
+                        .expressionAttributeNames(Map.of(
+                                "#resolvedAt", "resolved_at",
+                                "#failureCode", "failure_code",
+                                "#lastSeen", "last_seen"))
+                        .expressionAttributeValues(Map.of(
+                                ":resolvedAt", AttributeValue.fromN(Long.toString(resolvedAt)),
+                                ":since", AttributeValue.fromN(Long.toString(since))))
+                        .build());
+            } catch (final ConditionalCheckFailedException exception) {
+                continue;
+            }
+            codeDeltas.computeIfAbsent(new CodeKey(eventId, item.get("failure_code").s()), ignored -> new CodeDelta())
+                    .removeTicket(Integer.parseInt(item.get("ticket_id").n()));
+            resolved++;
+        }
+        updateCodes(codeDeltas, resolvedAt);
+        return resolved;
+    }
+
+    /**
+     * Lazily queries the entries of an event that were seen at or after {@code since}, one page at a time.
+     */
+    public Stream<BevyTicketErrorEntry> entriesSeenSince(final Integer eventId, final long since) {
+        return dynamoDbClient.queryPaginator(QueryRequest.builder()
+                        .tableName(errorTableName)
+                        .keyConditionExpression("#eventId = :eventId AND begins_with(#entryKey, :prefix)")
+                        .filterExpression("#lastSeen >= :since AND attribute_exists(#failureCode)")
+                        .expressionAttributeNames(Map.of(
+                                "#eventId", "event_id",
+                                "#entryKey", "entry_key",
+                                "#lastSeen", "last_seen",
+                                "#failureCode", "failure_code"))
+                        .expressionAttributeValues(Map.of(
+                                ":eventId", AttributeValue.fromN(eventId.toString()),
+                                ":prefix", AttributeValue.fromS(TICKET_PREFIX),
+                                ":since", AttributeValue.fromN(Long.toString(since))))
+                        .build())
+                .items()
+                .stream()
+                .map(ErrorStore::toErrorEntry);
+    }
+
+    /**
+     * Number of tickets of an event currently failing with each failure code.
+     */
+    public Map<String, Long> ticketCountsByFailureCode(final Integer eventId) {
+        return dynamoDbClient.queryPaginator(QueryRequest.builder()
+                        .tableName(errorTableName)
+                        .keyConditionExpression("#eventId = :eventId AND begins_with(#entryKey, :prefix)")
+                        .expressionAttributeNames(Map.of("#eventId", "event_id", "#entryKey", "entry_key"))
+                        .expressionAttributeValues(Map.of(
+                                ":eventId", AttributeValue.fromN(eventId.toString()),
+                                ":prefix", AttributeValue.fromS(CODE_PREFIX)))
+                        .build())
+                .items()
+                .stream()
+                .collect(Collectors.toMap(
+                        item -> item.get("failure_code").s(),
+                        // A set attribute cannot be empty, so it is gone once the last ticket is resolved.
+                        item -> Optional.ofNullable(item.get("ticket_ids"))
+                                .map(ticketIds -> (long) ticketIds.ns().size())
+                                .orElse(0L)));
+    }
+
+    private void upsertTicket(
+            final String messageId,
+            final BevyTicketErrorEntry errorEntry,
+            final long seenAt,
+            final Map<CodeKey, CodeDelta> codeDeltas) {
+        final Map<String, String> names = new HashMap<>(Map.of(
+                "#ticketId", "ticket_id",
+                "#failureCode", "failure_code",
+                "#firstSeen", "first_seen",
+                "#lastSeen", "last_seen",
+                "#occurrences", "occurrences",
+                "#lastMessageId", "last_message_id",
+                "#resolvedAt", "resolved_at"));
+        final Map<String, AttributeValue> values = new HashMap<>(Map.of(
+                ":ticketId", AttributeValue.fromN(errorEntry.ticketId().toString()),
+                ":failureCode", AttributeValue.fromS(errorEntry.failureCode()),
+                ":seenAt", AttributeValue.fromN(Long.toString(seenAt)),
+                ":one", AttributeValue.fromN("1"),
+                ":messageId", AttributeValue.fromS(messageId)));
+        final List<String> assignments = new ArrayList<>(List.of(
+                "#ticketId = :ticketId",
+                "#failureCode = :failureCode",
+                "#firstSeen = if_not_exists(#firstSeen, :seenAt)",
+                "#lastSeen = :seenAt",
+                "#lastMessageId = :messageId"));
+        final List<String> removals = new ArrayList<>(List.of("#resolvedAt"));
+        setOrRemove("#ticketNumber", "ticket_number", ":ticketNumber", errorEntry.ticketNumber(),
+                names, values, assignments, removals);
+        setOrRemove("#purchaserName", "purchaser_name", ":purchaserName", errorEntry.purchaserName(),
+                names, values, assignments, removals);
+
+        final Map<String, AttributeValue> previous;
+        try {
+            previous = dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(errorTableName)
+                    .key(key(errorEntry.eventId(), TICKET_PREFIX + errorEntry.ticketId()))
+                    .updateExpression("SET " + String.join(", ", assignments)
+                            + " REMOVE " + String.join(", ", removals)
+                            + " ADD #occurrences :one")
+                    .conditionExpression("attribute_not_exists(#lastMessageId) OR #lastMessageId <> :messageId")
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values)
+                    .returnValues(ReturnValue.ALL_OLD)
+                    .build()).attributes();
+        } catch (final ConditionalCheckFailedException exception) {
+            LOG.info("Message {} was already recorded for ticket {}", messageId, errorEntry.ticketId());
+            return;
+        }
+
+        final CodeDelta delta = codeDeltas.computeIfAbsent(
+                new CodeKey(errorEntry.eventId(), errorEntry.failureCode()), ignored -> new CodeDelta());
+        delta.addOccurrence();
+        final String previousFailureCode = Objects.isNull(previous) || !previous.containsKey("failure_code")
+                ? null
+                : previous.get("failure_code").s();
+        if (!errorEntry.failureCode().equals(previousFailureCode)) {
+            delta.addTicket(errorEntry.ticketId());
+            if (Objects.nonNull(previousFailureCode)) {
+                codeDeltas.computeIfAbsent(
+                                new CodeKey(errorEntry.eventId(), previousFailureCode), ignored -> new CodeDelta())
+                        .removeTicket(errorEntry.ticketId());
+            }
+        }
+    }
+
+    /**
+     * Aggregates are best effort: the ticket items are the source of truth, and a lost delta does not warrant
+     * processing the dead letters again.
+     */
+    private void updateCodes(final Map<CodeKey, CodeDelta> codeDeltas, final long seenAt) {
+        codeDeltas.forEach((codeKey, codeDelta) -> {
+            try {
+                updateCode(codeKey, codeDelta, seenAt);
+            } catch (final Exception exception) {
+                LOG.error("Unable to update {} aggregate for event {}",
+                        codeKey.failureCode(),
+                        codeKey.eventId(),
+                        exception);
+            }
+        });
+    }
+
+    private void updateCode(final CodeKey codeKey, final CodeDelta codeDelta, final long seenAt) {
+        final Map<String, String> names = new HashMap<>(Map.of("#failureCode", "failure_code"));
+        final Map<String, AttributeValue> values = new HashMap<>(Map.of(
+                ":failureCode", AttributeValue.fromS(codeKey.failureCode())));
+        final List<String> additions = new ArrayList<>();
+        String updateExpression = "SET #failureCode = :failureCode";
+        if (codeDelta.occurrences > 0) {
+            names.put("#firstSeen", "first_seen");
+            names.put("#lastSeen", "last_seen");
+            names.put("#occurrences", "occurrences");
+            values.put(":seenAt", AttributeValue.fromN(Long.toString(seenAt)));
+            values.put(":occurrences", AttributeValue.fromN(Long.toString(codeDelta.occurrences)));
+            updateExpression += ", #firstSeen = if_not_exists(#firstSeen, :seenAt), #lastSeen = :seenAt";
+            additions.add("#occurrences :occurrences");
+        }
+        if (!codeDelta.addedTicketIds.isEmpty()) {
+            names.put("#ticketIds", "ticket_ids");
+            values.put(":addedTicketIds", toNumberSet(codeDelta.addedTicketIds));
+            additions.add("#ticketIds :addedTicketIds");
+        }
+        if (!additions.isEmpty()) {
+            updateExpression += " ADD " + String.join(", ", additions);
+        }
+        // One update expression cannot both add to and delete from the same set, so removals then go separately.
+        final boolean separateRemoval = !codeDelta.addedTicketIds.isEmpty() && !codeDelta.removedTicketIds.isEmpty();
+        if (!codeDelta.removedTicketIds.isEmpty() && !separateRemoval) {
+            names.put("#ticketIds", "ticket_ids");
+            values.put(":removedTicketIds", toNumberSet(codeDelta.removedTicketIds));
+            updateExpression += " DELETE #ticketIds :removedTicketIds";
+        }
+        updateCode(codeKey, updateExpression, names, values);
+        if (separateRemoval) {
+            updateCode(codeKey, "DELETE #ticketIds :removedTicketIds",
+                    Map.of("#ticketIds", "ticket_ids"),
+                    Map.of(":removedTicketIds", toNumberSet(codeDelta.removedTicketIds)));
+        }
+    }
+
+    private void updateCode(
+            final CodeKey codeKey,
+            final String updateExpression,
+            final Map<String, String> names,
+            final Map<String, AttributeValue> values) {
+        dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                .tableName(errorTableName)
+                .key(key(codeKey.eventId(), CODE_PREFIX + codeKey.failureCode()))
+                .updateExpression(updateExpression)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .build());
+    }
+
+    private static AttributeValue toNumberSet(final Set<Integer> ticketIds) {
+        return AttributeValue.fromNs(ticketIds.stream()
+                .map(Object::toString)
+                .collect(Collectors.toList()));
+    }
+
+    private static void setOrRemove(
+            final String name,
+            final String attributeName,
+            final String valueName,
+            final String value,
+            final Map<String, String> names,
+            final Map<String, AttributeValue> values,
+            final List<String> assignments,
+            final List<String> removals) {
+        names.put(name, attributeName);
+        if (Objects.isNull(value)) {
+            removals.add(name);
+        } else {
+            values.put(valueName, AttributeValue.fromS(value));
+            assignments.add(name + " = " + valueName);
+        }
+    }
+
+    private static Map<String, AttributeValue> key(final Integer eventId, final String entryKey) {
+        return Map.of(
+                "event_id", AttributeValue.fromN(eventId.toString()),
+                "entry_key", AttributeValue.fromS(entryKey));
+    }
+
+    private static BevyTicketErrorEntry toErrorEntry(final Map<String, AttributeValue> item) {
+        return new BevyTicketErrorEntry(
+                Integer.parseInt(item.get("event_id").n()),
+                Integer.parseInt(item.get("ticket_id").n()),
+                Optional.ofNullable(item.get("ticket_number")).map(AttributeValue::s).orElse(null),
+                Optional.ofNullable(item.get("purchaser_name")).map(AttributeValue::s).orElse(null),
+                item.get("failure_code").s());
+    }
+
+    private record CodeKey(Integer eventId, String failureCode) {
+    }
+
+    private static final class CodeDelta {
+        private final Set<Integer> addedTicketIds = new HashSet<>();
+        private final Set<Integer> removedTicketIds = new HashSet<>();
+        private long occurrences;
+
+        private synchronized void addOccurrence() {
+            occurrences++;
+        }
+
+        private synchronized void addTicket(final Integer ticketId) {
+            removedTicketIds.remove(ticketId);
+            addedTicketIds.add(ticketId);
+        }
+
+        private synchronized void removeTicket(final Integer ticketId) {
+            addedTicketIds.remove(ticketId);
+            removedTicketIds.add(ticketId);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.seattleoba.lambda.dynamodb;
+
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Items found by a batched read, keyed by primary key, plus the keys that could not be read and the number of
+ * requests that were throttled along the way.
+ */
+public record BatchGetOutcome<T>(Map<Key, T> items, Collection<Key> unprocessedKeys, int throttleEvents) {
+}
@@ -0,0 +1,10 @@
+package org.seattleoba.lambda.dynamodb;
+
+import java.util.Collection;
+
+/**
+ * Items that could not be written by a batched write after all retries were exhausted, and the number of requests
+ * that were throttled along the way.
+ */
+public record BatchWriteOutcome<T>(Collection<T> unprocessedItems, int throttleEvents) {
+}
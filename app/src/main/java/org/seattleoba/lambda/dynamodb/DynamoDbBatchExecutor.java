@@ -0,0 +1,121 @@
+package org.seattleoba.lambda.dynamodb;
+
+import com.google.common.collect.Lists;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.lambda.util.ExponentialBackoff;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetResultPage;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs BatchGetItem and BatchWriteItem against a single table, splitting requests into chunks the service
+ * accepts and retrying unprocessed keys and items with backoff. A response with unprocessed entries or a throttling
+ * error is counted as a throttle event.
+ */
+public class DynamoDbBatchExecutor {
+    private static final Logger LOG = LogManager.getLogger(DynamoDbBatchExecutor.class);
+    public static final int MAX_BATCH_GET_SIZE = 100;
+    public static final int MAX_BATCH_WRITE_SIZE = 25;
+    private static final int MAX_ATTEMPTS = 8;
+
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final ExponentialBackoff backoff = new ExponentialBackoff(50L, 2_000L);
+
+    @Inject
+    public DynamoDbBatchExecutor(final DynamoDbEnhancedClient enhancedClient) {
+        this.enhancedClient = enhancedClient;
+    }
+
+    public <T> BatchGetOutcome<T> getItems(final DynamoDbTable<T> table, final Collection<Key> keys) {
+        final Map<Key, T> items = new HashMap<>();
+        final List<Key> unprocessedKeys = new ArrayList<>();
+        int throttleEvents = 0;
+        for (final List<Key> chunk : Lists.partition(new ArrayList<>(keys), MAX_BATCH_GET_SIZE)) {
+            List<Key> pending = chunk;
+            int attempt = 0;
+            while (!pending.isEmpty() && attempt < MAX_ATTEMPTS) {
+                if (attempt > 0) {
+                    backoff.pause(attempt);
+                }
+                attempt++;
+                final ReadBatch.Builder<T> readBatch = ReadBatch.builder(table.tableSchema().itemType().rawClass())
+                        .mappedTableResource(table);
+                pending.forEach(readBatch::addGetItem);
+                try {
+                    // Only the first page is consumed so that unprocessed keys are retried here with backoff
+                    // instead of immediately by the page iterator.
+                    final BatchGetResultPage page = enhancedClient.batchGetItem(BatchGetItemEnhancedRequest.builder()
+                                    .readBatches(readBatch.build())
+                                    .build())
+                            .iterator()
+                            .next();
+                    page.resultsForTable(table).forEach(item -> items.put(table.keyFrom(item), item));
+                    pending = page.unprocessedKeysForTable(table);
+                    if (!pending.isEmpty()) {
+                        throttleEvents++;
+                    }
+                } catch (final Exception exception) {
+                    if (isThrottlingException(exception)) {
+                        throttleEvents++;
+                    }
+                    LOG.error("BatchGetItem failed for {} keys on table {}", pending.size(), table.tableName(), exception);
+                }
+            }
+            unprocessedKeys.addAll(pending);
+        }
+        return new BatchGetOutcome<>(items, unprocessedKeys, throttleEvents);
+    }
+
+    public <T> BatchWriteOutcome<T> putItems(final DynamoDbTable<T> table, final Collection<T> items) {
+        final List<T> unprocessedItems = new ArrayList<>();
+        int throttleEvents = 0;
+        for (final List<T> chunk : Lists.partition(new ArrayList<>(items), MAX_BATCH_WRITE_SIZE)) {
+            List<T> pending = chunk;
+            int attempt = 0;
+            while (!pending.isEmpty() && attempt < MAX_ATTEMPTS) {
+                if (attempt > 0) {
+                    backoff.pause(attempt);
+                }
+                attempt++;
+                final WriteBatch.Builder<T> writeBatch = WriteBatch.builder(table.tableSchema().itemType().rawClass())
+                        .mappedTableResource(table);
+                pending.forEach(writeBatch::addPutItem);
+                try {
+                    final BatchWriteResult result = enhancedClient.batchWriteItem(BatchWriteItemEnhancedRequest.builder()
+                            .writeBatches(writeBatch.build())
+                            .build());
+                    pending = result.unprocessedPutItemsForTable(table);
+                    if (!pending.isEmpty()) {
+                        throttleEvents++;
+                    }
+                } catch (final Exception exception) {
+                    if (isThrottlingException(exception)) {
+                        throttleEvents++;
+                    }
+                    LOG.error("BatchWriteItem failed for {} items on table {}", pending.size(), table.tableName(), exception);
+                }
+            }
+            unprocessedItems.addAll(pending);
+        }
+        return new BatchWriteOutcome<>(unprocessedItems, throttleEvents);
+    }
+
+    private static boolean isThrottlingException(final Exception exception) {
+        return exception instanceof AwsServiceException serviceException && serviceException.isThrottlingException();
+    }
+}
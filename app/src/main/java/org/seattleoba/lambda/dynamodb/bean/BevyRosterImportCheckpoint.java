@@ -0,0 +1,184 @@
+package org.seattleoba.lambda.dynamodb.bean;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+
+/**
+ * Progress of a streaming roster import, saved when an invocation runs low on time so that the next invocation
+ * can resume from {@link #getByteOffset()}.
+ */
+@DynamoDbBean
+public class BevyRosterImportCheckpoint {
+    private String importId;
+    private Integer eventId;
+    private String bucketName;
+    private String objectKey;
+    private String eTag;
+    private Long objectSize;
+    private String header;
+    private Long byteOffset;
+    private Long rowNumber;
+    private Integer inserted;
+    private Integer updated;
+    private Integer unchanged;
+    private Integer failed;
+    private Integer duplicates;
+    private Boolean complete;
+    private Long updatedAt;
+    private Long expiresAt;
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("import_id")
+    public String getImportId() {
+        return importId;
+    }
+
+    public void setImportId(final String importId) {
+        this.importId = importId;
+    }
+
+    @DynamoDbAttribute("event_id")
+    public Integer getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(final Integer eventId) {
+        this.eventId = eventId;
+    }
+
+    @DynamoDbAttribute("bucket_name")
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public void setBucketName(final String bucketName) {
+        this.bucketName = bucketName;
+    }
+
+    @DynamoDbAttribute("object_key")
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    public void setObjectKey(final String objectKey) {
+        this.objectKey = objectKey;
+    }
+
+    @DynamoDbAttribute("e_tag")
+    public String getETag() {
+        return eTag;
+    }
+
+    public void setETag(final String eTag) {
+        this.eTag = eTag;
+    }
+
+    @DynamoDbAttribute("object_size")
+    public Long getObjectSize() {
+        return objectSize;
+    }
+
+    public void setObjectSize(final Long objectSize) {
+        this.objectSize = objectSize;
+    }
+
+    @DynamoDbAttribute("header")
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(final String header) {
+        this.header = header;
+    }
+
+    @DynamoDbAttribute("byte_offset")
+    public Long getByteOffset() {
+        return byteOffset;
+    }
+
+    public void setByteOffset(final Long byteOffset) {
+        this.byteOffset = byteOffset;
+    }
+
+    @DynamoDbAttribute("row_number")
+    public Long getRowNumber() {
+        return rowNumber;
+    }
+
+    public void setRowNumber(final Long rowNumber) {
+        this.rowNumber = rowNumber;
+    }
+
+    @DynamoDbAttribute("inserted")
+    public Integer getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(final Integer inserted) {
+        this.inserted = inserted;
+    }
+
+    @DynamoDbAttribute("updated")
+    public Integer getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(final Integer updated) {
+        this.updated = updated;
+    }
+
+    @DynamoDbAttribute("unchanged")
+    public Integer getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(final Integer unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    @DynamoDbAttribute("failed")
+    public Integer getFailed() {
+        return failed;
+    }
+
+    public void setFailed(final Integer failed) {
+        this.failed = failed;
+    }
+
+    @DynamoDbAttribute("duplicates")
+    public Integer getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(final Integer duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    @DynamoDbAttribute("complete")
+    public Boolean getComplete() {
+        return complete;
+    }
+
+    public void setComplete(final Boolean complete) {
+        this.complete = complete;
+    }
+
+    @DynamoDbAttribute("updated_at")
+    public Long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(final Long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @DynamoDbAttribute("expires_at")
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(final Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
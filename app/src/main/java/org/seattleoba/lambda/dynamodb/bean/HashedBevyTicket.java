@@ -0,0 +1,23 @@
+package org.seattleoba.lambda.dynamodb.bean;
+
+import org.seattleoba.data.dynamodb.bean.BevyTicket;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+
+/**
+ * A {@link BevyTicket} stored together with a hash of its imported values, so that a re-import can tell whether
+ * a roster row changed without comparing every attribute.
+ */
+@DynamoDbBean
+public class HashedBevyTicket extends BevyTicket {
+    private String contentHash;
+
+    @DynamoDbAttribute("content_hash")
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(final String contentHash) {
+        this.contentHash = contentHash;
+    }
+}
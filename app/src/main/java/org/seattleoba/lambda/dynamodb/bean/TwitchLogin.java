@@ -0,0 +1,113 @@
+package org.seattleoba.lambda.dynamodb.bean;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+
+/**
+ * A Twitch account keyed by lower-case login, used to resolve purchaser names without calling Helix.
+ */
+@DynamoDbBean
+public class TwitchLogin {
+    private String login;
+    private Integer twitchId;
+    private String userName;
+    private String displayName;
+    private String userType;
+    private String broadcasterType;
+    private String description;
+    private Long createdAt;
+    private Long cachedAt;
+    private Long expiresAt;
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("login")
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(final String login) {
+        this.login = login;
+    }
+
+    @DynamoDbAttribute("twitch_id")
+    public Integer getTwitchId() {
+        return twitchId;
+    }
+
+    public void setTwitchId(final Integer twitchId) {
+        this.twitchId = twitchId;
+    }
+
+    @DynamoDbAttribute("user_name")
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(final String userName) {
+        this.userName = userName;
+    }
+
+    @DynamoDbAttribute("display_name")
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(final String displayName) {
+        this.displayName = displayName;
+    }
+
+    @DynamoDbAttribute("user_type")
+    public String getUserType() {
+        return userType;
+    }
+
+    public void setUserType(final String userType) {
+        this.userType = userType;
+    }
+
+    @DynamoDbAttribute("broadcaster_type")
+    public String getBroadcasterType() {
+        return broadcasterType;
+    }
+
+    public void setBroadcasterType(final String broadcasterType) {
+        this.broadcasterType = broadcasterType;
+    }
+
+    @DynamoDbAttribute("description")
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(final String description) {
+        this.description = description;
+    }
+
+    @DynamoDbAttribute("created_at")
+    public Long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(final Long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @DynamoDbAttribute("cached_at")
+    public Long getCachedAt() {
+        return cachedAt;
+    }
+
+    public void setCachedAt(final Long cachedAt) {
+        this.cachedAt = cachedAt;
+    }
+
+    @DynamoDbAttribute("expires_at")
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(final Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,149 @@
+package org.seattleoba.lambda.importer;
+
+import org.seattleoba.data.parser.BevyTicketCsvParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Reads a Bevy roster CSV from a stream a few rows at a time. Record boundaries are found on the raw bytes,
+ * ignoring line breaks inside quoted fields, and each batch of records is handed to {@link BevyTicketCsvParser}
+ * together with the header row. Only one batch is held in memory at a time.
+ */
+public class BevyTicketCsvReader {
+    private static final int QUOTE = '"';
+    private static final int LINE_FEED = '\n';
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+    private final BevyTicketCsvParser bevyTicketCsvParser = new BevyTicketCsvParser();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPosition;
+    private int bufferLimit;
+    private final byte[] header;
+    private final long limit;
+    private long position;
+    private long rowNumber;
+    private boolean endOfStream;
+    private boolean blankRecord;
+
+    /**
+     * Creates a reader positioned at the start of a roster file. The first record is read as the header.
+     */
+    public BevyTicketCsvReader(final InputStream inputStream) throws IOException {
+        this.inputStream = inputStream;
+        this.position = 0L;
+        this.rowNumber = 0L;
+        this.limit = Long.MAX_VALUE;
+        this.header = readRecord() ? record.toByteArray() : new byte[0];
+    }
+
+    /**
+     * Creates a reader for a stream that starts at {@code position} in a roster file, typically the body of a ranged
+     * GET resuming an earlier import. The header row saved from the start of the file is used to parse every batch.
+     */
+    public BevyTicketCsvReader(
+            final InputStream inputStream,
+            final byte[] header,
+            final long position,
+            final long rowNumber) {
+        this(inputStream, header, position, rowNumber, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a reader for one byte range of a roster file. Records that start at or after {@code limit} belong to
+     * the next range and are not returned.
+     */
+    public BevyTicketCsvReader(
+            final InputStream inputStream,
+            final byte[] header,
+            final long position,
+            final long rowNumber,
+            final long limit) {
+        this.inputStream = inputStream;
+        this.header = header;
+        this.position = position;
+        this.rowNumber = rowNumber;
+        this.limit = limit;
+    }
+
+    public byte[] header() {
+        return header;
+    }
+
+    /**
+     * Byte offset in the file just after the last record returned by {@link #nextBatch(int)}.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Number of data rows returned so far, not counting the header.
+     */
+    public long rowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * Returns up to {@code maxRows} parsed rows, or an empty list once the stream is exhausted.
+     */
+    public List<org.seattleoba.data.model.BevyTicket> nextBatch(final int maxRows) throws IOException {
+        batch.reset();
+        batch.write(header);
+        int rows = 0;
+        while (rows < maxRows && position < limit && readRecord()) {
+            if (blankRecord) {
+                continue;
+            }
+            record.writeTo(batch);
+            rows++;
+        }
+        if (rows == 0) {
+            return List.of();
+        }
+        rowNumber += rows;
+        return bevyTicketCsvParser.parseCsvFile(new ByteArrayInputStream(batch.toByteArray()));
+    }
+
+    private boolean readRecord() throws IOException {
+        record.reset();
+        if (endOfStream) {
+            return false;
+        }
+        boolean quoted = false;
+        blankRecord = true;
+        while (bufferPosition < bufferLimit || fillBuffer()) {
+            final int value = buffer[bufferPosition++];
+            record.write(value);
+            position++;
+            if (value == QUOTE) {
+                quoted = !quoted;
+            } else if (value == LINE_FEED && !quoted) {
+                return true;
+            }
+            if (!Character.isWhitespace(value)) {
+                blankRecord = false;
+            }
+        }
+        endOfStream = true;
+        if (record.size() == 0) {
+            return false;
+        }
+        // The last record may not end with a line break; add one so that it can be followed by another batch.
+        record.write(LINE_FEED);
+        return true;
+    }
+
+    private boolean fillBuffer() throws IOException {
+        final int read = inputStream.read(buffer, 0, buffer.length);
+        bufferPosition = 0;
+        bufferLimit = Math.max(read, 0);
+        return read > 0;
+    }
+}
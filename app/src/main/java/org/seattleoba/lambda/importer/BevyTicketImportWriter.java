@@ -0,0 +1,187 @@
+package org.seattleoba.lambda.importer;
+
+import com.google.common.collect.Lists;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.lambda.dynamodb.BatchGetOutcome;
+import org.seattleoba.lambda.dynamodb.BatchWriteOutcome;
+import org.seattleoba.lambda.dynamodb.DynamoDbBatchExecutor;
+import org.seattleoba.lambda.dynamodb.bean.HashedBevyTicket;
+import org.seattleoba.lambda.util.ExponentialBackoff;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Writes roster tickets to the Bevy ticket table, skipping tickets whose stored content hash matches the imported row.
+ */
+public class BevyTicketImportWriter {
+    private static final Logger LOG = LogManager.getLogger(BevyTicketImportWriter.class);
+    private static final String CONTENT_HASH_FIELD_NAME = "content_hash";
+    private static final int MAX_UPDATE_ATTEMPTS = 8;
+
+    private final DynamoDbBatchExecutor batchExecutor;
+    private final DynamoDbTable<HashedBevyTicket> bevyTicketDynamoDbTable;
+    private final int updateConcurrency;
+    private final ExponentialBackoff backoff = new ExponentialBackoff(50L, 2_000L);
+
+    @Inject
+    public BevyTicketImportWriter(
+            final DynamoDbBatchExecutor batchExecutor,
+            final DynamoDbTable<HashedBevyTicket> bevyTicketDynamoDbTable,
+            @Named("importUpdateConcurrency") final int updateConcurrency) {
+        this.batchExecutor = batchExecutor;
+        this.bevyTicketDynamoDbTable = bevyTicketDynamoDbTable;
+        this.updateConcurrency = updateConcurrency;
+    }
+
+    public void write(final Collection<HashedBevyTicket> tickets, final ImportCounters counters) {
+        // BatchGetItem and BatchWriteItem reject duplicate keys, so the last row for a ticket wins.
+        final Map<Key, HashedBevyTicket> ticketsByKey = new LinkedHashMap<>();
+        tickets.forEach(ticket -> ticketsByKey.put(bevyTicketDynamoDbTable.keyFrom(ticket), ticket));
+        final int duplicates = tickets.size() - ticketsByKey.size();
+        if (duplicates > 0) {
+            LOG.warn("Skipping {} rows that repeat a ticket later in the same chunk", duplicates);
+            counters.addDuplicates(duplicates);
+        }
+
+        for (final List<Key> keys : Lists.partition(new ArrayList<>(ticketsByKey.keySet()),
+                DynamoDbBatchExecutor.MAX_BATCH_GET_SIZE)) {
+            final BatchGetOutcome<HashedBevyTicket> existingItems = batchExecutor.getItems(bevyTicketDynamoDbTable, keys);
+            if (!existingItems.unprocessedKeys().isEmpty()) {
+                LOG.error("Unable to read {} existing tickets, skipping them", existingItems.unprocessedKeys().size());
+                counters.addFailed(existingItems.unprocessedKeys().size());
+            }
+            counters.addThrottleEvents(existingItems.throttleEvents());
+            final Set<Key> unreadKeys = Set.copyOf(existingItems.unprocessedKeys());
+
+            final List<HashedBevyTicket> inserts = new ArrayList<>();
+            final List<HashedBevyTicket> updates = new ArrayList<>();
+            for (final Key key : keys) {
+                if (unreadKeys.contains(key)) {
+                    continue;
+                }
+                final HashedBevyTicket ticket = ticketsByKey.get(key);
+                final HashedBevyTicket existingItem = existingItems.items().get(key);
+                if (Objects.isNull(existingItem)) {
+                    inserts.add(ticket);
+                } else if (!isUnchanged(existingItem, ticket)) {
+                    updates.add(ticket);
+                } else {
+                    counters.addUnchanged(1);
+                }
+            }
+
+            final BatchWriteOutcome<HashedBevyTicket> outcome = batchExecutor.putItems(bevyTicketDynamoDbTable, inserts);
+            counters.addThrottleEvents(outcome.throttleEvents());
+            final Set<Key> failedKeys = outcome.unprocessedItems().stream()
+                    .map(bevyTicketDynamoDbTable::keyFrom)
+                    .collect(Collectors.toSet());
+            if (!failedKeys.isEmpty()) {
+                LOG.error("Unable to write {} tickets after retries", failedKeys.size());
+            }
+            counters.addFailed(failedKeys.size());
+            counters.addInserted((int) inserts.stream()
+                    .filter(ticket -> !failedKeys.contains(bevyTicketDynamoDbTable.keyFrom(ticket)))
+                    .count());
+            writeUpdates(updates, counters);
+        }
+    }
+
+    private void writeUpdates(final List<HashedBevyTicket> updates, final ImportCounters counters) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        final Semaphore permits = new Semaphore(updateConcurrency);
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (final HashedBevyTicket ticket : updates) {
+                tasks.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        writeUpdate(ticket, counters);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        } catch (final ExecutionException exception) {
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    private void writeUpdate(final HashedBevyTicket ticket, final ImportCounters counters) {
+        final PutItemEnhancedRequest<HashedBevyTicket> request = PutItemEnhancedRequest.builder(HashedBevyTicket.class)
+                .item(ticket)
+                .conditionExpression(Expression.builder()
+                        .expression("attribute_not_exists(#contentHash) OR #contentHash <> :contentHash")
+                        .putExpressionName("#contentHash", CONTENT_HASH_FIELD_NAME)
+                        .putExpressionValue(":contentHash", AttributeValue.fromS(ticket.getContentHash()))
+                        .build())
+                .build();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                bevyTicketDynamoDbTable.putItem(request);
+                counters.addUpdated(1);
+                return;
+            } catch (final ConditionalCheckFailedException exception) {
+                counters.addUnchanged(1);
+                return;
+            } catch (final AwsServiceException exception) {
+                if (exception.isThrottlingException()) {
+                    counters.addThrottleEvents(1);
+                }
+                if (!exception.isThrottlingException() || attempt >= MAX_UPDATE_ATTEMPTS) {
+                    logUpdateFailure(ticket, exception);
+                    counters.addFailed(1);
+                    return;
+                }
+                backoff.pause(attempt);
+            } catch (final Exception exception) {
+                logUpdateFailure(ticket, exception);
+                counters.addFailed(1);
+                return;
+            }
+        }
+    }
+
+    private static void logUpdateFailure(final HashedBevyTicket ticket, final Exception exception) {
+        LOG.error("Unable to update ticket {} for event {}", ticket.getTicketId(), ticket.getEventId(), exception);
+    }
+
+    private static boolean isUnchanged(final HashedBevyTicket existingItem, final HashedBevyTicket ticket) {
+        if (Objects.nonNull(existingItem.getContentHash())) {
+            return existingItem.getContentHash().equals(ticket.getContentHash());
+        }
+        // Items written before content hashes were stored are compared by value, and are not rewritten just to
+        // add a hash.
+        return BevyTicketMapper.hasSameValues(existingItem, ticket);
+    }
+}
@@ -0,0 +1,97 @@
+package org.seattleoba.lambda.importer;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.seattleoba.data.dynamodb.bean.BevyTicket;
+import org.seattleoba.data.util.BevyDateUtil;
+import org.seattleoba.data.util.BevyTicketNumberUtil;
+import org.seattleoba.lambda.dynamodb.bean.HashedBevyTicket;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Converts parsed Bevy roster rows into {@link BevyTicket} items, hashes their contents and compares items by value.
+ */
+public final class BevyTicketMapper {
+    private BevyTicketMapper() {
+    }
+
+    public static HashedBevyTicket toBevyTicket(
+            final Integer eventId,
+            final org.seattleoba.data.model.BevyTicket ticket) {
+        final HashedBevyTicket bevyTicket = new HashedBevyTicket();
+        bevyTicket.setAccessCode(ticket.accessCode());
+        if (Objects.nonNull(ticket.checkInDate()) && !ticket.checkInDate().isEmpty()) {
+            bevyTicket.setCheckInDate(BevyDateUtil.toUnixEpochInSeconds(ticket.checkInDate()));
+        }
+        bevyTicket.setEventId(eventId);
+        bevyTicket.setId(BevyTicketNumberUtil.toInteger(ticket.ticketNumber()));
+        bevyTicket.setTicketId(ticket.ticketNumber());
+        bevyTicket.setOrderId(ticket.orderNumber());
+        if (Objects.nonNull(ticket.price()) && !ticket.price().isEmpty()) {
+            bevyTicket.setPrice(new BigDecimal(ticket.price()));
+        } else {
+            bevyTicket.setPrice(new BigDecimal(0));
+        }
+        if (Objects.nonNull(ticket.purchaseDate()) && !ticket.purchaseDate().isEmpty()) {
+            bevyTicket.setPurchaseDate(BevyDateUtil.toUnixEpochInSeconds(ticket.purchaseDate()));
+        }
+        bevyTicket.setPurchaserName(ticket.purchaserName());
+        bevyTicket.setTicketType(ticket.ticketType());
+        bevyTicket.setContentHash(contentHash(bevyTicket));
+        return bevyTicket;
+    }
+
+    /**
+     * Hash of every imported attribute. Prices are normalized first so that 5 and 5.00 hash the same.
+     */
+    public static String contentHash(final BevyTicket ticket) {
+        final Hasher hasher = Hashing.murmur3_128().newHasher();
+        putValue(hasher, ticket.getEventId());
+        putValue(hasher, ticket.getId());
+        putValue(hasher, ticket.getTicketId());
+        putValue(hasher, ticket.getAccessCode());
+        putValue(hasher, ticket.getCheckInDate());
+        putValue(hasher, ticket.getOrderId());
+        putValue(hasher, Objects.isNull(ticket.getPrice()) ? null : ticket.getPrice().stripTrailingZeros().toPlainString());
+        putValue(hasher, ticket.getPurchaseDate());
+        putValue(hasher, ticket.getPurchaserName());
+        putValue(hasher, ticket.getTicketType());
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Returns true when both items hold the same attribute values. Prices are compared numerically because
+     * DynamoDB does not preserve the scale of stored numbers.
+     */
+    public static boolean hasSameValues(final BevyTicket existing, final BevyTicket ticket) {
+        return Objects.equals(existing.getEventId(), ticket.getEventId())
+                && Objects.equals(existing.getId(), ticket.getId())
+                && Objects.equals(existing.getTicketId(), ticket.getTicketId())
+                && Objects.equals(existing.getAccessCode(), ticket.getAccessCode())
+                && Objects.equals(existing.getCheckInDate(), ticket.getCheckInDate())
+                && Objects.equals(existing.getOrderId(), ticket.getOrderId())
+                && samePrice(existing.getPrice(), ticket.getPrice())
+                && Objects.equals(existing.getPurchaseDate(), ticket.getPurchaseDate())
+                && Objects.equals(existing.getPurchaserName(), ticket.getPurchaserName())
+                && Objects.equals(existing.getTicketType(), ticket.getTicketType());
+    }
+
+    private static void putValue(final Hasher hasher, final Object value) {
+        // Mark nulls separately so that a missing value and an empty string hash differently.
+        hasher.putBoolean(Objects.isNull(value));
+        if (Objects.nonNull(value)) {
+            hasher.putString(value.toString(), StandardCharsets.UTF_8);
+        }
+        hasher.putByte((byte) 0);
+    }
+
+    private static boolean samePrice(final BigDecimal existing, final BigDecimal price) {
+        if (Objects.isNull(existing) || Objects.isNull(price)) {
+            return Objects.equals(existing, price);
+        }
+        return existing.compareTo(price) == 0;
+    }
+}
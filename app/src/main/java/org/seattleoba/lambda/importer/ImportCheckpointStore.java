@@ -0,0 +1,79 @@
+package org.seattleoba.lambda.importer;
+
+import org.seattleoba.lambda.dynamodb.bean.BevyRosterImportCheckpoint;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Loads and saves roster import checkpoints, and records which roster files have been fully imported so that an
+ * unchanged file can be skipped. Items expire through the table's TTL attribute once they are no longer needed.
+ */
+public class ImportCheckpointStore {
+    private static final Duration CHECKPOINT_RETENTION = Duration.ofDays(7);
+
+    private final DynamoDbTable<BevyRosterImportCheckpoint> checkpointTable;
+
+    @Inject
+    public ImportCheckpointStore(final DynamoDbTable<BevyRosterImportCheckpoint> checkpointTable) {
+        this.checkpointTable = checkpointTable;
+    }
+
+    public Optional<BevyRosterImportCheckpoint> load(final String importId) {
+        return Optional.ofNullable(checkpointTable.getItem(Key.builder()
+                .partitionValue(importId)
+                .build()));
+    }
+
+    /**
+     * Returns true when the roster with this ETag was already imported for the event without failures.
+     */
+    public boolean isImported(final Integer eventId, final String eTag) {
+        return load(rosterId(eventId, eTag))
+                .map(checkpoint -> Boolean.TRUE.equals(checkpoint.getComplete()))
+                .orElse(false);
+    }
+
+    public void markImported(
+            final Integer eventId,
+            final String bucketName,
+            final String objectKey,
+            final String eTag,
+            final ImportCounters counters) {
+        final BevyRosterImportCheckpoint checkpoint = new BevyRosterImportCheckpoint();
+        checkpoint.setImportId(rosterId(eventId, eTag));
+        checkpoint.setEventId(eventId);
+        checkpoint.setBucketName(bucketName);
+        checkpoint.setObjectKey(objectKey);
+        checkpoint.setETag(eTag);
+        save(checkpoint, 0L, 0L, counters, true);
+    }
+
+    public void save(
+            final BevyRosterImportCheckpoint checkpoint,
+            final long byteOffset,
+            final long rowNumber,
+            final ImportCounters counters,
+            final boolean complete) {
+        final Instant now = Instant.now();
+        checkpoint.setByteOffset(byteOffset);
+        checkpoint.setRowNumber(rowNumber);
+        checkpoint.setInserted(counters.inserted());
+        checkpoint.setUpdated(counters.updated());
+        checkpoint.setUnchanged(counters.unchanged());
+        checkpoint.setFailed(counters.failed());
+        checkpoint.setDuplicates(counters.duplicates());
+        checkpoint.setComplete(complete);
+        checkpoint.setUpdatedAt(now.toEpochMilli());
+        checkpoint.setExpiresAt(now.plus(CHECKPOINT_RETENTION).getEpochSecond());
+        checkpointTable.putItem(checkpoint);
+    }
+
+    private static String rosterId(final Integer eventId, final String eTag) {
+        return String.format("roster#%d#%s", eventId, eTag.replace("\"", ""));
+    }
+}
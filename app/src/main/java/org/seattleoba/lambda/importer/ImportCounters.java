@@ -0,0 +1,160 @@
+package org.seattleoba.lambda.importer;
+
+import org.seattleoba.lambda.metrics.MetricUnit;
+import org.seattleoba.lambda.metrics.Metrics;
+import org.seattleoba.lambda.model.BevyRosterImportResult;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals for a roster import. Safe to update from several threads.
+ */
+public class ImportCounters {
+    private final AtomicInteger inserted = new AtomicInteger();
+    private final AtomicInteger updated = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicInteger throttleEvents = new AtomicInteger();
+    private final AtomicLong parseMillis = new AtomicLong();
+    private final AtomicLong writeMillis = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private final int initialInserted;
+    private final int initialUpdated;
+    private final int initialUnchanged;
+    private final int initialFailed;
+    private final int initialDuplicates;
+    private final int initialRows;
+
+    public ImportCounters() {
+        this(0, 0, 0, 0, 0);
+    }
+
+    public ImportCounters(
+            final int inserted,
+            final int updated,
+            final int unchanged,
+            final int failed,
+            final int duplicates) {
+        this.inserted.set(inserted);
+        this.updated.set(updated);
+        this.unchanged.set(unchanged);
+        this.failed.set(failed);
+        this.duplicates.set(duplicates);
+        this.initialInserted = inserted;
+        this.initialUpdated = updated;
+        this.initialUnchanged = unchanged;
+        this.initialFailed = failed;
+        this.initialDuplicates = duplicates;
+        this.initialRows = inserted + updated + unchanged + failed + duplicates;
+    }
+
+    public void addInserted(final int count) {
+        inserted.addAndGet(count);
+    }
+
+    public void addUpdated(final int count) {
+        updated.addAndGet(count);
+    }
+
+    public void addUnchanged(final int count) {
+        unchanged.addAndGet(count);
+    }
+
+    public void addFailed(final int count) {
+        failed.addAndGet(count);
+    }
+
+    /**
+     * Counts rows that were not written because a later row in the same chunk has the same ticket key.
+     */
+    public void addDuplicates(final int count) {
+        duplicates.addAndGet(count);
+    }
+
+    public void addThrottleEvents(final int count) {
+        throttleEvents.addAndGet(count);
+    }
+
+    public void addParseMillis(final long millis) {
+        parseMillis.addAndGet(millis);
+    }
+
+    public void addWriteMillis(final long millis) {
+        writeMillis.addAndGet(millis);
+    }
+
+    public int inserted() {
+        return inserted.get();
+    }
+
+    public int updated() {
+        return updated.get();
+    }
+
+    public int unchanged() {
+        return unchanged.get();
+    }
+
+    public int failed() {
+        return failed.get();
+    }
+
+    public int duplicates() {
+        return duplicates.get();
+    }
+
+    public int throttleEvents() {
+        return throttleEvents.get();
+    }
+
+    /**
+     * Rows processed per second by this invocation. Rows counted by an earlier invocation of a resumed import are
+     * excluded.
+     */
+    public double rowsPerSecond() {
+        final long elapsedNanos = Math.max(1L, System.nanoTime() - startNanos);
+        final int rows = inserted.get() + updated.get() + unchanged.get() + failed.get() + duplicates.get()
+                - initialRows;
+        return rows * 1_000_000_000d / elapsedNanos;
+    }
+
+    /**
+     * Publishes what this invocation did for an event. Parse and write times are summed over every parser and writer
+     * thread, so in parallel mode they can exceed the wall-clock time of the import.
+     */
+    public void publish(final Metrics metrics, final Integer eventId) {
+        metrics.record("ParseTime", eventId, MetricUnit.MILLISECONDS, parseMillis.get());
+        metrics.record("WriteTime", eventId, MetricUnit.MILLISECONDS, writeMillis.get());
+        metrics.count("Inserted", eventId, inserted.get() - initialInserted);
+        metrics.count("Updated", eventId, updated.get() - initialUpdated);
+        metrics.count("Unchanged", eventId, unchanged.get() - initialUnchanged);
+        metrics.count("Failed", eventId, failed.get() - initialFailed);
+        metrics.count("Duplicates", eventId, duplicates.get() - initialDuplicates);
+        metrics.count("ThrottleEvents", eventId, throttleEvents.get());
+        metrics.record("RowsPerSecond", eventId, MetricUnit.COUNT_PER_SECOND, rowsPerSecond());
+    }
+
+    public BevyRosterImportResult toResult(final String continuationToken) {
+        return toResult(false, continuationToken);
+    }
+
+    public BevyRosterImportResult toRosterUnchangedResult() {
+        return toResult(true, null);
+    }
+
+    private BevyRosterImportResult toResult(final boolean rosterUnchanged, final String continuationToken) {
+        return new BevyRosterImportResult(
+                inserted.get() + updated.get(),
+                inserted.get(),
+                updated.get(),
+                unchanged.get(),
+                failed.get(),
+                duplicates.get(),
+                throttleEvents.get(),
+                rowsPerSecond(),
+                rosterUnchanged,
+                continuationToken);
+    }
+}
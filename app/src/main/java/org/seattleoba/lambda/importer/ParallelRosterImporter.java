@@ -0,0 +1,218 @@
+package org.seattleoba.lambda.importer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.lambda.dynamodb.bean.HashedBevyTicket;
+import org.seattleoba.lambda.model.BevyRosterImportRequest;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports a roster by parsing line-aligned byte ranges of the file concurrently, feeding a pool of writers through a
+ * bounded queue. Assumes that quoted fields do not contain line breaks, which holds for Bevy exports.
+ */
+public class ParallelRosterImporter {
+    private static final Logger LOG = LogManager.getLogger(ParallelRosterImporter.class);
+    private static final long MIN_RANGE_SIZE = 1024L * 1024L;
+    private static final long HEADER_RANGE_SIZE = 64L * 1024L;
+    private static final int BATCH_SIZE = 100;
+    private static final int LINE_FEED = '\n';
+    private static final HashedBevyTicket END_OF_ROWS = new HashedBevyTicket();
+
+    private final S3Client s3Client;
+    private final BevyTicketImportWriter bevyTicketImportWriter;
+    private final int parserThreads;
+    private final int writerThreads;
+    private final int queueCapacity;
+
+    @Inject
+    public ParallelRosterImporter(
+            final S3Client s3Client,
+            final BevyTicketImportWriter bevyTicketImportWriter,
+            @Named("importParserThreads") final int parserThreads,
+            @Named("importWriterThreads") final int writerThreads,
+            @Named("importQueueCapacity") final int queueCapacity) {
+        this.s3Client = s3Client;
+        this.bevyTicketImportWriter = bevyTicketImportWriter;
+        this.parserThreads = parserThreads;
+        this.writerThreads = writerThreads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public void importRoster(
+            final BevyRosterImportRequest request,
+            final long objectSize,
+            final String eTag,
+            final ImportCounters counters) {
+        if (objectSize == 0L) {
+            return;
+        }
+        final byte[] header = readHeader(request, eTag);
+        final long dataSize = objectSize - header.length;
+        if (dataSize <= 0L) {
+            return;
+        }
+
+        final int rangeCount = (int) Math.max(1L, Math.min(parserThreads, dataSize / MIN_RANGE_SIZE));
+        final long rangeSize = Math.max(1L, dataSize / rangeCount);
+        LOG.info("Importing {} bytes of {} in {} ranges with {} writers",
+                objectSize,
+                request.objectKey(),
+                rangeCount,
+                writerThreads);
+
+        final BlockingQueue<HashedBevyTicket> queue = new ArrayBlockingQueue<>(queueCapacity);
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < writerThreads; i++) {
+                writers.add(executor.submit(() -> {
+                    drain(queue, counters);
+                    return null;
+                }));
+            }
+
+            final List<Future<?>> parsers = new ArrayList<>();
+            for (int i = 0; i < rangeCount; i++) {
+                final long start = header.length + i * rangeSize;
+                final long end = i == rangeCount - 1 ? objectSize : start + rangeSize;
+                parsers.add(executor.submit(() -> {
+                    parseRange(request, eTag, header, start, end, queue, counters);
+                    return null;
+                }));
+            }
+
+            Exception parserException = null;
+            for (final Future<?> parser : parsers) {
+                try {
+                    parser.get();
+                } catch (final ExecutionException exception) {
+                    LOG.error("Unable to parse a range of roster {}", request.objectKey(), exception.getCause());
+                    parserException = exception;
+                }
+            }
+            for (int i = 0; i < writerThreads; i++) {
+                queue.put(END_OF_ROWS);
+            }
+            for (final Future<?> writer : writers) {
+                writer.get();
+            }
+            if (parserException != null) {
+                throw new IllegalStateException("Unable to parse roster " + request.objectKey(), parserException);
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        } catch (final ExecutionException exception) {
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    private byte[] readHeader(final BevyRosterImportRequest request, final String eTag) {
+        try (final ResponseInputStream<GetObjectResponse> responseInputStream = s3Client.getObject(
+                getObjectRequest(request, eTag, String.format("bytes=0-%d", HEADER_RANGE_SIZE - 1)))) {
+            return new BevyTicketCsvReader(responseInputStream).header();
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    private void parseRange(
+            final BevyRosterImportRequest request,
+            final String eTag,
+            final byte[] header,
+            final long start,
+            final long end,
+            final BlockingQueue<HashedBevyTicket> queue,
+            final ImportCounters counters) throws IOException, InterruptedException {
+        // Start one byte early: a record belongs to this range if it starts in [start, end), and the byte before
+        // start tells whether start is itself the beginning of a record.
+        final boolean firstRange = start == header.length;
+        final long requestStart = firstRange ? start : start - 1;
+        try (final ResponseInputStream<GetObjectResponse> responseInputStream = s3Client.getObject(
+                getObjectRequest(request, eTag, String.format("bytes=%d-", requestStart)))) {
+            final long recordStart = firstRange ? start : skipPartialRecord(responseInputStream, requestStart);
+            final BevyTicketCsvReader reader = new BevyTicketCsvReader(responseInputStream, header, recordStart, 0L, end);
+            long parseStart = System.currentTimeMillis();
+            List<org.seattleoba.data.model.BevyTicket> bevyTickets = reader.nextBatch(BATCH_SIZE);
+            counters.addParseMillis(System.currentTimeMillis() - parseStart);
+            while (!bevyTickets.isEmpty()) {
+                for (final org.seattleoba.data.model.BevyTicket ticket : bevyTickets) {
+                    queue.put(BevyTicketMapper.toBevyTicket(request.eventId(), ticket));
+                }
+                parseStart = System.currentTimeMillis();
+                bevyTickets = reader.nextBatch(BATCH_SIZE);
+                counters.addParseMillis(System.currentTimeMillis() - parseStart);
+            }
+            // The range was requested open-ended so the last record could be read past its end; stop the download.
+            responseInputStream.abort();
+        }
+    }
+
+    private static long skipPartialRecord(final InputStream inputStream, final long position) throws IOException {
+        long offset = position;
+        int value;
+        while ((value = inputStream.read()) != -1) {
+            offset++;
+            if (value == LINE_FEED) {
+                break;
+            }
+        }
+        return offset;
+    }
+
+    private void drain(final BlockingQueue<HashedBevyTicket> queue, final ImportCounters counters) throws InterruptedException {
+        final List<HashedBevyTicket> batch = new ArrayList<>(BATCH_SIZE);
+        boolean done = false;
+        while (!done) {
+            batch.add(queue.take());
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            // Leave other writers' end markers in the queue for them.
+            final int markers = (int) batch.stream().filter(ticket -> ticket == END_OF_ROWS).count();
+            if (markers > 0) {
+                batch.removeIf(ticket -> ticket == END_OF_ROWS);
+                for (int i = 1; i < markers; i++) {
+                    queue.put(END_OF_ROWS);
+                }
+                done = true;
+            }
+            if (!batch.isEmpty()) {
+                final long writeStart = System.currentTimeMillis();
+                try {
+                    bevyTicketImportWriter.write(batch, counters);
+                } catch (final Exception exception) {
+                    LOG.error("Unable to write batch of {} tickets", batch.size(), exception);
+                    counters.addFailed(batch.size());
+                }
+                counters.addWriteMillis(System.currentTimeMillis() - writeStart);
+                batch.clear();
+            }
+        }
+    }
+
+    private static GetObjectRequest getObjectRequest(
+            final BevyRosterImportRequest request,
+            final String eTag,
+            final String range) {
+        return GetObjectRequest.builder()
+                .bucket(request.bucketName())
+                .key(request.objectKey())
+                .range(range)
+                .ifMatch(eTag)
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package org.seattleoba.lambda.message;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+import org.seattleoba.lambda.model.BevyTicketEventBatch;
+
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reads and writes ticket event message bodies in both formats: a single {@link BevyTicketEvent}, or a
+ * {@link BevyTicketEventBatch} whose {@code events} array holds several. Readers accept either, so that the packed
+ * format can be switched on for the producer without draining the queues first.
+ */
+public class BevyTicketEventCodec {
+    // SQS limit on the size of a message, and on the total size of a SendMessageBatch request.
+    public static final int MAX_PAYLOAD_BYTES = 256 * 1024;
+    private static final String EVENTS_FIELD_NAME = "events";
+    // Bytes that {"events":[ and ]} add around the packed events.
+    private static final int BATCH_OVERHEAD_BYTES = 13;
+
+    private final ObjectMapper objectMapper;
+
+    @Inject
+    public BevyTicketEventCodec(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public BevyTicketEventMessage decode(final String body) throws JsonProcessingException {
+        final JsonNode node = objectMapper.readTree(body);
+        if (node.has(EVENTS_FIELD_NAME)) {
+            return new BevyTicketEventMessage(
+                    objectMapper.treeToValue(node, BevyTicketEventBatch.class).events(),
+                    true);
+        }
+        return new BevyTicketEventMessage(
+                Collections.singletonList(objectMapper.treeToValue(node, BevyTicketEvent.class)),
+                false);
+    }
+
+    public String encode(final BevyTicketEvent bevyTicketEvent) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(bevyTicketEvent);
+    }
+
+    public String encode(final List<BevyTicketEvent> bevyTicketEvents) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(new BevyTicketEventBatch(bevyTicketEvents));
+    }
+
+    /**
+     * FIFO message group of an event, so that updates to one ticket are delivered in order.
+     */
+    public static String messageGroupId(final BevyTicketEvent bevyTicketEvent) {
+        return String.format("%d#%d", bevyTicketEvent.eventId(), bevyTicketEvent.ticketId());
+    }
+
+    /**
+     * FIFO deduplication id of a body, so that content re-sent unchanged within the deduplication window is only
+     * delivered once.
+     */
+    public static String deduplicationId(final String body) {
+        return Hashing.sha256().hashString(body, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Splits items into groups of at most {@code maxEvents} whose events, packed together, fit in {@code maxBytes}.
+     * An item too large to share a message is returned in a group of its own.
+     */
+    public <T> List<List<T>> pack(
+            final List<T> items,
+            final Function<T, BevyTicketEvent> eventOf,
+            final int maxEvents,
+            final int maxBytes) throws JsonProcessingException {
+        final List<List<T>> groups = new ArrayList<>();
+        List<T> group = new ArrayList<>();
+        int groupBytes = BATCH_OVERHEAD_BYTES;
+        for (final T item : items) {
+            final int eventBytes = encode(eventOf.apply(item)).getBytes(StandardCharsets.UTF_8).length;
+            // Every event after the first is preceded by a comma.
+            if (!group.isEmpty() && (group.size() >= maxEvents || groupBytes + eventBytes + 1 > maxBytes)) {
+                groups.add(group);
+                group = new ArrayList<>();
+                groupBytes = BATCH_OVERHEAD_BYTES;
+            }
+            groupBytes += group.isEmpty() ? eventBytes : eventBytes + 1;
+            group.add(item);
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,11 @@
+package org.seattleoba.lambda.message;
+
+import org.seattleoba.lambda.model.BevyTicketEvent;
+
+import java.util.List;
+
+/**
+ * The ticket events decoded from one SQS message body, and whether the body was packed.
+ */
+public record BevyTicketEventMessage(List<BevyTicketEvent> events, boolean packed) {
+}
@@ -0,0 +1,137 @@
+package org.seattleoba.lambda.message;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.lambda.metrics.MetricUnit;
+import org.seattleoba.lambda.metrics.Metrics;
+import org.seattleoba.lambda.util.ExponentialBackoff;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Sends ticket event messages with SendMessageBatch, retrying only the entries SQS did not accept.
+ */
+public class BevyTicketMessageSender {
+    private static final Logger LOG = LogManager.getLogger(BevyTicketMessageSender.class);
+    private static final int MAX_SQS_BATCH_SIZE = 10;
+    private static final int MAX_SEND_ATTEMPTS = 5;
+
+    private final SqsClient sqsClient;
+    private final ExponentialBackoff backoff = new ExponentialBackoff(100L, 2_000L);
+
+    @Inject
+    public BevyTicketMessageSender(final SqsClient sqsClient) {
+        this.sqsClient = sqsClient;
+    }
+
+    /**
+     * Takes up to ten messages starting at {@code from}, as long as they fit in one SendMessageBatch request.
+     */
+    public static <T> List<OutgoingMessage<T>> nextBatch(final List<OutgoingMessage<T>> messages, final int from) {
+        final List<OutgoingMessage<T>> batch = new ArrayList<>();
+        int batchBytes = 0;
+        for (int i = from; i < messages.size() && batch.size() < MAX_SQS_BATCH_SIZE; i++) {
+            final int messageBytes = messages.get(i).bodyBytes();
+            if (!batch.isEmpty() && batchBytes + messageBytes > BevyTicketEventCodec.MAX_PAYLOAD_BYTES) {
+                break;
+            }
+            batch.add(messages.get(i));
+            batchBytes += messageBytes;
+        }
+        return batch;
+    }
+
+    /**
+     * Sends a batch from {@link #nextBatch}. Retries stop after five attempts, or once less than
+     * {@code reserveMillis} is left of the invocation so that the response still reaches Lambda.
+     */
+    public <T> SendOutcome<T> send(
+            final String queueUrl,
+            final List<OutgoingMessage<T>> batch,
+            final Context context,
+            final long reserveMillis,
+            final Metrics metrics) {
+        metrics.record("SendBatchSize", MetricUnit.COUNT, batch.size());
+        final boolean fifoQueue = queueUrl.endsWith(".fifo");
+        final List<OutgoingMessage<T>> failedMessages = new ArrayList<>();
+        final List<OutgoingMessage<T>> rejectedMessages = new ArrayList<>();
+        final Map<String, OutgoingMessage<T>> pending = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            pending.put(Integer.toString(i), batch.get(i));
+        }
+
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            final Map<String, BatchResultErrorEntry> failures = new HashMap<>();
+            final long sendStart = System.currentTimeMillis();
+            try {
+                final SendMessageBatchResponse response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                        .entries(pending.entrySet().stream()
+                                .map(entry -> toEntry(entry.getKey(), entry.getValue(), fifoQueue))
+                                .collect(Collectors.toList()))
+                        .queueUrl(queueUrl)
+                        .build());
+                response.failed().forEach(failure -> failures.put(failure.id(), failure));
+            } catch (final Exception exception) {
+                LOG.error("Unable to send message batch of {} entries to SQS", pending.size(), exception);
+                pending.keySet().forEach(id -> failures.put(id, null));
+            }
+            metrics.time("SendTime", System.currentTimeMillis() - sendStart);
+            pending.keySet().retainAll(failures.keySet());
+
+            // Sender faults, such as an invalid message, fail the same way on every attempt.
+            final Iterator<Map.Entry<String, OutgoingMessage<T>>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, OutgoingMessage<T>> entry = iterator.next();
+                final BatchResultErrorEntry failure = failures.get(entry.getKey());
+                if (Objects.nonNull(failure) && Boolean.TRUE.equals(failure.senderFault())) {
+                    LOG.error("SQS rejected a message of {} ticket events: {} {}",
+                            entry.getValue().events().size(),
+                            failure.code(),
+                            failure.message());
+                    rejectedMessages.add(entry.getValue());
+                    iterator.remove();
+                }
+            }
+            if (pending.isEmpty()) {
+                break;
+            }
+            if (attempt >= MAX_SEND_ATTEMPTS || context.getRemainingTimeInMillis() < reserveMillis) {
+                failedMessages.addAll(pending.values());
+                break;
+            }
+            LOG.warn("Retrying {} SQS entries after attempt {}", pending.size(), attempt);
+            metrics.count("SendRetries", pending.size());
+            backoff.pause(attempt);
+        }
+        return new SendOutcome<>(failedMessages, rejectedMessages);
+    }
+
+    private static SendMessageBatchRequestEntry toEntry(
+            final String id,
+            final OutgoingMessage<?> message,
+            final boolean fifoQueue) {
+        final SendMessageBatchRequestEntry.Builder entry = SendMessageBatchRequestEntry.builder()
+                .id(id)
+                .messageBody(message.body());
+        // Deduplication ids and group ids are only accepted by FIFO queues.
+        if (fifoQueue) {
+            entry.messageGroupId(message.messageGroupId())
+                    .messageDeduplicationId(BevyTicketEventCodec.deduplicationId(message.body()));
+        }
+        return entry.build();
+    }
+}
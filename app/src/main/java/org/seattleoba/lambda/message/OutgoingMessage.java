@@ -0,0 +1,22 @@
+package org.seattleoba.lambda.message;
+
+import org.seattleoba.lambda.model.BevyTicketEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * An SQS message body and the events it carries. On a FIFO queue the message is grouped by its first event.
+ */
+public record OutgoingMessage<T>(String body, int bodyBytes, String messageGroupId, List<T> events) {
+    public static <T> OutgoingMessage<T> of(
+            final String body,
+            final BevyTicketEvent firstEvent,
+            final List<T> events) {
+        return new OutgoingMessage<>(
+                body,
+                body.getBytes(StandardCharsets.UTF_8).length,
+                BevyTicketEventCodec.messageGroupId(firstEvent),
+                events);
+    }
+}
@@ -0,0 +1,10 @@
+package org.seattleoba.lambda.message;
+
+import java.util.List;
+
+/**
+ * Messages of a batch that were not delivered: {@code failed} ones, which may succeed on a later attempt, and
+ * {@code rejected} ones, which SQS refused as sender faults.
+ */
+public record SendOutcome<T>(List<OutgoingMessage<T>> failed, List<OutgoingMessage<T>> rejected) {
+}
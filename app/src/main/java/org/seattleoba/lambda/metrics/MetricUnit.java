@@ -0,0 +1,21 @@
+package org.seattleoba.lambda.metrics;
+
+/**
+ * CloudWatch units used by the pipeline's metrics.
+ */
+public enum MetricUnit {
+    COUNT("Count"),
+    MILLISECONDS("Milliseconds"),
+    PERCENT("Percent"),
+    COUNT_PER_SECOND("Count/Second");
+
+    private final String cloudWatchName;
+
+    MetricUnit(final String cloudWatchName) {
+        this.cloudWatchName = cloudWatchName;
+    }
+
+    public String cloudWatchName() {
+        return cloudWatchName;
+    }
+}
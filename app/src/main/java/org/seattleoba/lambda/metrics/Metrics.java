@@ -0,0 +1,109 @@
+package org.seattleoba.lambda.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Metrics recorded by one handler invocation, published as CloudWatch Embedded Metric Format when closed. Safe to use
+ * from several threads.
+ */
+public class Metrics implements AutoCloseable {
+    private final MetricsPublisher publisher;
+    private final String handler;
+    private final Map<Integer, Map<String, Series>> seriesByEventId = new LinkedHashMap<>();
+    private boolean closed;
+
+    Metrics(final MetricsPublisher publisher, final String handler) {
+        this.publisher = publisher;
+        this.handler = handler;
+    }
+
+    public void count(final String name, final long count) {
+        count(name, null, count);
+    }
+
+    public void count(final String name, final Integer eventId, final long count) {
+        synchronized (this) {
+            series(name, eventId, MetricUnit.COUNT, true).add(count);
+        }
+    }
+
+    public void time(final String name, final long millis) {
+        record(name, null, MetricUnit.MILLISECONDS, millis);
+    }
+
+    public void record(final String name, final MetricUnit unit, final double value) {
+        record(name, null, unit, value);
+    }
+
+    public void record(final String name, final Integer eventId, final MetricUnit unit, final double value) {
+        synchronized (this) {
+            series(name, eventId, unit, false).add(value);
+        }
+    }
+
+    /**
+     * Publishes the recorded metrics. Later calls do nothing.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            seriesByEventId.forEach((eventId, series) -> publisher.publish(handler, eventId, series));
+        }
+    }
+
+    private Series series(final String name, final Integer eventId, final MetricUnit unit, final boolean summed) {
+        final Map<String, Series> series = seriesByEventId.computeIfAbsent(eventId, ignored -> new LinkedHashMap<>());
+        Series existing = series.get(name);
+        if (Objects.isNull(existing)) {
+            existing = new Series(unit, summed);
+            series.put(name, existing);
+        }
+        return existing;
+    }
+
+    /**
+     * The values of one metric. A summed series holds a single value.
+     */
+    static final class Series {
+        private final MetricUnit unit;
+        private final boolean summed;
+        private double[] values = new double[8];
+        private int size;
+
+        private Series(final MetricUnit unit, final boolean summed) {
+            this.unit = unit;
+            this.summed = summed;
+        }
+
+        private void add(final double value) {
+            if (summed && size == 1) {
+                values[0] += value;
+                return;
+            }
+            if (size == values.length) {
+                final double[] grown = new double[size * 2];
+                System.arraycopy(values, 0, grown, 0, size);
+                values = grown;
+            }
+            values[size++] = value;
+        }
+
+        MetricUnit unit() {
+            return unit;
+        }
+
+        int size() {
+            return size;
+        }
+
+        double value(final int index) {
+            return values[index];
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.seattleoba.lambda.metrics;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes metrics as CloudWatch Embedded Metric Format documents to a dedicated logger, whose appender writes each
+ * document on a line of its own. CloudWatch Logs extracts the metrics from the function's log group, so publishing
+ * makes no network calls.
+ */
+@Singleton
+public class MetricsPublisher {
+    private static final Logger LOG = LogManager.getLogger(MetricsPublisher.class);
+    private static final Logger EMF_LOG = LogManager.getLogger("org.seattleoba.lambda.metrics.EMF");
+    private static final String HANDLER_DIMENSION = "Handler";
+    private static final String EVENT_ID_DIMENSION = "EventId";
+    // EMF accepts at most 100 values per metric in a document; longer series are spread over several documents.
+    private static final int MAX_VALUES_PER_DOCUMENT = 100;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String namespace;
+
+    @Inject
+    public MetricsPublisher(@Named("metricsNamespace") final String namespace) {
+        this.namespace = namespace;
+    }
+
+    /**
+     * Starts recording the metrics of one invocation of {@code handler}.
+     */
+    public Metrics start(final String handler) {
+        return new Metrics(this, handler);
+    }
+
+    void publish(final String handler, final Integer eventId, final Map<String, Metrics.Series> series) {
+        final int maxSize = series.values().stream().mapToInt(Metrics.Series::size).max().orElse(0);
+        final long timestamp = System.currentTimeMillis();
+        for (int offset = 0; offset < maxSize; offset += MAX_VALUES_PER_DOCUMENT) {
+            try {
+                EMF_LOG.info(document(handler, eventId, series, offset, timestamp));
+            } catch (final IOException exception) {
+                LOG.warn("Unable to write metrics for {}", handler, exception);
+                return;
+            }
+        }
+    }
+
+    private String document(
+            final String handler,
+            final Integer eventId,
+            final Map<String, Metrics.Series> series,
+            final int offset,
+            final long timestamp) throws IOException {
+        final StringWriter writer = new StringWriter(512);
+        try (final JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("_aws");
+            generator.writeNumberField("Timestamp", timestamp);
+            generator.writeArrayFieldStart("CloudWatchMetrics");
+            generator.writeStartObject();
+            generator.writeStringField("Namespace", namespace);
+            generator.writeArrayFieldStart("Dimensions");
+            generator.writeStartArray();
+            generator.writeString(HANDLER_DIMENSION);
+            if (Objects.nonNull(eventId)) {
+                generator.writeString(EVENT_ID_DIMENSION);
+            }
+            generator.writeEndArray();
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("Metrics");
+            for (final Map.Entry<String, Metrics.Series> entry : series.entrySet()) {
+                if (entry.getValue().size() > offset) {
+                    generator.writeStartObject();
+                    generator.writeStringField("Name", entry.getKey());
+                    generator.writeStringField("Unit", entry.getValue().unit().cloudWatchName());
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+
+            generator.writeStringField(HANDLER_DIMENSION, handler);
+            if (Objects.nonNull(eventId)) {
+                generator.writeStringField(EVENT_ID_DIMENSION, eventId.toString());
+            }
+            for (final Map.Entry<String, Metrics.Series> entry : series.entrySet()) {
+                final Metrics.Series values = entry.getValue();
+                if (values.size() <= offset) {
+                    continue;
+                }
+                generator.writeFieldName(entry.getKey());
+                final int end = Math.min(values.size(), offset + MAX_VALUES_PER_DOCUMENT);
+                if (end - offset == 1) {
+                    generator.writeNumber(values.value(offset));
+                } else {
+                    generator.writeStartArray();
+                    for (int i = offset; i < end; i++) {
+                        generator.writeNumber(values.value(i));
+                    }
+                    generator.writeEndArray();
+                }
+            }
+            generator.writeEndObject();
+        }
+        return writer.toString();
+    }
+}
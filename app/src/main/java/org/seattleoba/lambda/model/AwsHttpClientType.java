@@ -0,0 +1,17 @@
+package org.seattleoba.lambda.model;
+
+public enum AwsHttpClientType {
+    /**
+     * Apache HTTP client with a connection pool, the SDK default. Async clients use Netty.
+     */
+    APACHE,
+    /**
+     * JDK {@code HttpURLConnection} client. It loads the fewest classes, which makes for the fastest cold start, but
+     * its keep-alive cache cannot be sized. Async clients use Netty.
+     */
+    URL_CONNECTION,
+    /**
+     * AWS Common Runtime client, for both sync and async clients. Native code starts quickly and uses little memory.
+     */
+    CRT
+}
@@ -0,0 +1,17 @@
+package org.seattleoba.lambda.model;
+
+public enum BevyRosterImportMode {
+    /**
+     * Parse the whole roster file, then write it.
+     */
+    BATCH,
+    /**
+     * Parse the roster file row by row while it downloads, writing each batch as soon as it is read.
+     */
+    STREAMING,
+    /**
+     * Split the roster file into line-aligned byte ranges that are downloaded and parsed concurrently, feeding a
+     * pool of writer threads.
+     */
+    PARALLEL
+}
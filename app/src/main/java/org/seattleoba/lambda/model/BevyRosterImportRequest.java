@@ -3,5 +3,7 @@ package org.seattleoba.lambda.model;
 public record BevyRosterImportRequest(
         Integer eventId,
         String bucketName,
-        String objectKey) {
+        String objectKey,
+        BevyRosterImportMode importMode,
+        String continuationToken) {
 }
@@ -1,5 +1,19 @@
 package org.seattleoba.lambda.model;
 
-public record BevyRosterImportResult(Integer recordsImported) {
+/**
+ * Outcome of a roster import. A non-null {@code continuationToken} means the import stopped early and should be
+ * invoked again with that token.
+ */
+public record BevyRosterImportResult(
+        Integer recordsImported,
+        Integer recordsInserted,
+        Integer recordsUpdated,
+        Integer recordsUnchanged,
+        Integer recordsFailed,
+        Integer recordsDuplicated,
+        Integer throttleEvents,
+        Double rowsPerSecond,
+        Boolean rosterUnchanged,
+        String continuationToken) {
 
 }
@@ -0,0 +1,11 @@
+package org.seattleoba.lambda.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Body of a packed SQS message, carrying several ticket events at once.
+ */
+public record BevyTicketEventBatch(@JsonProperty("events") List<BevyTicketEvent> events) {
+}
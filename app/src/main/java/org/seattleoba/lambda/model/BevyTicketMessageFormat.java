@@ -0,0 +1,12 @@
+package org.seattleoba.lambda.model;
+
+public enum BevyTicketMessageFormat {
+    /**
+     * One {@link BevyTicketEvent} per SQS message.
+     */
+    SINGLE,
+    /**
+     * Several events per SQS message, wrapped in a {@link BevyTicketEventBatch}.
+     */
+    PACKED
+}
@@ -0,0 +1,15 @@
+package org.seattleoba.lambda.model;
+
+public enum RegistrationWriteMode {
+    /**
+     * Write Twitch accounts, then event registrations, with BatchWriteItem. A registration is only written once its
+     * account is, but the two writes are not atomic. BatchWriteItem replaces whole items, so attributes that the beans
+     * do not map are dropped.
+     */
+    BATCH,
+    /**
+     * Update each user's Twitch account together with their event registrations using TransactWriteItems. This is
+     * the default.
+     */
+    TRANSACTIONAL
+}
@@ -0,0 +1,7 @@
+package org.seattleoba.lambda.model;
+
+/**
+ * A ticket event read from one SQS message, with its purchaser name normalized to a lower-case Twitch login.
+ */
+public record TwitchRegistrationRequest(String messageId, String userName, BevyTicketEvent bevyTicketEvent) {
+}
@@ -0,0 +1,63 @@
+package org.seattleoba.lambda.priming;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.lambda.dynamodb.bean.BevyRosterImportCheckpoint;
+import org.seattleoba.lambda.dynamodb.bean.HashedBevyTicket;
+import org.seattleoba.lambda.importer.BevyTicketCsvReader;
+import org.seattleoba.lambda.importer.BevyTicketMapper;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+
+import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Parses, maps and marshals a one-row roster before a SnapStart snapshot is taken, so that the CSV parser and the
+ * ticket and checkpoint table schemas are loaded by the time the snapshot is restored. No network calls are made.
+ */
+public class ImportPrimer {
+    private static final Logger LOG = LogManager.getLogger(ImportPrimer.class);
+    private static final int SAMPLE_EVENT_ID = 0;
+    private static final String SAMPLE_ROSTER = "Ticket Number,Order Number,Access Code,Purchaser Name,Ticket Type,"
+            + "Price,Purchase Date,Check In Date\n"
+            + "0-000001,0-000001,PRIMING,priming,General Admission,25.00,2024-06-01T17:00:00Z,\n";
+
+    private final DynamoDbTable<HashedBevyTicket> bevyTicketTable;
+    private final DynamoDbTable<BevyRosterImportCheckpoint> checkpointTable;
+
+    @Inject
+    public ImportPrimer(
+            final DynamoDbTable<HashedBevyTicket> bevyTicketTable,
+            final DynamoDbTable<BevyRosterImportCheckpoint> checkpointTable) {
+        this.bevyTicketTable = bevyTicketTable;
+        this.checkpointTable = checkpointTable;
+    }
+
+    public void prime() {
+        final long start = System.currentTimeMillis();
+        try {
+            final BevyTicketCsvReader reader = new BevyTicketCsvReader(
+                    new ByteArrayInputStream(SAMPLE_ROSTER.getBytes(StandardCharsets.UTF_8)));
+            final List<HashedBevyTicket> tickets = reader.nextBatch(1).stream()
+                    .map(ticket -> BevyTicketMapper.toBevyTicket(SAMPLE_EVENT_ID, ticket))
+                    .collect(Collectors.toList());
+            tickets.forEach(ticket -> bevyTicketTable.tableSchema()
+                    .mapToItem(bevyTicketTable.tableSchema().itemToMap(ticket, true)));
+
+            final BevyRosterImportCheckpoint checkpoint = new BevyRosterImportCheckpoint();
+            checkpoint.setImportId("priming");
+            checkpoint.setEventId(SAMPLE_EVENT_ID);
+            checkpoint.setHeader(new String(reader.header(), StandardCharsets.UTF_8));
+            checkpoint.setByteOffset(reader.position());
+            checkpoint.setRowNumber(reader.rowNumber());
+            checkpointTable.tableSchema().mapToItem(checkpointTable.tableSchema().itemToMap(checkpoint, true));
+        } catch (final Exception exception) {
+            // Priming only saves time on the first invocation, so a failure must not fail the snapshot.
+            LOG.warn("Unable to prime roster import", exception);
+        }
+        LOG.info("Primed roster import in {} ms", System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,86 @@
+package org.seattleoba.lambda.priming;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.lambda.message.BevyTicketEventCodec;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+import org.seattleoba.lambda.stream.CoalescedTicketEvent;
+import org.seattleoba.lambda.stream.TicketEventCoalescer;
+import org.seattleoba.lambda.stream.TicketStreamEventSerializer;
+
+import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the CPU-bound message paths on synthetic ticket events before a SnapStart snapshot is taken, so that their
+ * classes are loaded and the {@code ObjectMapper} has built its serializers by the time the snapshot is restored.
+ * No network calls are made.
+ */
+public class Primer {
+    private static final Logger LOG = LogManager.getLogger(Primer.class);
+    private static final BevyTicketEvent SAMPLE_EVENT = new BevyTicketEvent(0, 0, "PRIMING", "priming");
+    // The sample record as Lambda delivers it to the stream handler.
+    private static final String SAMPLE_STREAM_EVENT = "{\"Records\":[{\"eventName\":\"INSERT\",\"dynamodb\":{"
+            + "\"Keys\":{\"event_id\":{\"N\":\"0\"},\"id\":{\"N\":\"0\"}},"
+            + "\"NewImage\":{\"event_id\":{\"N\":\"0\"},\"id\":{\"N\":\"0\"},"
+            + "\"ticket_id\":{\"S\":\"PRIMING\"},\"purchaser_name\":{\"S\":\"priming\"}},"
+            + "\"SequenceNumber\":\"0\",\"StreamViewType\":\"NEW_AND_OLD_IMAGES\"}}]}";
+
+    private final BevyTicketEventCodec codec;
+    private final TicketStreamEventSerializer streamEventSerializer;
+
+    @Inject
+    public Primer(final BevyTicketEventCodec codec, final TicketStreamEventSerializer streamEventSerializer) {
+        this.codec = codec;
+        this.streamEventSerializer = streamEventSerializer;
+    }
+
+    public void prime() {
+        final long start = System.currentTimeMillis();
+        try {
+            final List<BevyTicketEvent> events = TicketEventCoalescer.coalesce(List.of(sampleRecord())).stream()
+                    .map(CoalescedTicketEvent::bevyTicketEvent)
+                    .collect(Collectors.toList());
+            codec.decode(codec.encode(events.get(0)));
+            codec.pack(events, Function.identity(), events.size(), BevyTicketEventCodec.MAX_PAYLOAD_BYTES);
+            codec.decode(codec.encode(events));
+            TicketEventCoalescer.coalesceRecords(streamEventSerializer.read(
+                    new ByteArrayInputStream(SAMPLE_STREAM_EVENT.getBytes(StandardCharsets.UTF_8))));
+            streamEventSerializer.writeResponse(
+                    StreamsEventResponse.builder()
+                            .withBatchItemFailures(List.of(new StreamsEventResponse.BatchItemFailure("0")))
+                            .build(),
+                    OutputStream.nullOutputStream());
+        } catch (final Exception exception) {
+            // Priming only saves time on the first invocation, so a failure must not fail the snapshot.
+            LOG.warn("Unable to prime message serialization", exception);
+        }
+        LOG.info("Primed message serialization in {} ms", System.currentTimeMillis() - start);
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord sampleRecord() {
+        final Map<String, AttributeValue> image = Map.of(
+                "event_id", new AttributeValue().withN(SAMPLE_EVENT.eventId().toString()),
+                "id", new AttributeValue().withN(SAMPLE_EVENT.ticketId().toString()),
+                "ticket_id", new AttributeValue(SAMPLE_EVENT.ticketNumber()),
+                "purchaser_name", new AttributeValue(SAMPLE_EVENT.purchaserName()));
+        final StreamRecord streamRecord = new StreamRecord();
+        streamRecord.setSequenceNumber("0");
+        streamRecord.setKeys(image);
+        streamRecord.setNewImage(image);
+        final DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventName("INSERT");
+        record.setDynamodb(streamRecord);
+        return record;
+    }
+}
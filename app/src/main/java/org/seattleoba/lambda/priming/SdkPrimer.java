@@ -0,0 +1,89 @@
+package org.seattleoba.lambda.priming;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Takes a DynamoDB request through marshalling and SigV4 signing on the shared HTTP client before a SnapStart snapshot
+ * is taken, and stops it before it is sent. The request is signed with placeholder credentials, so that no
+ * credentials are cached in the snapshot; {@link #resolveCredentials()} fetches the real ones after restore.
+ */
+public class SdkPrimer {
+    private static final Logger LOG = LogManager.getLogger(SdkPrimer.class);
+    private static final AwsCredentialsProvider PRIMING_CREDENTIALS =
+            StaticCredentialsProvider.create(AwsBasicCredentials.create("priming", "priming"));
+
+    private final SdkHttpClient httpClient;
+    private final AwsCredentialsProvider credentialsProvider;
+    private final DynamoDbClient dynamoDbClient;
+
+    @Inject
+    public SdkPrimer(
+            final SdkHttpClient httpClient,
+            final AwsCredentialsProvider credentialsProvider,
+            final DynamoDbClient dynamoDbClient) {
+        this.httpClient = httpClient;
+        this.credentialsProvider = credentialsProvider;
+        this.dynamoDbClient = dynamoDbClient;
+    }
+
+    public void prime() {
+        final long start = System.currentTimeMillis();
+        final AtomicBoolean signed = new AtomicBoolean();
+        try (final DynamoDbClient primingClient = DynamoDbClient.builder()
+                .httpClient(httpClient)
+                .region(dynamoDbClient.serviceClientConfiguration().region())
+                .credentialsProvider(PRIMING_CREDENTIALS)
+                .overrideConfiguration(configuration -> configuration.addExecutionInterceptor(new ExecutionInterceptor() {
+                    @Override
+                    public void beforeTransmission(
+                            final Context.BeforeTransmission context,
+                            final ExecutionAttributes executionAttributes) {
+                        signed.set(true);
+                        throw new PrimingComplete();
+                    }
+                }))
+                .build()) {
+            primingClient.getItem(request -> request
+                    .tableName("priming")
+                    .key(Map.of("id", AttributeValue.fromS("priming"))));
+        } catch (final RuntimeException exception) {
+            // Expected once the request is signed; anything earlier means part of the stack was not primed.
+            if (!signed.get()) {
+                LOG.warn("Unable to prime the AWS SDK request path", exception);
+            }
+        }
+        LOG.info("Primed the AWS SDK request path in {} ms", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Fetches the function's credentials after a restore, so that the first invocation does not wait for them.
+     */
+    public void resolveCredentials() {
+        try {
+            credentialsProvider.resolveCredentials();
+        } catch (final Exception exception) {
+            // The first AWS call fetches them again.
+            LOG.warn("Unable to fetch AWS credentials after restore", exception);
+        }
+    }
+
+    private static final class PrimingComplete extends RuntimeException {
+        private PrimingComplete() {
+            super("Priming request stopped before transmission", null, false, false);
+        }
+    }
+}
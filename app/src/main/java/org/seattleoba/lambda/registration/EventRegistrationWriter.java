@@ -0,0 +1,310 @@
+package org.seattleoba.lambda.registration;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.data.dynamodb.bean.EventRegistration;
+import org.seattleoba.data.dynamodb.bean.TwitchAccount;
+import org.seattleoba.lambda.dynamodb.BatchWriteOutcome;
+import org.seattleoba.lambda.dynamodb.DynamoDbBatchExecutor;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+import org.seattleoba.lambda.model.RegistrationWriteMode;
+import org.seattleoba.lambda.model.TwitchRegistrationRequest;
+import org.seattleoba.lambda.util.ExponentialBackoff;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Persists the Twitch accounts and event registrations for a chunk of ticket events, and traces every item that
+ * could not be written back to the requests that produced it.
+ */
+public class EventRegistrationWriter {
+    private static final Logger LOG = LogManager.getLogger(EventRegistrationWriter.class);
+    private static final int MAX_TRANSACTION_SIZE = 100;
+    private static final int MAX_TRANSACTION_ATTEMPTS = 3;
+    private static final String THROTTLING_ERROR = "ThrottlingError";
+
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbBatchExecutor batchExecutor;
+    private final DynamoDbTable<EventRegistration> eventRegistrationTable;
+    private final DynamoDbTable<TwitchAccount> twitchAccountTable;
+    private final RegistrationWriteMode writeMode;
+    private final ExponentialBackoff backoff = new ExponentialBackoff(50L, 1_000L);
+
+    @Inject
+    public EventRegistrationWriter(
+            final DynamoDbEnhancedClient enhancedClient,
+            final DynamoDbBatchExecutor batchExecutor,
+            final DynamoDbTable<EventRegistration> eventRegistrationTable,
+            final DynamoDbTable<TwitchAccount> twitchAccountTable,
+            @Named("registrationWriteMode") final RegistrationWriteMode writeMode) {
+        this.enhancedClient = enhancedClient;
+        this.batchExecutor = batchExecutor;
+        this.eventRegistrationTable = eventRegistrationTable;
+        this.twitchAccountTable = twitchAccountTable;
+        this.writeMode = writeMode;
+    }
+
+    /**
+     * Writes the registration for every request whose purchaser is in {@code twitchAccounts}. Accounts for logins in
+     * {@code cachedUserNames} were persisted when they were cached and are not written again.
+     */
+    public RegistrationWriteOutcome write(
+            final Collection<TwitchRegistrationRequest> requests,
+            final Map<String, TwitchAccount> twitchAccounts,
+            final Set<String> cachedUserNames) {
+        final Map<Integer, UserWrite> userWrites = new LinkedHashMap<>();
+        for (final TwitchRegistrationRequest request : requests) {
+            final TwitchAccount twitchAccount = twitchAccounts.get(request.userName());
+            userWrites.computeIfAbsent(twitchAccount.getId(), id -> new UserWrite(
+                            twitchAccount,
+                            !cachedUserNames.contains(request.userName())))
+                    .add(request, eventRegistrationTable);
+        }
+        return writeMode == RegistrationWriteMode.TRANSACTIONAL
+                ? writeTransactions(userWrites.values())
+                : writeBatches(userWrites.values());
+    }
+
+    private RegistrationWriteOutcome writeBatches(final Collection<UserWrite> userWrites) {
+        final Set<TwitchRegistrationRequest> failedRequests = new HashSet<>();
+        final List<TwitchAccount> persistedAccounts = new ArrayList<>();
+
+        final Map<Key, UserWrite> accountWrites = userWrites.stream()
+                .filter(userWrite -> userWrite.persistAccount)
+                .collect(Collectors.toMap(
+                        userWrite -> twitchAccountTable.keyFrom(userWrite.twitchAccount),
+                        userWrite -> userWrite,
+                        (first, second) -> first,
+                        LinkedHashMap::new));
+        final BatchWriteOutcome<TwitchAccount> accountOutcome = batchExecutor.putItems(
+                twitchAccountTable,
+                accountWrites.values().stream().map(userWrite -> userWrite.twitchAccount).collect(Collectors.toList()));
+        final Set<Key> unprocessedAccounts = accountOutcome.unprocessedItems().stream()
+                .map(twitchAccountTable::keyFrom)
+                .collect(Collectors.toSet());
+        accountWrites.forEach((key, userWrite) -> {
+            if (unprocessedAccounts.contains(key)) {
+                LOG.error("Unable to persist Twitch account information for user {}",
+                        userWrite.twitchAccount.getUserName());
+                failedRequests.addAll(userWrite.requests());
+            } else {
+                persistedAccounts.add(userWrite.twitchAccount);
+            }
+        });
+
+        // Registrations are only written for users whose account is in the table, so that a registration never
+        // points at an account that does not exist.
+        final Map<Key, List<TwitchRegistrationRequest>> registrationRequests = new LinkedHashMap<>();
+        final Map<Key, EventRegistration> registrations = new LinkedHashMap<>();
+        userWrites.stream()
+                .filter(userWrite -> !unprocessedAccounts.contains(twitchAccountTable.keyFrom(userWrite.twitchAccount)))
+                .forEach(userWrite -> userWrite.registrations.forEach((key, registration) -> {
+                    registrations.put(key, registration.eventRegistration);
+                    registrationRequests.computeIfAbsent(key, ignored -> new ArrayList<>())
+                            .addAll(registration.requests);
+                }));
+        final BatchWriteOutcome<EventRegistration> registrationOutcome =
+                batchExecutor.putItems(eventRegistrationTable, registrations.values());
+        final int throttleEvents = accountOutcome.throttleEvents() + registrationOutcome.throttleEvents();
+        registrationOutcome.unprocessedItems().forEach(eventRegistration -> {
+            LOG.error("Unable to persist event registration {} for event {}",
+                    eventRegistration.getId(),
+                    eventRegistration.getEventId());
+            failedRequests.addAll(registrationRequests.get(eventRegistrationTable.keyFrom(eventRegistration)));
+        });
+        return new RegistrationWriteOutcome(failedRequests, persistedAccounts, throttleEvents);
+    }
+
+    private RegistrationWriteOutcome writeTransactions(final Collection<UserWrite> userWrites) {
+        final Set<TwitchRegistrationRequest> failedRequests = new HashSet<>();
+        final List<TwitchAccount> persistedAccounts = new ArrayList<>();
+
+        // A user's account and registrations always share a transaction; users are packed together up to the
+        // TransactWriteItems limit, and a packed transaction that fails is written again one user per transaction.
+        final List<UserWrite> transaction = new ArrayList<>();
+        int transactionSize = 0;
+        int throttleEvents = 0;
+        for (final UserWrite userWrite : userWrites) {
+            if (userWrite.size() > MAX_TRANSACTION_SIZE) {
+                // Cannot be written atomically; the account is still written before its registrations.
+                LOG.warn("{} writes for user {} exceed a transaction, writing them one at a time",
+                        userWrite.size(),
+                        userWrite.twitchAccount.getUserName());
+                throttleEvents += writeInOrder(userWrite, failedRequests, persistedAccounts);
+                continue;
+            }
+            if (transactionSize + userWrite.size() > MAX_TRANSACTION_SIZE && !transaction.isEmpty()) {
+                throttleEvents += writeTransaction(transaction, failedRequests, persistedAccounts);
+                transaction.clear();
+                transactionSize = 0;
+            }
+            transaction.add(userWrite);
+            transactionSize += userWrite.size();
+        }
+        if (!transaction.isEmpty()) {
+            throttleEvents += writeTransaction(transaction, failedRequests, persistedAccounts);
+        }
+        return new RegistrationWriteOutcome(failedRequests, persistedAccounts, throttleEvents);
+    }
+
+    /**
+     * Writes one transaction, retrying cancellations, and returns the number of attempts cancelled by throttling.
+     * Only the users of a transaction that fails on its own have their requests failed.
+     */
+    private int writeTransaction(
+            final List<UserWrite> userWrites,
+            final Set<TwitchRegistrationRequest> failedRequests,
+            final List<TwitchAccount> persistedAccounts) {
+        final TransactWriteItemsEnhancedRequest.Builder request = TransactWriteItemsEnhancedRequest.builder();
+        final Set<Key> registrationKeys = new HashSet<>();
+        for (final UserWrite userWrite : userWrites) {
+            if (userWrite.persistAccount) {
+                request.addUpdateItem(twitchAccountTable, userWrite.twitchAccount);
+            }
+            userWrite.registrations.forEach((key, registration) -> {
+                // The same ticket under two logins of one account would otherwise be put twice.
+                if (registrationKeys.add(key)) {
+                    request.addUpdateItem(eventRegistrationTable, registration.eventRegistration);
+                }
+            });
+        }
+
+        int throttleEvents = 0;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                enhancedClient.transactWriteItems(request.build());
+                userWrites.stream()
+                        .filter(userWrite -> userWrite.persistAccount)
+                        .forEach(userWrite -> persistedAccounts.add(userWrite.twitchAccount));
+                return throttleEvents;
+            } catch (final TransactionCanceledException exception) {
+                if (exception.cancellationReasons().stream()
+                        .anyMatch(reason -> THROTTLING_ERROR.equals(reason.code()))) {
+                    throttleEvents++;
+                }
+                // No write is conditional, so cancellations come from conflicts and throttling and are worth retrying.
+                if (attempt < MAX_TRANSACTION_ATTEMPTS) {
+                    LOG.warn("Retrying cancelled registration transaction: {}", exception.cancellationReasons());
+                    backoff.pause(attempt);
+                    continue;
+                }
+                LOG.error("Registration transaction for {} users was cancelled", userWrites.size(), exception);
+            } catch (final Exception exception) {
+                LOG.error("Registration transaction for {} users failed", userWrites.size(), exception);
+            }
+            if (userWrites.size() > 1) {
+                LOG.warn("Writing the {} users of a failed registration transaction one transaction each",
+                        userWrites.size());
+                for (final UserWrite userWrite : userWrites) {
+                    throttleEvents += writeTransaction(List.of(userWrite), failedRequests, persistedAccounts);
+                }
+                return throttleEvents;
+            }
+            userWrites.forEach(userWrite -> failedRequests.addAll(userWrite.requests()));
+            return throttleEvents;
+        }
+    }
+
+    /**
+     * Updates a user's account and then each of their registrations, and returns the number of throttled updates.
+     * The registrations are skipped when the account could not be written.
+     */
+    private int writeInOrder(
+            final UserWrite userWrite,
+            final Set<TwitchRegistrationRequest> failedRequests,
+            final List<TwitchAccount> persistedAccounts) {
+        int throttleEvents = 0;
+        if (userWrite.persistAccount) {
+            try {
+                twitchAccountTable.updateItem(userWrite.twitchAccount);
+                persistedAccounts.add(userWrite.twitchAccount);
+            } catch (final Exception exception) {
+                LOG.error("Unable to persist Twitch account information for user {}",
+                        userWrite.twitchAccount.getUserName(),
+                        exception);
+                failedRequests.addAll(userWrite.requests());
+                return isThrottling(exception) ? 1 : 0;
+            }
+        }
+        for (final RegistrationWrite registration : userWrite.registrations.values()) {
+            try {
+                eventRegistrationTable.updateItem(registration.eventRegistration);
+            } catch (final Exception exception) {
+                LOG.error("Unable to persist event registration {} for event {}",
+                        registration.eventRegistration.getId(),
+                        registration.eventRegistration.getEventId(),
+                        exception);
+                failedRequests.addAll(registration.requests);
+                throttleEvents += isThrottling(exception) ? 1 : 0;
+            }
+        }
+        return throttleEvents;
+    }
+
+    private static boolean isThrottling(final Exception exception) {
+        return exception instanceof AwsServiceException serviceException && serviceException.isThrottlingException();
+    }
+
+    /**
+     * The writes for one Twitch account: the account itself and the registrations of every request that resolved
+     * to it.
+     */
+    private static final class UserWrite {
+        private final TwitchAccount twitchAccount;
+        private final boolean persistAccount;
+        private final Map<Key, RegistrationWrite> registrations = new LinkedHashMap<>();
+
+        private UserWrite(final TwitchAccount twitchAccount, final boolean persistAccount) {
+            this.twitchAccount = twitchAccount;
+            this.persistAccount = persistAccount;
+        }
+
+        private void add(
+                final TwitchRegistrationRequest request,
+                final DynamoDbTable<EventRegistration> eventRegistrationTable) {
+            final BevyTicketEvent bevyTicketEvent = request.bevyTicketEvent();
+            final EventRegistration eventRegistration = new EventRegistration();
+            eventRegistration.setEventId(bevyTicketEvent.eventId());
+            eventRegistration.setId(bevyTicketEvent.ticketId());
+            eventRegistration.setTwitchId(twitchAccount.getId());
+            registrations.computeIfAbsent(
+                            eventRegistrationTable.keyFrom(eventRegistration),
+                            key -> new RegistrationWrite(eventRegistration))
+                    .requests.add(request);
+        }
+
+        private int size() {
+            return registrations.size() + (persistAccount ? 1 : 0);
+        }
+
+        private List<TwitchRegistrationRequest> requests() {
+            return registrations.values().stream()
+                    .flatMap(registration -> registration.requests.stream())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static final class RegistrationWrite {
+        private final EventRegistration eventRegistration;
+        private final List<TwitchRegistrationRequest> requests = new ArrayList<>();
+
+        private RegistrationWrite(final EventRegistration eventRegistration) {
+            this.eventRegistration = eventRegistration;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.seattleoba.lambda.registration;
+
+import org.seattleoba.data.dynamodb.bean.TwitchAccount;
+import org.seattleoba.lambda.model.TwitchRegistrationRequest;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Result of writing a chunk of registrations: the requests that could not be persisted, the Twitch accounts that
+ * were written and can be cached, and the number of requests DynamoDB throttled along the way.
+ */
+public record RegistrationWriteOutcome(
+        Set<TwitchRegistrationRequest> failedRequests,
+        List<TwitchAccount> persistedAccounts,
+        int throttleEvents) {
+}
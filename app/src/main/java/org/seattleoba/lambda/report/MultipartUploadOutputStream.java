@@ -0,0 +1,174 @@
+package org.seattleoba.lambda.report;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes an S3 object through a single part-sized buffer. Each time the buffer fills it is uploaded as a part of a
+ * multipart upload, which is only created once the first part is full; objects smaller than one part are written
+ * with a single PutObject when the stream is closed.
+ */
+public class MultipartUploadOutputStream extends OutputStream {
+    private static final Logger LOG = LogManager.getLogger(MultipartUploadOutputStream.class);
+    // Smallest part size S3 accepts for every part but the last.
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final String objectKey;
+    private final byte[] buffer;
+    private final List<CompletedPart> completedParts = new ArrayList<>();
+    private int count;
+    private String uploadId;
+    private boolean closed;
+
+    public MultipartUploadOutputStream(final S3Client s3Client, final String bucketName, final String objectKey) {
+        this(s3Client, bucketName, objectKey, MIN_PART_SIZE);
+    }
+
+    public MultipartUploadOutputStream(
+            final S3Client s3Client,
+            final String bucketName,
+            final String objectKey,
+            final int partSize) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.objectKey = objectKey;
+        this.buffer = new byte[partSize];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        if (count == buffer.length) {
+            uploadPart();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        ensureOpen();
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        int written = 0;
+        while (written < length) {
+            if (count == buffer.length) {
+                uploadPart();
+            }
+            final int chunk = Math.min(length - written, buffer.length - count);
+            System.arraycopy(bytes, offset + written, buffer, count, chunk);
+            count += chunk;
+            written += chunk;
+        }
+    }
+
+    /**
+     * Uploads whatever is buffered and completes the object.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (Objects.isNull(uploadId)) {
+                s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(objectKey)
+                        .build(), RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, count), count));
+                count = 0;
+            } else {
+                if (count > 0) {
+                    uploadPart();
+                }
+                complete();
+            }
+        } catch (final RuntimeException exception) {
+            abandon();
+            throw new IOException("Unable to upload " + objectKey, exception);
+        }
+        closed = true;
+    }
+
+    /**
+     * Closes the stream after a failure and aborts the multipart upload, so that no truncated object is written.
+     */
+    public void abandon() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (Objects.isNull(uploadId)) {
+            return;
+        }
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (final RuntimeException exception) {
+            LOG.error("Unable to abort multipart upload {} of {}", uploadId, objectKey, exception);
+        }
+    }
+
+    private void uploadPart() throws IOException {
+        try {
+            if (Objects.isNull(uploadId)) {
+                uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(objectKey)
+                        .build()).uploadId();
+            }
+            final int partNumber = completedParts.size() + 1;
+            final UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength((long) count)
+                    .build(), RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, count), count));
+            completedParts.add(CompletedPart.builder()
+                    .partNumber(partNumber)
+                    .eTag(response.eTag())
+                    .build());
+        } catch (final RuntimeException exception) {
+            throw new IOException("Unable to upload part of " + objectKey, exception);
+        }
+        count = 0;
+    }
+
+    private void complete() {
+        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder()
+                        .parts(completedParts)
+                        .build())
+                .build());
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -2,156 +2,164 @@ package org.seattleoba.lambda.requesthandler;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.seattleoba.data.dynamodb.bean.BevyTicket;
+import org.seattleoba.lambda.dlq.DeadLetterClassification;
+import org.seattleoba.lambda.dlq.DeadLetterClassifier;
+import org.seattleoba.lambda.dlq.DeadLetterQueueDrainer;
+import org.seattleoba.lambda.dlq.ErrorStore;
+import org.seattleoba.lambda.metrics.Metrics;
+import org.seattleoba.lambda.metrics.MetricsPublisher;
 import org.seattleoba.lambda.model.BevyDLQReportResult;
 import org.seattleoba.lambda.model.BevyTicketErrorEntry;
-import org.seattleoba.lambda.model.BevyTicketEvent;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.Key;
+import org.seattleoba.lambda.report.MultipartUploadOutputStream;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.model.PutObjectResponse;
-import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.*;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.Message;
 
 import javax.inject.Inject;
-import java.io.File;
+import javax.inject.Named;
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class BevyTicketDLQEventRequestHandler implements RequestHandler<Void, BevyDLQReportResult> {
     private static final Logger LOG = LogManager.getLogger(BevyTicketDLQEventRequestHandler.class);
-    private static final String SQS_DLQ_URL = System.getenv("SQS_QUEUE_URL");
-    private static final String REPORT_S3_BUCKET_NAME = System.getenv("S3_BUCKET_NAME");
-    private static final Integer MAX_BATCH_SIZE = 10;
-    private static final Integer VISIBILITY_TIMEOUT_IN_SECONDS = 60;
+    private static final String HANDLER_NAME = "DLQReport";
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+    private static final CsvSchema CSV_SCHEMA = CSV_MAPPER.schemaFor(BevyTicketErrorEntry.class).withHeader();
 
-    private final SqsClient sqsClient;
+    private final SqsAsyncClient sqsAsyncClient;
     private final S3Client s3Client;
-    private final ObjectMapper objectMapper;
-    private final DynamoDbTable<BevyTicket> bevyTicketTable;
+    private final DeadLetterClassifier deadLetterClassifier;
+    private final ErrorStore errorStore;
+    private final MetricsPublisher metricsPublisher;
+    private final String deadLetterQueueUrl;
+    private final String reportBucketName;
+    private final int receiverCount;
+    private final long reportReserveMillis;
 
     @Inject
     public BevyTicketDLQEventRequestHandler(
-            final SqsClient sqsClient,
+            final SqsAsyncClient sqsAsyncClient,
             final S3Client s3Client,
-            final ObjectMapper objectMapper,
-            final DynamoDbTable<BevyTicket> bevyTicketTable) {
-        this.sqsClient = sqsClient;
+            final DeadLetterClassifier deadLetterClassifier,
+            final ErrorStore errorStore,
+            final MetricsPublisher metricsPublisher,
+            @Named("queueUrl") final String deadLetterQueueUrl,
+            @Named("reportBucketName") final String reportBucketName,
+            @Named("dlqReceiverCount") final int receiverCount,
+            @Named("dlqReportReserveMillis") final long reportReserveMillis) {
+        this.sqsAsyncClient = sqsAsyncClient;
         this.s3Client = s3Client;
-        this.objectMapper = objectMapper;
-        this.bevyTicketTable = bevyTicketTable;
+        this.deadLetterClassifier = deadLetterClassifier;
+        this.errorStore = errorStore;
+        this.metricsPublisher = metricsPublisher;
+        this.deadLetterQueueUrl = deadLetterQueueUrl;
+        this.reportBucketName = reportBucketName;
+        this.receiverCount = receiverCount;
+        this.reportReserveMillis = reportReserveMillis;
     }
 
     @Override
     public BevyDLQReportResult handleRequest(final Void input, final Context context) {
-        final Collection<Message> messages = new HashSet<>();
-        ReceiveMessageResponse receiveMessageResponse = receiveMessage();
-        while (receiveMessageResponse.hasMessages()) {
-            messages.addAll(receiveMessageResponse.messages());
-            receiveMessageResponse = receiveMessage();
+        try (final Metrics metrics = metricsPublisher.start(HANDLER_NAME)) {
+            return handleRequest(context, metrics);
         }
+    }
 
-        final Collection<BevyTicketErrorEntry> errorEntries = new HashSet<>();
-        messages.forEach(message -> {
-            try {
-                final BevyTicketEvent bevyTicketEvent = objectMapper.readValue(message.body(), BevyTicketEvent.class);
-                final Integer eventId = bevyTicketEvent.eventId();
-                final Integer ticketId = bevyTicketEvent.ticketId();
-                final String purchaserName = bevyTicketEvent.purchaserName();
-                final String ticketNumber;
-                if (Objects.isNull(bevyTicketEvent.ticketNumber()) || bevyTicketEvent.ticketNumber().isEmpty()) {
-                    ticketNumber = bevyTicketTable.getItem(Key.builder()
-                            .partitionValue(eventId)
-                            .sortValue(ticketId)
-                            .build()).getTicketId();
-                } else {
-                    ticketNumber = bevyTicketEvent.ticketNumber();
-                }
-                final String failureCode;
-                if (ticketNumber.isEmpty()) {
-                    failureCode = "MISSING_PURCHASER_NAME";
-                } else if (!purchaserName.matches("[A-Za-z0-9_]+")) {
-                    failureCode = "INVALID_NAME";
-                } else {
-                    failureCode = "TWITCH_API_ERROR";
-                }
-                errorEntries.add(new BevyTicketErrorEntry(eventId, ticketId, ticketNumber, purchaserName, failureCode));
-            } catch (final Exception exception) {
-                LOG.error("Unable to process message {}", message.messageId());
-            }
-        });
+    private BevyDLQReportResult handleRequest(final Context context, final Metrics metrics) {
+        final long runStartMillis = System.currentTimeMillis();
+        final long deadlineMillis = runStartMillis + context.getRemainingTimeInMillis() - reportReserveMillis;
+        final Set<Integer> eventIds = new TreeSet<>();
 
-        final CsvMapper mapper = new CsvMapper();
-        final CsvSchema csvSchema = mapper.schemaFor(BevyTicketErrorEntry.class).withHeader();
-        final File outputFile = new File(String.format("/tmp/output-%d.csv", System.currentTimeMillis()));
-        try (final SequenceWriter writer = mapper.writer(csvSchema).writeValues(outputFile)) {
-            writer.writeAll(errorEntries);
-        } catch (final IOException exception) {
-            LOG.error("Unable to write failed entries to file", exception);
-            throw new RuntimeException(exception);
+        // A message is deleted as soon as its entry is in the error table, which is what the report is built from.
+        try (final DeadLetterQueueDrainer drainer =
+                     new DeadLetterQueueDrainer(sqsAsyncClient, deadLetterQueueUrl, receiverCount, deadlineMillis)) {
+            drainer.start();
+            List<Message> messages = drainer.take(MAX_BATCH_SIZE);
+            while (!messages.isEmpty()) {
+                final long classifyStart = System.currentTimeMillis();
+                final DeadLetterClassification classification = deadLetterClassifier.classify(messages);
+                final long recordStart = System.currentTimeMillis();
+                metrics.time("ClassifyTime", recordStart - classifyStart);
+                final Set<String> failedMessageIds = errorStore.record(classification.errorEntries(), recordStart);
+                metrics.time("ErrorStoreTime", System.currentTimeMillis() - recordStart);
+                metrics.count("DeadLetters", messages.size());
+                metrics.count("UnresolvedMessages", classification.unresolvedMessageIds().size());
+                metrics.count("ErrorStoreFailures", failedMessageIds.size());
+                classification.errorEntries().values().forEach(messageEntries -> messageEntries.forEach(errorEntry -> {
+                    eventIds.add(errorEntry.eventId());
+                    metrics.count("ErrorEntries", errorEntry.eventId(), 1);
+                }));
+                drainer.delete(messages.stream()
+                        .map(Message::messageId)
+                        .filter(messageId -> !classification.unresolvedMessageIds().contains(messageId))
+                        .filter(messageId -> !failedMessageIds.contains(messageId))
+                        .collect(Collectors.toList()));
+                messages = drainer.take(MAX_BATCH_SIZE);
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
         }
+        // Only a drain that emptied the queue shows which tickets are no longer dead-lettered.
+        final boolean drained = System.currentTimeMillis() < deadlineMillis;
 
         final String objectKey = String.format("error-reports/%d.csv", System.currentTimeMillis());
-        final PutObjectResponse putObjectResponse;
+        final long reportStart = System.currentTimeMillis();
+        final int recordsReported = writeReport(objectKey, eventIds, runStartMillis);
+        metrics.time("ReportTime", System.currentTimeMillis() - reportStart);
+        metrics.count("ReportEntries", recordsReported);
+        LOG.info("Successfully uploaded report {} with {} entries", objectKey, recordsReported);
+        if (drained) {
+            eventIds.forEach(eventId -> {
+                try {
+                    metrics.count("ResolvedTickets", eventId,
+                            errorStore.resolveTicketsNotSeenSince(eventId, runStartMillis));
+                } catch (final Exception exception) {
+                    LOG.error("Unable to resolve tickets of event {} that are no longer dead-lettered",
+                            eventId,
+                            exception);
+                }
+            });
+        }
+        eventIds.forEach(eventId ->
+                LOG.info("Failing tickets for event {}: {}", eventId, errorStore.ticketCountsByFailureCode(eventId)));
+
+        return new BevyDLQReportResult(recordsReported, reportBucketName, objectKey);
+    }
+
+    /**
+     * Streams every entry seen during this run from the error table into the report, one query page at a time.
+     */
+    private int writeReport(final String objectKey, final Set<Integer> eventIds, final long runStartMillis) {
+        final MultipartUploadOutputStream outputStream =
+                new MultipartUploadOutputStream(s3Client, reportBucketName, objectKey);
+        int recordsReported = 0;
         try {
-            putObjectResponse = s3Client.putObject(PutObjectRequest.builder()
-                    .bucket(REPORT_S3_BUCKET_NAME)
-                    .key(objectKey)
-                    .build(), RequestBody.fromFile(outputFile));
-        } catch (final Exception exception) {
+            final SequenceWriter writer = CSV_MAPPER.writer(CSV_SCHEMA).writeValues(outputStream);
+            for (final Integer eventId : eventIds) {
+                final Iterator<BevyTicketErrorEntry> errorEntries =
+                        errorStore.entriesSeenSince(eventId, runStartMillis).iterator();
+                while (errorEntries.hasNext()) {
+                    writer.write(errorEntries.next());
+                    recordsReported++;
+                }
+            }
+            writer.close();
+        } catch (final IOException | RuntimeException exception) {
             LOG.error("Unable to upload report {} to S3 bucket {}",
                     objectKey,
-                    REPORT_S3_BUCKET_NAME,
+                    reportBucketName,
                     exception);
+            outputStream.abandon();
             throw new RuntimeException(exception);
         }
-        LOG.info("Successfully uploaded report {}", putObjectResponse);
-
-        // Delete processed messages from DLQ
-        final Iterator<Message> messageIterator = messages.iterator();
-        while (messageIterator.hasNext()) {
-            final Collection<String> receiptHandlesBatch = new HashSet<>();
-            while (messageIterator.hasNext() && receiptHandlesBatch.size() < MAX_BATCH_SIZE) {
-                receiptHandlesBatch.add(messageIterator.next().receiptHandle());
-            }
-            try {
-                final DeleteMessageBatchResponse response = deleteMessages(receiptHandlesBatch);
-                response.failed().forEach(failure ->
-                        LOG.error("Failed to delete message {}", failure));
-            } catch (final Exception exception) {
-                LOG.error("Unable to delete messages from SQS queue {}", SQS_DLQ_URL, exception);
-            }
-        }
-
-        return new BevyDLQReportResult(errorEntries.size(), REPORT_S3_BUCKET_NAME, objectKey);
-    }
-
-    private ReceiveMessageResponse receiveMessage() {
-        return sqsClient.receiveMessage(ReceiveMessageRequest.builder()
-                .maxNumberOfMessages(MAX_BATCH_SIZE)
-                .queueUrl(SQS_DLQ_URL)
-                .visibilityTimeout(VISIBILITY_TIMEOUT_IN_SECONDS)
-                .build());
-    }
-
-    private DeleteMessageBatchResponse deleteMessages(final Collection<String> receiptHandles) {
-        return sqsClient.deleteMessageBatch(DeleteMessageBatchRequest.builder()
-                .entries(receiptHandles.stream()
-                        .map(handle -> DeleteMessageBatchRequestEntry.builder()
-                                .id(UUID.randomUUID().toString())
-                                .receiptHandle(handle)
-                                .build())
-                        .collect(Collectors.toSet()))
-                .queueUrl(SQS_DLQ_URL)
-                .build());
+        return recordsReported;
     }
 }
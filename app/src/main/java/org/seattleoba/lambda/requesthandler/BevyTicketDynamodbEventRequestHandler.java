@@ -2,100 +2,211 @@ package org.seattleoba.lambda.requesthandler;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
 import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
 import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
-import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.seattleoba.lambda.model.BevyTicketEvent;
-import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
-import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
-import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import org.seattleoba.lambda.message.BevyTicketEventCodec;
+import org.seattleoba.lambda.message.BevyTicketMessageSender;
+import org.seattleoba.lambda.message.OutgoingMessage;
+import org.seattleoba.lambda.message.SendOutcome;
+import org.seattleoba.lambda.metrics.MetricUnit;
+import org.seattleoba.lambda.metrics.Metrics;
+import org.seattleoba.lambda.metrics.MetricsPublisher;
+import org.seattleoba.lambda.model.BevyTicketMessageFormat;
+import org.seattleoba.lambda.stream.CoalescedTicketEvent;
+import org.seattleoba.lambda.stream.TicketEventCoalescer;
+import org.seattleoba.lambda.stream.TicketStreamEventSerializer;
+import org.seattleoba.lambda.stream.TicketStreamRecord;
 
 import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
 import java.util.*;
+import java.util.stream.Collectors;
 
-public class BevyTicketDynamodbEventRequestHandler implements RequestHandler<DynamodbEvent, StreamsEventResponse> {
+public class BevyTicketDynamodbEventRequestHandler implements RequestHandler<DynamodbEvent, StreamsEventResponse>, RequestStreamHandler {
     private static final Logger LOG = LogManager.getLogger(BevyTicketDynamodbEventRequestHandler.class);
-    private static final String SQS_QUEUE_URL = System.getenv("SQS_QUEUE_URL");
-    private static final Integer MAX_SQS_BATCH_SIZE = 10;
-    private static final String EVENT_ID_FIELD_NAME = "event_id";
-    private static final String ID_FIELD_NAME = "id";
-    private static final String PURCHASER_NAME_FIELD_NAME = "purchaser_name";
-    private static final String TICKET_ID_FIELD_NAME = "ticket_id";
-    private static final String REMOVE_EVENT_NAME = "REMOVE";
+    private static final String HANDLER_NAME = "DynamoDbStream";
+    // Retries stop when less than this is left of the invocation, so that the response still reaches Lambda.
+    private static final long RETRY_RESERVE_MILLIS = 5_000L;
 
-    private final ObjectMapper objectMapper;
-    private final SqsClient sqsClient;
+    private final BevyTicketEventCodec codec;
+    private final TicketStreamEventSerializer streamEventSerializer;
+    private final BevyTicketMessageSender messageSender;
+    private final MetricsPublisher metricsPublisher;
+    private final String queueUrl;
+    private final BevyTicketMessageFormat messageFormat;
+    private final int maxEventsPerMessage;
 
     @Inject
     public BevyTicketDynamodbEventRequestHandler(
-            final ObjectMapper objectMapper,
-            final SqsClient sqsClient) {
-        this.objectMapper = objectMapper;
-        this.sqsClient = sqsClient;
+            final BevyTicketEventCodec codec,
+            final TicketStreamEventSerializer streamEventSerializer,
+            final BevyTicketMessageSender messageSender,
+            final MetricsPublisher metricsPublisher,
+            @Named("queueUrl") final String queueUrl,
+            @Named("messageFormat") final BevyTicketMessageFormat messageFormat,
+            @Named("maxEventsPerMessage") final int maxEventsPerMessage) {
+        this.codec = codec;
+        this.streamEventSerializer = streamEventSerializer;
+        this.messageSender = messageSender;
+        this.metricsPublisher = metricsPublisher;
+        this.queueUrl = queueUrl;
+        this.messageFormat = messageFormat;
+        this.maxEventsPerMessage = maxEventsPerMessage;
     }
 
     @Override
     public StreamsEventResponse handleRequest(final DynamodbEvent input, final Context context) {
-        final List<StreamsEventResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
+        try (final Metrics metrics = metricsPublisher.start(HANDLER_NAME)) {
+            return handleRequest(
+                    input.getRecords().stream()
+                            .map(TicketStreamRecord::of)
+                            .collect(Collectors.toList()),
+                    context,
+                    metrics);
+        }
+    }
+
+    /**
+     * Entry point Lambda invokes, which reads only the attributes the handler needs from the event JSON instead of
+     * deserializing every record into a {@link DynamodbEvent}.
+     */
+    @Override
+    public void handleRequest(final InputStream input, final OutputStream output, final Context context)
+            throws IOException {
+        try (final Metrics metrics = metricsPublisher.start(HANDLER_NAME)) {
+            final long decodeStart = System.currentTimeMillis();
+            final List<TicketStreamRecord> records = streamEventSerializer.read(input);
+            metrics.time("DecodeTime", System.currentTimeMillis() - decodeStart);
+            streamEventSerializer.writeResponse(handleRequest(records, context, metrics), output);
+        }
+    }
 
-        final Map<Integer, String> ticketIdToSequenceNumber = new HashMap<>();
-        final Set<BevyTicketEvent> bevyTicketEvents = new HashSet<>();
-        input.getRecords().forEach(record -> {
-            if (!record.getEventName().equals(REMOVE_EVENT_NAME)) {
-                final String sequenceNumber = record.getDynamodb().getSequenceNumber();
-                final Map<String, AttributeValue> newImage = record.getDynamodb().getNewImage();
-                final Integer eventId = Integer.parseInt(newImage.get(EVENT_ID_FIELD_NAME).getN());
-                final Integer id = Integer.parseInt(newImage.get(ID_FIELD_NAME).getN());
-                final String purchaserName = newImage.get(PURCHASER_NAME_FIELD_NAME).getS();
-                final String ticketId = newImage.get(TICKET_ID_FIELD_NAME).getS();
-                bevyTicketEvents.add(new BevyTicketEvent(eventId, id, ticketId, purchaserName));
-                ticketIdToSequenceNumber.put(id, sequenceNumber);
+    private StreamsEventResponse handleRequest(
+            final List<TicketStreamRecord> records,
+            final Context context,
+            final Metrics metrics) {
+        final long start = System.currentTimeMillis();
+        final List<CoalescedTicketEvent> coalescedEvents = TicketEventCoalescer.coalesceRecords(records);
+        // A ticket without a purchaser name has no Twitch login to register.
+        final List<CoalescedTicketEvent> events = new ArrayList<>(coalescedEvents.size());
+        for (final CoalescedTicketEvent event : coalescedEvents) {
+            final String purchaserName = event.bevyTicketEvent().purchaserName();
+            if (Objects.isNull(purchaserName) || purchaserName.isBlank()) {
+                LOG.warn("Skipping ticket event {} without a purchaser name", event.bevyTicketEvent());
+            } else {
+                events.add(event);
             }
-        });
+        }
+        final List<OutgoingMessage<CoalescedTicketEvent>> messages = new ArrayList<>();
+        // Events that can never be delivered: they are logged and dropped rather than holding the stream back,
+        // since they would fail the same way on every retry of the shard.
+        final List<CoalescedTicketEvent> rejectedEvents = new ArrayList<>();
+        group(events).forEach(group -> addMessages(group, messages, rejectedEvents));
+        LOG.info("Coalesced {} stream records into {} ticket events in {} messages",
+                records.size(),
+                events.size(),
+                messages.size());
+        metrics.count("StreamRecords", records.size());
+        metrics.count("CoalescedEvents", coalescedEvents.size());
+        metrics.count("SkippedEvents", coalescedEvents.size() - events.size());
+        metrics.count("MessagesBuilt", messages.size());
 
-        final Iterator<BevyTicketEvent> eventIterator = bevyTicketEvents.iterator();
-        while (eventIterator.hasNext()) {
-            final Collection<String> sequenceNumbers = new HashSet<>();
-            final Collection<SendMessageBatchRequestEntry> entries = new ArrayList<>();
-            while (eventIterator.hasNext() && entries.size() < MAX_SQS_BATCH_SIZE) {
-                final BevyTicketEvent bevyTicketEvent = eventIterator.next();
-                final String sequenceNumber = ticketIdToSequenceNumber.get(bevyTicketEvent.ticketId());
-                try {
-                    entries.add(SendMessageBatchRequestEntry.builder()
-                            .id(Integer.toString(bevyTicketEvent.ticketId()))
-                            .messageBody(objectMapper.writeValueAsString(bevyTicketEvent))
-                            .build());
-                    sequenceNumbers.add(sequenceNumber);
-                } catch (final Exception exception) {
-                    LOG.error("Unable to serialize ticket {} to JSON", bevyTicketEvent, exception);
-                    batchItemFailures.add(new StreamsEventResponse.BatchItemFailure(sequenceNumber));
+        // Lambda resumes the shard from the lowest reported sequence number, so once a message cannot be delivered,
+        // later messages would only be sent twice. Only throttling and server faults stop the sends; a packed message
+        // SQS rejects as a sender fault is sent again one event per message, so that only the offending events are
+        // dropped.
+        final List<CoalescedTicketEvent> failedEvents = new ArrayList<>();
+        int sent = 0;
+        while (sent < messages.size() && failedEvents.isEmpty()) {
+            final List<OutgoingMessage<CoalescedTicketEvent>> batch = BevyTicketMessageSender.nextBatch(messages, sent);
+            sent += batch.size();
+            final SendOutcome<CoalescedTicketEvent> outcome =
+                    messageSender.send(queueUrl, batch, context, RETRY_RESERVE_MILLIS, metrics);
+            outcome.failed().forEach(message -> failedEvents.addAll(message.events()));
+            for (final OutgoingMessage<CoalescedTicketEvent> message : outcome.rejected()) {
+                if (message.events().size() > 1) {
+                    LOG.warn("Sending the {} ticket events of a rejected message one per message", message.events().size());
+                    message.events().forEach(event -> addMessages(List.of(event), messages, rejectedEvents));
+                } else {
+                    LOG.error("Dropping ticket event {} rejected by SQS", message.events().get(0).bevyTicketEvent());
+                    rejectedEvents.addAll(message.events());
                 }
             }
+        }
+        // Every event not yet delivered, whether it failed or was never sent, is retried from the checkpoint.
+        for (int i = sent; i < messages.size(); i++) {
+            failedEvents.addAll(messages.get(i).events());
+        }
+        metrics.count("FailedEvents", failedEvents.size());
+        metrics.count("RejectedEvents", rejectedEvents.size());
+        metrics.record("EventsPerSecond", MetricUnit.COUNT_PER_SECOND,
+                (events.size() - failedEvents.size() - rejectedEvents.size()) * 1000d
+                        / Math.max(1L, System.currentTimeMillis() - start));
+        if (failedEvents.isEmpty()) {
+            return StreamsEventResponse.builder()
+                    .withBatchItemFailures(Collections.emptyList())
+                    .build();
+        }
 
-            boolean batchFailure;
+        final String sequenceNumber = failedEvents.stream()
+                .map(CoalescedTicketEvent::earliestSequenceNumber)
+                .min(Comparator.comparing(BigInteger::new))
+                .get();
+        LOG.error("Unable to deliver {} ticket events, resuming stream from {}", failedEvents.size(), sequenceNumber);
+        return StreamsEventResponse.builder()
+                .withBatchItemFailures(List.of(new StreamsEventResponse.BatchItemFailure(sequenceNumber)))
+                .build();
+    }
+
+    private List<List<CoalescedTicketEvent>> group(final List<CoalescedTicketEvent> events) {
+        if (messageFormat == BevyTicketMessageFormat.PACKED) {
             try {
-                final SendMessageBatchResponse response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
-                        .entries(entries)
-                        .queueUrl(SQS_QUEUE_URL)
-                        .build());
-                batchFailure = response.hasFailed();
+                return codec.pack(
+                        events,
+                        CoalescedTicketEvent::bevyTicketEvent,
+                        maxEventsPerMessage,
+                        BevyTicketEventCodec.MAX_PAYLOAD_BYTES);
             } catch (final Exception exception) {
-                LOG.error("Unable to send message batch {} to SQS", entries, exception);
-                batchFailure = true;
-            }
-            if (batchFailure) {
-                sequenceNumbers.forEach(sequenceNumber ->
-                        batchItemFailures.add(new StreamsEventResponse.BatchItemFailure(sequenceNumber)));
+                LOG.error("Unable to pack ticket events, sending them one per message", exception);
             }
         }
+        return events.stream()
+                .map(Collections::singletonList)
+                .collect(Collectors.toList());
+    }
 
-        return StreamsEventResponse.builder()
-                .withBatchItemFailures(batchItemFailures)
-                .build();
+    /**
+     * Adds the message for a group of events. A group that cannot be serialized is built again one event per
+     * message, so that only the events that fail on their own are dropped.
+     */
+    private void addMessages(
+            final List<CoalescedTicketEvent> group,
+            final List<OutgoingMessage<CoalescedTicketEvent>> messages,
+            final List<CoalescedTicketEvent> rejectedEvents) {
+        try {
+            messages.add(toMessage(group));
+        } catch (final Exception exception) {
+            if (group.size() > 1) {
+                LOG.warn("Unable to serialize {} ticket events to JSON, building them one per message", group.size());
+                group.forEach(event -> addMessages(List.of(event), messages, rejectedEvents));
+                return;
+            }
+            LOG.error("Unable to serialize ticket event {} to JSON, dropping it", group.get(0).bevyTicketEvent(), exception);
+            rejectedEvents.addAll(group);
+        }
     }
 
+    private OutgoingMessage<CoalescedTicketEvent> toMessage(final List<CoalescedTicketEvent> events) throws Exception {
+        final String body = messageFormat == BevyTicketMessageFormat.PACKED
+                ? codec.encode(events.stream().map(CoalescedTicketEvent::bevyTicketEvent).collect(Collectors.toList()))
+                : codec.encode(events.get(0).bevyTicketEvent());
+        return OutgoingMessage.of(body, events.get(0).bevyTicketEvent(), events);
+    }
 }
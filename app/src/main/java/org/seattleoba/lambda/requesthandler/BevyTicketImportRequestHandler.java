@@ -2,87 +2,279 @@ package org.seattleoba.lambda.requesthandler;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
-import org.seattleoba.data.dynamodb.bean.BevyTicket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.seattleoba.data.parser.BevyTicketCsvParser;
-import org.seattleoba.data.util.BevyDateUtil;
-import org.seattleoba.data.util.BevyTicketNumberUtil;
+import org.seattleoba.lambda.dynamodb.bean.BevyRosterImportCheckpoint;
+import org.seattleoba.lambda.dynamodb.bean.HashedBevyTicket;
+import org.seattleoba.lambda.importer.BevyTicketCsvReader;
+import org.seattleoba.lambda.importer.BevyTicketImportWriter;
+import org.seattleoba.lambda.importer.BevyTicketMapper;
+import org.seattleoba.lambda.importer.ImportCheckpointStore;
+import org.seattleoba.lambda.importer.ImportCounters;
+import org.seattleoba.lambda.importer.ParallelRosterImporter;
+import org.seattleoba.lambda.metrics.Metrics;
+import org.seattleoba.lambda.metrics.MetricsPublisher;
+import org.seattleoba.lambda.model.BevyRosterImportMode;
 import org.seattleoba.lambda.model.BevyRosterImportRequest;
 import org.seattleoba.lambda.model.BevyRosterImportResult;
 import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 public class BevyTicketImportRequestHandler implements RequestHandler<BevyRosterImportRequest, BevyRosterImportResult> {
+    private static final Logger LOG = LogManager.getLogger(BevyTicketImportRequestHandler.class);
+    private static final String HANDLER_NAME = "RosterImport";
+    private static final int STREAMING_BATCH_SIZE = 100;
+    private static final int PRECONDITION_FAILED = 412;
+
     private final S3Client s3Client;
-    private final DynamoDbTable<BevyTicket> bevyTicketDynamoDbTable;
+    private final BevyTicketImportWriter bevyTicketImportWriter;
+    private final ImportCheckpointStore importCheckpointStore;
+    private final ParallelRosterImporter parallelRosterImporter;
+    private final MetricsPublisher metricsPublisher;
+    private final long checkpointThresholdMillis;
 
     @Inject
     public BevyTicketImportRequestHandler(
             final S3Client s3Client,
-            final DynamoDbTable<BevyTicket> bevyTicketDynamoDbTable) {
+            final BevyTicketImportWriter bevyTicketImportWriter,
+            final ImportCheckpointStore importCheckpointStore,
+            final ParallelRosterImporter parallelRosterImporter,
+            final MetricsPublisher metricsPublisher,
+            @Named("checkpointThresholdMillis") final long checkpointThresholdMillis) {
         this.s3Client = s3Client;
-        this.bevyTicketDynamoDbTable = bevyTicketDynamoDbTable;
+        this.bevyTicketImportWriter = bevyTicketImportWriter;
+        this.importCheckpointStore = importCheckpointStore;
+        this.parallelRosterImporter = parallelRosterImporter;
+        this.metricsPublisher = metricsPublisher;
+        this.checkpointThresholdMillis = checkpointThresholdMillis;
     }
 
     @Override
     public BevyRosterImportResult handleRequest(
             final BevyRosterImportRequest request,
             final Context context) {
+        final BevyRosterImportResult result;
+        try (final Metrics metrics = metricsPublisher.start(HANDLER_NAME)) {
+            if (Objects.nonNull(request.continuationToken())) {
+                result = resumeStreaming(request.continuationToken(), context, metrics);
+            } else {
+                result = importRoster(request, context, metrics);
+            }
+        }
+        LOG.info("Imported roster {} for event {}: {}", request.objectKey(), request.eventId(), result);
+        return result;
+    }
+
+    private BevyRosterImportResult importRoster(
+            final BevyRosterImportRequest request,
+            final Context context,
+            final Metrics metrics) {
+        final HeadObjectResponse headObjectResponse = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(request.bucketName())
+                .key(request.objectKey())
+                .build());
+        final String eTag = headObjectResponse.eTag();
+        if (importCheckpointStore.isImported(request.eventId(), eTag)) {
+            LOG.info("Roster {} with ETag {} was already imported for event {}",
+                    request.objectKey(),
+                    eTag,
+                    request.eventId());
+            return new ImportCounters().toRosterUnchangedResult();
+        }
+
+        final ImportCounters counters = new ImportCounters();
+        final BevyRosterImportResult result;
+        if (Objects.equals(request.importMode(), BevyRosterImportMode.STREAMING)) {
+            result = importStreaming(request, eTag, counters, context);
+        } else if (Objects.equals(request.importMode(), BevyRosterImportMode.PARALLEL)) {
+            parallelRosterImporter.importRoster(request, headObjectResponse.contentLength(), eTag, counters);
+            result = counters.toResult(null);
+        } else {
+            importBatch(request, eTag, counters);
+            result = counters.toResult(null);
+        }
+        counters.publish(metrics, request.eventId());
+        if (Objects.isNull(result.continuationToken())) {
+            markImported(request.eventId(), request.bucketName(), request.objectKey(), eTag, counters);
+        }
+        return result;
+    }
+
+    private void importBatch(
+            final BevyRosterImportRequest request,
+            final String eTag,
+            final ImportCounters counters) {
         final BevyTicketCsvParser bevyTicketCsvParser = new BevyTicketCsvParser();
         final GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                 .bucket(request.bucketName())
                 .key(request.objectKey())
+                .ifMatch(eTag)
                 .build();
         final List<org.seattleoba.data.model.BevyTicket> bevyTickets;
 
+        final long parseStart = System.currentTimeMillis();
         try (final ResponseInputStream<GetObjectResponse> responseInputStream = s3Client.getObject(getObjectRequest)) {
             bevyTickets = bevyTicketCsvParser.parseCsvFile(responseInputStream);
         } catch (final IOException exception) {
             throw new RuntimeException(exception);
         }
 
-        final AtomicInteger recordsImported = new AtomicInteger();
-        bevyTickets.stream().map(ticket -> {
-            final BevyTicket bevyTicket = new BevyTicket();
-            bevyTicket.setAccessCode(ticket.accessCode());
-            if (Objects.nonNull(ticket.checkInDate()) && !ticket.checkInDate().isEmpty()) {
-                bevyTicket.setCheckInDate(BevyDateUtil.toUnixEpochInSeconds(ticket.checkInDate()));
-            }
-            bevyTicket.setEventId(request.eventId());
-            bevyTicket.setId(BevyTicketNumberUtil.toInteger(ticket.ticketNumber()));
-            bevyTicket.setTicketId(ticket.ticketNumber());
-            bevyTicket.setOrderId(ticket.orderNumber());
-            if (Objects.nonNull(ticket.price()) && !ticket.price().isEmpty()) {
-                bevyTicket.setPrice(new BigDecimal(ticket.price()));
-            } else {
-                bevyTicket.setPrice(new BigDecimal(0));
+        final List<HashedBevyTicket> tickets = bevyTickets.stream()
+                .map(ticket -> BevyTicketMapper.toBevyTicket(request.eventId(), ticket))
+                .collect(Collectors.toList());
+        final long writeStart = System.currentTimeMillis();
+        counters.addParseMillis(writeStart - parseStart);
+        bevyTicketImportWriter.write(tickets, counters);
+        counters.addWriteMillis(System.currentTimeMillis() - writeStart);
+    }
+
+    private BevyRosterImportResult importStreaming(
+            final BevyRosterImportRequest request,
+            final String eTag,
+            final ImportCounters counters,
+            final Context context) {
+        final GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(request.bucketName())
+                .key(request.objectKey())
+                .ifMatch(eTag)
+                .build();
+        try (final ResponseInputStream<GetObjectResponse> responseInputStream = s3Client.getObject(getObjectRequest)) {
+            final BevyTicketCsvReader reader = new BevyTicketCsvReader(responseInputStream);
+            final BevyRosterImportCheckpoint checkpoint = new BevyRosterImportCheckpoint();
+            checkpoint.setImportId(UUID.randomUUID().toString());
+            checkpoint.setEventId(request.eventId());
+            checkpoint.setBucketName(request.bucketName());
+            checkpoint.setObjectKey(request.objectKey());
+            checkpoint.setETag(eTag);
+            checkpoint.setObjectSize(responseInputStream.response().contentLength());
+            checkpoint.setHeader(new String(reader.header(), StandardCharsets.UTF_8));
+            return importRows(checkpoint, responseInputStream, reader, counters, context);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    private BevyRosterImportResult resumeStreaming(
+            final String continuationToken,
+            final Context context,
+            final Metrics metrics) {
+        final BevyRosterImportCheckpoint checkpoint = importCheckpointStore.load(continuationToken)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown continuation token " + continuationToken));
+        final ImportCounters counters = new ImportCounters(
+                checkpoint.getInserted(),
+                checkpoint.getUpdated(),
+                checkpoint.getUnchanged(),
+                checkpoint.getFailed(),
+                // Checkpoints saved before duplicates were counted do not have them.
+                Optional.ofNullable(checkpoint.getDuplicates()).orElse(0));
+        if (Boolean.TRUE.equals(checkpoint.getComplete())) {
+            return counters.toResult(null);
+        }
+        if (checkpoint.getByteOffset() >= checkpoint.getObjectSize()) {
+            importCheckpointStore.save(checkpoint, checkpoint.getByteOffset(), checkpoint.getRowNumber(), counters, true);
+            markImported(checkpoint.getEventId(), checkpoint.getBucketName(), checkpoint.getObjectKey(),
+                    checkpoint.getETag(), counters);
+            return counters.toResult(null);
+        }
+
+        LOG.info("Resuming import {} of {} at row {} (byte {})",
+                continuationToken,
+                checkpoint.getObjectKey(),
+                checkpoint.getRowNumber(),
+                checkpoint.getByteOffset());
+        final GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(checkpoint.getBucketName())
+                .key(checkpoint.getObjectKey())
+                .range(String.format("bytes=%d-", checkpoint.getByteOffset()))
+                .ifMatch(checkpoint.getETag())
+                .build();
+        try (final ResponseInputStream<GetObjectResponse> responseInputStream = s3Client.getObject(getObjectRequest)) {
+            final BevyTicketCsvReader reader = new BevyTicketCsvReader(
+                    responseInputStream,
+                    checkpoint.getHeader().getBytes(StandardCharsets.UTF_8),
+                    checkpoint.getByteOffset(),
+                    checkpoint.getRowNumber());
+            final BevyRosterImportResult result = importRows(checkpoint, responseInputStream, reader, counters, context);
+            counters.publish(metrics, checkpoint.getEventId());
+            if (Objects.isNull(result.continuationToken())) {
+                markImported(checkpoint.getEventId(), checkpoint.getBucketName(), checkpoint.getObjectKey(),
+                        checkpoint.getETag(), counters);
             }
-            if (Objects.nonNull(ticket.purchaseDate()) && !ticket.purchaseDate().isEmpty()) {
-                bevyTicket.setPurchaseDate(BevyDateUtil.toUnixEpochInSeconds(ticket.purchaseDate()));
+            return result;
+        } catch (final S3Exception exception) {
+            if (exception.statusCode() == PRECONDITION_FAILED) {
+                throw new IllegalStateException(String.format("Roster %s changed after import %s started",
+                        checkpoint.getObjectKey(),
+                        continuationToken), exception);
             }
-            bevyTicket.setPurchaserName(ticket.purchaserName());
-            bevyTicket.setTicketType(ticket.ticketType());
-            return bevyTicket;
-        }).forEach(ticket -> {
-            final BevyTicket existingItem = bevyTicketDynamoDbTable.getItem(ticket);
-            if (Objects.isNull(existingItem)) {
-                bevyTicketDynamoDbTable.putItem(ticket);
-                recordsImported.getAndIncrement();
-            } else if (existingItem != ticket) {
-                bevyTicketDynamoDbTable.updateItem(ticket);
-                recordsImported.getAndIncrement();
+            throw exception;
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    private BevyRosterImportResult importRows(
+            final BevyRosterImportCheckpoint checkpoint,
+            final ResponseInputStream<GetObjectResponse> responseInputStream,
+            final BevyTicketCsvReader reader,
+            final ImportCounters counters,
+            final Context context) throws IOException {
+        final boolean resumed = Objects.nonNull(checkpoint.getUpdatedAt());
+        long parseStart = System.currentTimeMillis();
+        List<org.seattleoba.data.model.BevyTicket> bevyTickets = reader.nextBatch(STREAMING_BATCH_SIZE);
+        while (!bevyTickets.isEmpty()) {
+            final List<HashedBevyTicket> tickets = bevyTickets.stream()
+                    .map(ticket -> BevyTicketMapper.toBevyTicket(checkpoint.getEventId(), ticket))
+                    .collect(Collectors.toList());
+            final long writeStart = System.currentTimeMillis();
+            counters.addParseMillis(writeStart - parseStart);
+            bevyTicketImportWriter.write(tickets, counters);
+            counters.addWriteMillis(System.currentTimeMillis() - writeStart);
+            if (context.getRemainingTimeInMillis() < checkpointThresholdMillis) {
+                importCheckpointStore.save(checkpoint, reader.position(), reader.rowNumber(), counters, false);
+                LOG.info("Checkpointed import {} of {} at row {} (byte {})",
+                        checkpoint.getImportId(),
+                        checkpoint.getObjectKey(),
+                        reader.rowNumber(),
+                        reader.position());
+                // Abort rather than close so the rest of the object is not drained from the connection.
+                responseInputStream.abort();
+                return counters.toResult(checkpoint.getImportId());
             }
-        });
+            parseStart = System.currentTimeMillis();
+            bevyTickets = reader.nextBatch(STREAMING_BATCH_SIZE);
+        }
+        if (resumed) {
+            importCheckpointStore.save(checkpoint, reader.position(), reader.rowNumber(), counters, true);
+        }
+        return counters.toResult(null);
+    }
 
-        return new BevyRosterImportResult(recordsImported.get());
+    private void markImported(
+            final Integer eventId,
+            final String bucketName,
+            final String objectKey,
+            final String eTag,
+            final ImportCounters counters) {
+        // Rows that failed must be retried by the next import of the same file, so it is not recorded as imported.
+        if (counters.failed() == 0) {
+            importCheckpointStore.markImported(eventId, bucketName, objectKey, eTag, counters);
+        }
     }
 }
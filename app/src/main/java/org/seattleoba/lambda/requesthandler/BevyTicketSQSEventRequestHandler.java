@@ -5,164 +5,287 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.twitch4j.TwitchClient;
-import com.github.twitch4j.helix.domain.User;
-import com.github.twitch4j.helix.domain.UserList;
+import com.google.common.collect.Lists;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.seattleoba.data.dynamodb.bean.EventRegistration;
-import org.seattleoba.data.dynamodb.bean.TwitchAccount;
+import org.seattleoba.lambda.message.BevyTicketEventCodec;
+import org.seattleoba.lambda.message.BevyTicketEventMessage;
+import org.seattleoba.lambda.message.BevyTicketMessageSender;
+import org.seattleoba.lambda.message.OutgoingMessage;
+import org.seattleoba.lambda.message.SendOutcome;
+import org.seattleoba.lambda.metrics.MetricUnit;
+import org.seattleoba.lambda.metrics.Metrics;
+import org.seattleoba.lambda.metrics.MetricsPublisher;
 import org.seattleoba.lambda.model.BevyTicketEvent;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import org.seattleoba.lambda.model.TwitchRegistrationRequest;
+import org.seattleoba.lambda.registration.EventRegistrationWriter;
+import org.seattleoba.lambda.registration.RegistrationWriteOutcome;
+import org.seattleoba.lambda.twitch.TwitchAccountCache;
+import org.seattleoba.lambda.twitch.TwitchAccountResolution;
+import org.seattleoba.lambda.twitch.TwitchAccountResolver;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 public class BevyTicketSQSEventRequestHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
     private static final Logger LOG = LogManager.getLogger(BevyTicketSQSEventRequestHandler.class);
+    private static final String HANDLER_NAME = "SQSConsumer";
     private static final Integer MAX_BATCH_SIZE = 100;
+    // Requeue retries stop when less than this is left of the invocation, so that the response still reaches Lambda.
+    private static final long REQUEUE_RESERVE_MILLIS = 2_000L;
+    // Time kept back from the Helix budget so that resolved users can still be persisted before the timeout.
+    private static final long PERSISTENCE_RESERVE_MILLIS = 5_000L;
 
-    private final TwitchClient twitchClient;
-    private final DynamoDbEnhancedClient enhancedClient;
-    private final DynamoDbTable<EventRegistration> eventRegistrationTable;
-    private final DynamoDbTable<TwitchAccount> twitchAccountTable;
-    private final ObjectMapper objectMapper;
+    private final TwitchAccountResolver twitchAccountResolver;
+    private final EventRegistrationWriter eventRegistrationWriter;
+    private final BevyTicketEventCodec codec;
+    private final TwitchAccountCache twitchAccountCache;
+    private final BevyTicketMessageSender messageSender;
+    private final MetricsPublisher metricsPublisher;
+    private final String requeueUrl;
+    private final int concurrency;
 
     @Inject
     public BevyTicketSQSEventRequestHandler(
-            final TwitchClient twitchClient,
-            final DynamoDbEnhancedClient enhancedClient,
-            final DynamoDbTable<EventRegistration> eventRegistrationTable,
-            final DynamoDbTable<TwitchAccount> twitchAccountTable,
-            final ObjectMapper objectMapper) {
-        this.twitchClient = twitchClient;
-        this.enhancedClient = enhancedClient;
-        this.eventRegistrationTable = eventRegistrationTable;
-        this.twitchAccountTable = twitchAccountTable;
-        this.objectMapper = objectMapper;
+            final TwitchAccountResolver twitchAccountResolver,
+            final EventRegistrationWriter eventRegistrationWriter,
+            final BevyTicketEventCodec codec,
+            final TwitchAccountCache twitchAccountCache,
+            final BevyTicketMessageSender messageSender,
+            final MetricsPublisher metricsPublisher,
+            @Named("requeueUrl") final String requeueUrl,
+            @Named("consumerConcurrency") final int concurrency) {
+        this.twitchAccountResolver = twitchAccountResolver;
+        this.eventRegistrationWriter = eventRegistrationWriter;
+        this.codec = codec;
+        this.twitchAccountCache = twitchAccountCache;
+        this.messageSender = messageSender;
+        this.metricsPublisher = metricsPublisher;
+        this.requeueUrl = requeueUrl;
+        this.concurrency = concurrency;
     }
 
     @Override
     public SQSBatchResponse handleRequest(final SQSEvent sqsEvent, final Context context) {
-        final List<SQSBatchResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
+        try (final Metrics metrics = metricsPublisher.start(HANDLER_NAME)) {
+            return handleRequest(sqsEvent, context, metrics);
+        }
+    }
+
+    private SQSBatchResponse handleRequest(final SQSEvent sqsEvent, final Context context, final Metrics metrics) {
+        final long start = System.currentTimeMillis();
+        final Set<String> failedMessageIds = new HashSet<>();
+        final Set<String> packedMessageIds = new HashSet<>();
+        final Set<TwitchRegistrationRequest> failedRequests = ConcurrentHashMap.newKeySet();
+        final long helixDeadlineMillis =
+                System.currentTimeMillis() + context.getRemainingTimeInMillis() - PERSISTENCE_RESERVE_MILLIS;
 
-        final Map<Integer, String> ticketIdToMessageId = new HashMap<>();
-        final Map<String, String> userNameToMessageId = new HashMap<>();
-        final Set<BevyTicketEvent> bevyTicketEvents = new HashSet<>();
+        // Each event is tracked on its own, so duplicate tickets or purchasers in a batch are each reported.
+        final List<TwitchRegistrationRequest> requests = new ArrayList<>();
+        final List<TwitchRegistrationRequest> rejected = new ArrayList<>();
         sqsEvent.getRecords().forEach(message -> {
             final String messageId = message.getMessageId();
             LOG.info("Processing message {}", messageId);
+            final BevyTicketEventMessage bevyTicketEventMessage;
             try {
-                final BevyTicketEvent bevyTicketEvent =
-                        objectMapper.readValue(message.getBody(), BevyTicketEvent.class);
-                bevyTicketEvents.add(bevyTicketEvent);
-                ticketIdToMessageId.put(bevyTicketEvent.ticketId(), messageId);
-                userNameToMessageId.put(bevyTicketEvent.purchaserName().toLowerCase(Locale.ROOT), messageId);
+                bevyTicketEventMessage = codec.decode(message.getBody());
             } catch (final JsonProcessingException exception) {
                 LOG.error("Error encountered while processing message {}", messageId, exception);
-                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(messageId));
+                failedMessageIds.add(messageId);
+                return;
             }
-        });
-
-        final Iterator<BevyTicketEvent> iterator = bevyTicketEvents.iterator();
-
-        while (iterator.hasNext()) {
-            final List<String> userNames = new ArrayList<>();
-            final Map<String, TwitchAccount> twitchAccounts = new HashMap<>();
-            final Map<String, BevyTicketEvent> registrations = new HashMap<>();
-            while (iterator.hasNext() && userNames.size() < MAX_BATCH_SIZE) {
-                final BevyTicketEvent bevyTicketEvent = iterator.next();
-                final String messageId = ticketIdToMessageId.get(bevyTicketEvent.ticketId());
-                final String userName = bevyTicketEvent.purchaserName().toLowerCase(Locale.ROOT);
-
+            if (bevyTicketEventMessage.packed()) {
+                packedMessageIds.add(messageId);
+            }
+            for (final BevyTicketEvent bevyTicketEvent : bevyTicketEventMessage.events()) {
+                // Stream records without a purchaser name decode to a null name.
+                final String userName = Optional.ofNullable(bevyTicketEvent.purchaserName())
+                        .map(purchaserName -> purchaserName.toLowerCase(Locale.ROOT))
+                        .orElse("");
+                final TwitchRegistrationRequest request =
+                        new TwitchRegistrationRequest(messageId, userName, bevyTicketEvent);
                 if (userName.matches("[A-Za-z0-9_]+")) {
-                    userNames.add(userName);
-                    registrations.put(userName, bevyTicketEvent);
+                    requests.add(request);
                 } else {
                     LOG.error("Purchaser name {} is not a valid Twitch login", userName);
-                    batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(messageId));
+                    rejected.add(request);
                 }
+                metrics.count("Events", bevyTicketEvent.eventId(), 1);
             }
+        });
+        failedRequests.addAll(rejected);
 
-            boolean batchFailure = false;
-            try {
-                getTwitchAccounts(userNames).forEach(twitchAccount ->
-                        twitchAccounts.put(twitchAccount.getUserName().toLowerCase(Locale.ROOT), twitchAccount));
-            } catch (final Exception exception) {
-                LOG.error("Twitch GetUsers API call failed for batch", exception);
-                batchFailure = true;
-            }
-
-            if (batchFailure) {
-                userNames.forEach(userName -> {
-                    try {
-                        final TwitchAccount twitchAccount =
-                                getTwitchAccounts(Collections.singletonList(userName)).stream().findAny().get();
-                        twitchAccounts.put(twitchAccount.getUserName().toLowerCase(Locale.ROOT), twitchAccount);
-                    } catch (final Exception exception) {
-                        LOG.error("Twitch GetUsers API call failed for user {}", userName, exception);
-                    }
-                });
+        final Semaphore permits = new Semaphore(concurrency);
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final Map<Future<?>, List<TwitchRegistrationRequest>> chunks = new LinkedHashMap<>();
+            for (final List<TwitchRegistrationRequest> chunk : Lists.partition(requests, MAX_BATCH_SIZE)) {
+                chunks.put(executor.submit(() -> {
+                    processChunk(chunk, helixDeadlineMillis, permits, failedRequests, metrics);
+                    return null;
+                }), chunk);
             }
-
-            for (final String userName : userNames) {
-                final String messageId = userNameToMessageId.get(userName);
-                final BevyTicketEvent bevyTicketEvent = registrations.get(userName);
-                if (twitchAccounts.containsKey(userName)) {
-                    final TwitchAccount twitchAccount = twitchAccounts.get(userName);
-                    final EventRegistration eventRegistration = new EventRegistration();
-                    eventRegistration.setEventId(bevyTicketEvent.eventId());
-                    eventRegistration.setId(bevyTicketEvent.ticketId());
-                    eventRegistration.setTwitchId(twitchAccount.getId());
-                    try {
-                        twitchAccountTable.updateItem(twitchAccounts.get(userName));
-                    } catch (final Exception exception) {
-                        LOG.error("Unable to persist Twitch account information for user {}", userName);
-                        batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(messageId));
-                        break;
-                    }
-                    try {
-                        eventRegistrationTable.updateItem(eventRegistration);
-                    } catch (final Exception exception) {
-                        LOG.error("Unable to persist event registration {} for user {}",
-                                bevyTicketEvent.ticketId(),
-                                userName);
-                        batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(messageId));
-                    }
-                } else {
-                    LOG.error("Unable to find Twitch account for user {}", userName);
-                    batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(messageId));
+            for (final Map.Entry<Future<?>, List<TwitchRegistrationRequest>> chunk : chunks.entrySet()) {
+                try {
+                    chunk.getKey().get();
+                } catch (final ExecutionException exception) {
+                    LOG.error("Unable to process a chunk of {} events", chunk.getValue().size(), exception.getCause());
+                    failedRequests.addAll(chunk.getValue());
                 }
             }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
         }
 
+        // A packed message that failed only in part is not redelivered as a whole: its failed events are sent back to
+        // the queue one per message, so that events already registered are not processed again. Only if some of them
+        // cannot be requeued is the message redelivered.
+        final Map<String, List<TwitchRegistrationRequest>> failedRequestsByMessageId = failedRequests.stream()
+                .collect(Collectors.groupingBy(TwitchRegistrationRequest::messageId));
+        failedRequestsByMessageId.forEach((messageId, failed) -> {
+            if (!packedMessageIds.contains(messageId)) {
+                failedMessageIds.add(messageId);
+                return;
+            }
+            final List<TwitchRegistrationRequest> unsent = requeue(messageId, failed, context, metrics);
+            metrics.count("RequeuedEvents", failed.size() - unsent.size());
+            if (!unsent.isEmpty()) {
+                LOG.error("Unable to requeue {} of {} failed events of packed message {}, redelivering it",
+                        unsent.size(),
+                        failed.size(),
+                        messageId);
+                failedMessageIds.add(messageId);
+            }
+        });
+
+        metrics.count("Messages", sqsEvent.getRecords().size());
+        metrics.count("FailedMessages", failedMessageIds.size());
+        failedRequests.forEach(request -> metrics.count("FailedEvents", request.bevyTicketEvent().eventId(), 1));
+        metrics.record("EventsPerSecond", MetricUnit.COUNT_PER_SECOND,
+                (requests.size() + rejected.size()) * 1000d / Math.max(1L, System.currentTimeMillis() - start));
+
         return SQSBatchResponse.builder()
-                .withBatchItemFailures(batchItemFailures)
+                .withBatchItemFailures(failedMessageIds.stream()
+                        .map(SQSBatchResponse.BatchItemFailure::new)
+                        .collect(Collectors.toList()))
                 .build();
     }
 
-    private Collection<TwitchAccount> getTwitchAccounts(final List<String> userNames) {
-        final UserList userList = twitchClient.getHelix().getUsers(
-                null,
-                null,
-                userNames).execute();
-        return userList.getUsers().stream()
-                .map(this::getTwitchAccount)
+    private void processChunk(
+            final List<TwitchRegistrationRequest> chunk,
+            final long helixDeadlineMillis,
+            final Semaphore permits,
+            final Set<TwitchRegistrationRequest> failedRequests,
+            final Metrics metrics) throws InterruptedException {
+        metrics.record("ChunkSize", MetricUnit.COUNT, chunk.size());
+        final List<String> userNames = chunk.stream()
+                .map(TwitchRegistrationRequest::userName)
+                .distinct()
                 .collect(Collectors.toList());
+
+        // Users left unresolved once the Helix budget is spent are reported as failures right away so that SQS can
+        // redeliver them, instead of waiting for budget until the invocation times out.
+        final TwitchAccountResolution resolution;
+        permits.acquire();
+        final long resolveStart = System.currentTimeMillis();
+        try {
+            resolution = twitchAccountResolver.resolve(userNames, helixDeadlineMillis);
+        } finally {
+            permits.release();
+        }
+        metrics.time("ResolveTime", System.currentTimeMillis() - resolveStart);
+        metrics.count("HelixCalls", resolution.helixCalls());
+        metrics.count("CacheHits", resolution.cachedUserNames().size());
+        metrics.count("CacheMisses", resolution.cacheLookup().misses());
+        metrics.count("CacheStale", resolution.cacheLookup().stale());
+        metrics.count("CacheReadErrors", resolution.cacheLookup().readErrors());
+        metrics.record("CacheHitRate", MetricUnit.PERCENT,
+                100d * resolution.cachedUserNames().size() / userNames.size());
+        if (resolution.helixBudgetExceeded()) {
+            metrics.count("HelixBudgetExceeded", 1);
+            LOG.warn("Helix rate limit budget exhausted, failing {} unresolved users",
+                    userNames.size() - resolution.accounts().size());
+        }
+
+        final List<TwitchRegistrationRequest> resolved = new ArrayList<>();
+        for (final TwitchRegistrationRequest request : chunk) {
+            if (resolution.accounts().containsKey(request.userName())) {
+                resolved.add(request);
+            } else {
+                LOG.error("Unable to find Twitch account for user {}", request.userName());
+                failedRequests.add(request);
+            }
+        }
+        if (resolved.isEmpty()) {
+            return;
+        }
+
+        final RegistrationWriteOutcome outcome;
+        permits.acquire();
+        final long writeStart = System.currentTimeMillis();
+        try {
+            outcome = eventRegistrationWriter.write(resolved, resolution.accounts(), resolution.cachedUserNames());
+        } finally {
+            permits.release();
+        }
+        metrics.time("PersistTime", System.currentTimeMillis() - writeStart);
+        metrics.count("DynamoDbThrottleEvents", outcome.throttleEvents());
+        failedRequests.addAll(outcome.failedRequests());
+        twitchAccountCache.put(outcome.persistedAccounts());
     }
 
-    private TwitchAccount getTwitchAccount(final User user) {
-        final TwitchAccount twitchAccount = new TwitchAccount();
-        twitchAccount.setId(Integer.parseInt(user.getId()));
-        twitchAccount.setUserName(user.getLogin());
-        twitchAccount.setDisplayName(user.getDisplayName());
-        twitchAccount.setUserType(user.getType());
-        twitchAccount.setBroadcasterType(user.getBroadcasterType());
-        twitchAccount.setDescription(user.getDescription());
-        twitchAccount.setCreatedAt(user.getCreatedAt().toEpochMilli());
-        return twitchAccount;
+    /**
+     * Sends the failed events of a packed message back to the queue one per message, retrying only the entries SQS
+     * did not accept, and returns the events that never went out. Events that were accepted stay requeued even when
+     * others are not, so the packed message is only redelivered for events that would otherwise be lost.
+     */
+    private List<TwitchRegistrationRequest> requeue(
+            final String messageId,
+            final List<TwitchRegistrationRequest> failed,
+            final Context context,
+            final Metrics metrics) {
+        if (Objects.isNull(requeueUrl)) {
+            LOG.warn("Neither SQS_REQUEUE_URL nor SQS_QUEUE_URL is set, redelivering packed message {} as a whole",
+                    messageId);
+            return failed;
+        }
+        final List<TwitchRegistrationRequest> unsent = new ArrayList<>();
+        final List<OutgoingMessage<TwitchRegistrationRequest>> messages = new ArrayList<>();
+        for (final TwitchRegistrationRequest request : failed) {
+            final BevyTicketEvent bevyTicketEvent = request.bevyTicketEvent();
+            try {
+                messages.add(OutgoingMessage.of(codec.encode(bevyTicketEvent), bevyTicketEvent, List.of(request)));
+            } catch (final JsonProcessingException exception) {
+                LOG.error("Unable to serialize event {} of packed message {}", bevyTicketEvent, messageId, exception);
+                unsent.add(request);
+            }
+        }
+
+        int sent = 0;
+        while (sent < messages.size()) {
+            final List<OutgoingMessage<TwitchRegistrationRequest>> batch = BevyTicketMessageSender.nextBatch(messages, sent);
+            sent += batch.size();
+            final SendOutcome<TwitchRegistrationRequest> outcome =
+                    messageSender.send(requeueUrl, batch, context, REQUEUE_RESERVE_MILLIS, metrics);
+            outcome.failed().forEach(message -> unsent.addAll(message.events()));
+            for (final OutgoingMessage<TwitchRegistrationRequest> message : outcome.rejected()) {
+                LOG.error("SQS rejected requeued event {} of packed message {}",
+                        message.events().get(0).bevyTicketEvent(),
+                        messageId);
+                unsent.addAll(message.events());
+            }
+        }
+        if (unsent.isEmpty()) {
+            LOG.info("Requeued {} failed events of packed message {}", failed.size(), messageId);
+        }
+        return unsent;
     }
 }
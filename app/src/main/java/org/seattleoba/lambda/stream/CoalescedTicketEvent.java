@@ -0,0 +1,19 @@
+package org.seattleoba.lambda.stream;
+
+import org.seattleoba.lambda.model.BevyTicketEvent;
+
+import java.util.List;
+
+/**
+ * The latest state of a ticket within a batch of stream records, with the sequence numbers of every record that was
+ * folded into it, in stream order.
+ */
+public record CoalescedTicketEvent(BevyTicketEvent bevyTicketEvent, List<String> sequenceNumbers) {
+    /**
+     * Sequence number to report when this event could not be delivered, so that the stream is retried from the
+     * first record it covers.
+     */
+    public String earliestSequenceNumber() {
+        return sequenceNumbers.get(0);
+    }
+}
@@ -0,0 +1,62 @@
+package org.seattleoba.lambda.stream;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Folds the Bevy ticket table's stream records into one event per ticket, keeping the latest image and the sequence
+ * numbers of every record folded into it.
+ */
+public final class TicketEventCoalescer {
+    private TicketEventCoalescer() {
+    }
+
+    public static List<CoalescedTicketEvent> coalesce(final Collection<DynamodbEvent.DynamodbStreamRecord> records) {
+        return coalesceRecords(records.stream()
+                .map(TicketStreamRecord::of)
+                .collect(Collectors.toList()));
+    }
+
+    public static List<CoalescedTicketEvent> coalesceRecords(final List<TicketStreamRecord> records) {
+        final Map<TicketKey, PendingTicket> pendingTickets = new LinkedHashMap<>();
+        for (final TicketStreamRecord record : records) {
+            if (record.isNoOpModify()) {
+                continue;
+            }
+            final TicketKey key = new TicketKey(record.eventId(), record.ticketId());
+            if (record.isRemove()) {
+                pendingTickets.remove(key);
+                continue;
+            }
+            final PendingTicket pendingTicket = pendingTickets.computeIfAbsent(key, ignored -> new PendingTicket());
+            pendingTicket.latest = record;
+            pendingTicket.sequenceNumbers.add(record.sequenceNumber());
+        }
+
+        // Events are only built for the latest record of each ticket.
+        final List<CoalescedTicketEvent> events = new ArrayList<>(pendingTickets.size());
+        pendingTickets.values().forEach(pendingTicket -> events.add(new CoalescedTicketEvent(
+                new BevyTicketEvent(
+                        pendingTicket.latest.eventId(),
+                        pendingTicket.latest.ticketId(),
+                        pendingTicket.latest.ticketNumber(),
+                        pendingTicket.latest.purchaserName()),
+                pendingTicket.sequenceNumbers)));
+        return events;
+    }
+
+    private record TicketKey(int eventId, int ticketId) {
+    }
+
+    private static final class PendingTicket {
+        private final List<String> sequenceNumbers = new ArrayList<>(1);
+        private TicketStreamRecord latest;
+    }
+}
@@ -0,0 +1,249 @@
+package org.seattleoba.lambda.stream;
+
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads a DynamoDB stream event straight into {@link TicketStreamRecord}s, skipping the attributes the stream handler
+ * does not use, and writes the handler's response.
+ */
+public class TicketStreamEventSerializer {
+    private static final String RECORDS_FIELD_NAME = "Records";
+    private static final String EVENT_NAME_FIELD_NAME = "eventName";
+    private static final String DYNAMODB_FIELD_NAME = "dynamodb";
+    private static final String KEYS_FIELD_NAME = "Keys";
+    private static final String NEW_IMAGE_FIELD_NAME = "NewImage";
+    private static final String OLD_IMAGE_FIELD_NAME = "OldImage";
+    private static final String SEQUENCE_NUMBER_FIELD_NAME = "SequenceNumber";
+    private static final String STRING_TYPE = "S";
+    private static final String NUMBER_TYPE = "N";
+    private static final String BATCH_ITEM_FAILURES_FIELD_NAME = "batchItemFailures";
+    private static final String ITEM_IDENTIFIER_FIELD_NAME = "itemIdentifier";
+    // Numbers of up to nine digits always fit in an int.
+    private static final int MAX_FAST_PATH_DIGITS = 9;
+
+    private final JsonFactory jsonFactory;
+
+    @Inject
+    public TicketStreamEventSerializer(final ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public List<TicketStreamRecord> read(final InputStream input) throws IOException {
+        final List<TicketStreamRecord> records = new ArrayList<>();
+        try (final JsonParser parser = jsonFactory.createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a DynamoDB stream event object");
+            }
+            final RecordFields fields = new RecordFields();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.currentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && fieldName.equals(RECORDS_FIELD_NAME)) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        fields.reset();
+                        readRecord(parser, fields);
+                        records.add(fields.toRecord(parser));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return records;
+    }
+
+    public void writeResponse(final StreamsEventResponse response, final OutputStream output) throws IOException {
+        try (final JsonGenerator generator = jsonFactory.createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(BATCH_ITEM_FAILURES_FIELD_NAME);
+            for (final StreamsEventResponse.BatchItemFailure failure : response.getBatchItemFailures()) {
+                generator.writeStartObject();
+                generator.writeStringField(ITEM_IDENTIFIER_FIELD_NAME, failure.getItemIdentifier());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private static void readRecord(final JsonParser parser, final RecordFields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.currentName();
+            final JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_STRING && fieldName.equals(EVENT_NAME_FIELD_NAME)) {
+                fields.eventName = parser.getText();
+            } else if (token == JsonToken.START_OBJECT && fieldName.equals(DYNAMODB_FIELD_NAME)) {
+                readStreamRecord(parser, fields);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readStreamRecord(final JsonParser parser, final RecordFields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.currentName();
+            final JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_STRING && fieldName.equals(SEQUENCE_NUMBER_FIELD_NAME)) {
+                fields.sequenceNumber = parser.getText();
+            } else if (token == JsonToken.START_OBJECT && fieldName.equals(KEYS_FIELD_NAME)) {
+                readImage(parser, fields.keys);
+            } else if (token == JsonToken.START_OBJECT && fieldName.equals(NEW_IMAGE_FIELD_NAME)) {
+                readImage(parser, fields.newImage);
+            } else if (token == JsonToken.START_OBJECT && fieldName.equals(OLD_IMAGE_FIELD_NAME)) {
+                readImage(parser, fields.oldImage);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readImage(final JsonParser parser, final ImageFields image) throws IOException {
+        image.present = true;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String attributeName = parser.currentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (attributeName) {
+                case TicketStreamRecord.EVENT_ID_FIELD_NAME -> {
+                    while (nextValueOfType(parser, NUMBER_TYPE)) {
+                        image.eventId = intValue(parser);
+                        image.hasEventId = true;
+                    }
+                }
+                case TicketStreamRecord.ID_FIELD_NAME -> {
+                    while (nextValueOfType(parser, NUMBER_TYPE)) {
+                        image.ticketId = intValue(parser);
+                        image.hasTicketId = true;
+                    }
+                }
+                case TicketStreamRecord.TICKET_ID_FIELD_NAME -> {
+                    while (nextValueOfType(parser, STRING_TYPE)) {
+                        image.ticketNumber = parser.getText();
+                    }
+                }
+                case TicketStreamRecord.PURCHASER_NAME_FIELD_NAME -> {
+                    while (nextValueOfType(parser, STRING_TYPE)) {
+                        image.purchaserName = parser.getText();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Advances within an attribute value, such as {@code {"N":"467"}}, to its value of the given type, skipping values
+     * of any other type. Returns false once the end of the attribute value is reached.
+     */
+    private static boolean nextValueOfType(final JsonParser parser, final String type) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String valueType = parser.currentName();
+            if (parser.nextToken() == JsonToken.VALUE_STRING && valueType.equals(type)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Parses the current string token as an int from the parser's own buffer, falling back to
+     * {@link Integer#parseInt(String)} for signs, long numbers and malformed input.
+     */
+    private static int intValue(final JsonParser parser) throws IOException {
+        final char[] characters = parser.getTextCharacters();
+        final int offset = parser.getTextOffset();
+        final int length = parser.getTextLength();
+        if (length == 0 || length > MAX_FAST_PATH_DIGITS) {
+            return Integer.parseInt(parser.getText());
+        }
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            final char character = characters[i];
+            if (character < '0' || character > '9') {
+                return Integer.parseInt(parser.getText());
+            }
+            value = value * 10 + (character - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Attributes read from one of a record's keys, new image or old image.
+     */
+    private static final class ImageFields {
+        private boolean present;
+        private boolean hasEventId;
+        private int eventId;
+        private boolean hasTicketId;
+        private int ticketId;
+        private String ticketNumber;
+        private String purchaserName;
+
+        private void reset() {
+            present = false;
+            hasEventId = false;
+            hasTicketId = false;
+            ticketNumber = null;
+            purchaserName = null;
+        }
+    }
+
+    /**
+     * Fields of the record being read, reused from one record to the next.
+     */
+    private static final class RecordFields {
+        private final ImageFields keys = new ImageFields();
+        private final ImageFields newImage = new ImageFields();
+        private final ImageFields oldImage = new ImageFields();
+        private String eventName;
+        private String sequenceNumber;
+
+        private void reset() {
+            keys.reset();
+            newImage.reset();
+            oldImage.reset();
+            eventName = null;
+            sequenceNumber = null;
+        }
+
+        private TicketStreamRecord toRecord(final JsonParser parser) throws JsonParseException {
+            if (Objects.isNull(eventName) || Objects.isNull(sequenceNumber)) {
+                throw new JsonParseException(parser, "Stream record has no event name or sequence number");
+            }
+            final ImageFields key = eventName.equals(TicketStreamRecord.REMOVE_EVENT_NAME) ? keys : newImage;
+            if (!key.hasEventId || !key.hasTicketId) {
+                throw new JsonParseException(parser, String.format(
+                        "Stream record %s has no %s and %s", sequenceNumber,
+                        TicketStreamRecord.EVENT_ID_FIELD_NAME,
+                        TicketStreamRecord.ID_FIELD_NAME));
+            }
+            return new TicketStreamRecord(
+                    eventName,
+                    sequenceNumber,
+                    key.eventId,
+                    key.ticketId,
+                    newImage.ticketNumber,
+                    newImage.purchaserName,
+                    oldImage.present,
+                    oldImage.ticketNumber,
+                    oldImage.purchaserName);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.seattleoba.lambda.stream;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The attributes of a Bevy ticket table stream record that the stream handler uses: the ticket's key, the ticket ID
+ * and purchaser name of its new image, and those of its old image, which tell a no-op MODIFY apart. The key of a
+ * REMOVE comes from the record's keys, every other key from its new image.
+ */
+public record TicketStreamRecord(
+        String eventName,
+        String sequenceNumber,
+        int eventId,
+        int ticketId,
+        String ticketNumber,
+        String purchaserName,
+        boolean hasOldImage,
+        String oldTicketNumber,
+        String oldPurchaserName) {
+    static final String EVENT_ID_FIELD_NAME = "event_id";
+    static final String ID_FIELD_NAME = "id";
+    static final String PURCHASER_NAME_FIELD_NAME = "purchaser_name";
+    static final String TICKET_ID_FIELD_NAME = "ticket_id";
+    static final String REMOVE_EVENT_NAME = "REMOVE";
+    static final String MODIFY_EVENT_NAME = "MODIFY";
+
+    public static TicketStreamRecord of(final DynamodbEvent.DynamodbStreamRecord record) {
+        final Map<String, AttributeValue> newImage = record.getDynamodb().getNewImage();
+        final Map<String, AttributeValue> oldImage = record.getDynamodb().getOldImage();
+        final Map<String, AttributeValue> keys = record.getEventName().equals(REMOVE_EVENT_NAME)
+                ? record.getDynamodb().getKeys()
+                : newImage;
+        return new TicketStreamRecord(
+                record.getEventName(),
+                record.getDynamodb().getSequenceNumber(),
+                Integer.parseInt(keys.get(EVENT_ID_FIELD_NAME).getN()),
+                Integer.parseInt(keys.get(ID_FIELD_NAME).getN()),
+                stringValue(newImage, TICKET_ID_FIELD_NAME),
+                stringValue(newImage, PURCHASER_NAME_FIELD_NAME),
+                Objects.nonNull(oldImage),
+                stringValue(oldImage, TICKET_ID_FIELD_NAME),
+                stringValue(oldImage, PURCHASER_NAME_FIELD_NAME));
+    }
+
+    public boolean isRemove() {
+        return eventName.equals(REMOVE_EVENT_NAME);
+    }
+
+    /**
+     * Returns true for a MODIFY record that leaves the purchaser name and ticket ID unchanged. Downstream consumers
+     * only use those attributes, so such a record needs no new Twitch lookup.
+     */
+    public boolean isNoOpModify() {
+        return eventName.equals(MODIFY_EVENT_NAME)
+                && hasOldImage
+                && Objects.equals(oldPurchaserName, purchaserName)
+                && Objects.equals(oldTicketNumber, ticketNumber);
+    }
+
+    private static String stringValue(final Map<String, AttributeValue> image, final String fieldName) {
+        if (Objects.isNull(image)) {
+            return null;
+        }
+        final AttributeValue value = image.get(fieldName);
+        return Objects.isNull(value) ? null : value.getS();
+    }
+}
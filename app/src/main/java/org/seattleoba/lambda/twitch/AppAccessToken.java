@@ -0,0 +1,11 @@
+package org.seattleoba.lambda.twitch;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The part of a Twitch client credentials token response that is read.
+ */
+public record AppAccessToken(
+        @JsonProperty("access_token") String accessToken,
+        @JsonProperty("expires_in") Long expiresIn) {
+}
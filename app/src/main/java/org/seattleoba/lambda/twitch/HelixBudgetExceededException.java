@@ -0,0 +1,10 @@
+package org.seattleoba.lambda.twitch;
+
+/**
+ * Thrown instead of sending a Helix request when the rate limit budget would not allow it before the deadline.
+ */
+public class HelixBudgetExceededException extends HelixException {
+    public HelixBudgetExceededException(final String message) {
+        super(0, message);
+    }
+}
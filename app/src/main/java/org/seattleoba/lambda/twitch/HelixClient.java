@@ -0,0 +1,109 @@
+package org.seattleoba.lambda.twitch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Minimal Helix client for the Get Users endpoint. It exposes the rate limit headers of each response, which drive
+ * {@link HelixRateLimiter}. The base URL is configurable so that a local stub server can
+ * stand in for Helix.
+ */
+public class HelixClient {
+    private static final int OK = 200;
+    private static final int UNAUTHORIZED = 401;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final HelixRateLimiter rateLimiter;
+    private final String clientId;
+    private final TwitchCredentialProvider twitchCredentialProvider;
+    private final String helixBaseUrl;
+
+    @Inject
+    public HelixClient(
+            final HttpClient httpClient,
+            final ObjectMapper objectMapper,
+            final HelixRateLimiter rateLimiter,
+            @Named("clientId") final String clientId,
+            final TwitchCredentialProvider twitchCredentialProvider,
+            @Named("helixBaseUrl") final String helixBaseUrl) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.rateLimiter = rateLimiter;
+        this.clientId = clientId;
+        this.twitchCredentialProvider = twitchCredentialProvider;
+        this.helixBaseUrl = helixBaseUrl;
+    }
+
+    /**
+     * Looks up users by login, waiting for rate limit budget if needed. Logins that do not exist are left out of
+     * the result.
+     *
+     * @throws HelixBudgetExceededException if no budget is available before {@code deadlineMillis}
+     * @throws HelixException if the request fails
+     */
+    public List<HelixUser> getUsers(final List<String> logins, final long deadlineMillis) {
+        try {
+            final String query = logins.stream()
+                    .map(login -> "login=" + URLEncoder.encode(login, StandardCharsets.UTF_8))
+                    .collect(Collectors.joining("&"));
+            String accessToken = twitchCredentialProvider.accessToken();
+            HttpResponse<String> response = send(query, accessToken, logins.size(), deadlineMillis);
+            if (response.statusCode() == UNAUTHORIZED) {
+                // The token was revoked or the secret rotated; one retry with fresh credentials.
+                twitchCredentialProvider.invalidate(accessToken);
+                accessToken = twitchCredentialProvider.accessToken();
+                response = send(query, accessToken, logins.size(), deadlineMillis);
+            }
+            if (response.statusCode() != OK) {
+                throw new HelixException(response.statusCode(),
+                        String.format("Helix Get Users returned %d: %s", response.statusCode(), response.body()));
+            }
+            return objectMapper.readValue(response.body(), HelixUserList.class).data();
+        } catch (final IOException exception) {
+            throw new HelixException("Helix Get Users request failed", exception);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new HelixException("Interrupted during Helix Get Users request", exception);
+        }
+    }
+
+    private HttpResponse<String> send(
+            final String query,
+            final String accessToken,
+            final int loginCount,
+            final long deadlineMillis) throws IOException, InterruptedException {
+        if (!rateLimiter.acquire(deadlineMillis)) {
+            throw new HelixBudgetExceededException(
+                    String.format("No Helix rate limit budget for %d logins before deadline", loginCount));
+        }
+        final HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(helixBaseUrl + "/users?" + query))
+                .header("Client-Id", clientId)
+                .header("Authorization", "Bearer " + accessToken)
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+        final HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == TOO_MANY_REQUESTS) {
+            rateLimiter.onThrottled(response.headers());
+        } else {
+            rateLimiter.update(response.headers());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,25 @@
+package org.seattleoba.lambda.twitch;
+
+/**
+ * A Helix request that failed, either with an error status or before a response was received.
+ */
+public class HelixException extends RuntimeException {
+    private final int statusCode;
+
+    public HelixException(final int statusCode, final String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public HelixException(final String message, final Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+    }
+
+    /**
+     * HTTP status of the failed response, or 0 when no response was received.
+     */
+    public int statusCode() {
+        return statusCode;
+    }
+}
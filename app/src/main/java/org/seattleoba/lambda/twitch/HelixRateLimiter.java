@@ -0,0 +1,87 @@
+package org.seattleoba.lambda.twitch;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.net.http.HttpHeaders;
+import java.util.OptionalLong;
+
+/**
+ * Client-side token bucket for Helix requests, corrected from the {@code Ratelimit-*} headers of every response.
+ */
+@Singleton
+public class HelixRateLimiter {
+    private static final String LIMIT_HEADER = "Ratelimit-Limit";
+    private static final String REMAINING_HEADER = "Ratelimit-Remaining";
+    private static final String RESET_HEADER = "Ratelimit-Reset";
+    private static final long DEFAULT_LIMIT = 800L;
+    private static final double REFILL_PERIOD_MILLIS = 60_000d;
+
+    private long limit = DEFAULT_LIMIT;
+    private double tokens = DEFAULT_LIMIT;
+    private double tokensPerMilli = DEFAULT_LIMIT / REFILL_PERIOD_MILLIS;
+    private long lastRefillMillis = System.currentTimeMillis();
+
+    @Inject
+    public HelixRateLimiter() {
+    }
+
+    /**
+     * Takes one token, waiting for the bucket to refill if needed. Returns false without waiting when no token would
+     * be available before {@code deadlineMillis}.
+     */
+    public boolean acquire(final long deadlineMillis) throws InterruptedException {
+        while (true) {
+            final long waitMillis;
+            synchronized (this) {
+                final long now = System.currentTimeMillis();
+                refill(now);
+                if (tokens >= 1d) {
+                    tokens -= 1d;
+                    return true;
+                }
+                waitMillis = Math.max(1L, (long) Math.ceil((1d - tokens) / tokensPerMilli));
+                if (now + waitMillis > deadlineMillis) {
+                    return false;
+                }
+            }
+            Thread.sleep(waitMillis);
+        }
+    }
+
+    /**
+     * Synchronizes the bucket with the rate limit headers of a Helix response.
+     */
+    public synchronized void update(final HttpHeaders headers) {
+        final long now = System.currentTimeMillis();
+        refill(now);
+        final OptionalLong headerLimit = headers.firstValueAsLong(LIMIT_HEADER);
+        if (headerLimit.isPresent() && headerLimit.getAsLong() > 0L) {
+            limit = headerLimit.getAsLong();
+        }
+        final OptionalLong remaining = headers.firstValueAsLong(REMAINING_HEADER);
+        if (remaining.isEmpty()) {
+            return;
+        }
+        tokens = Math.min(limit, remaining.getAsLong());
+        final OptionalLong reset = headers.firstValueAsLong(RESET_HEADER);
+        final long millisUntilFull = reset.isPresent() ? reset.getAsLong() * 1000L - now : 0L;
+        tokensPerMilli = millisUntilFull > 0L && tokens < limit
+                ? (limit - tokens) / millisUntilFull
+                : limit / REFILL_PERIOD_MILLIS;
+    }
+
+    /**
+     * Empties the bucket after Helix rejected a request with 429 Too Many Requests.
+     */
+    public synchronized void onThrottled(final HttpHeaders headers) {
+        update(headers);
+        tokens = 0d;
+    }
+
+    private void refill(final long now) {
+        if (now > lastRefillMillis) {
+            tokens = Math.min(limit, tokens + (now - lastRefillMillis) * tokensPerMilli);
+            lastRefillMillis = now;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.seattleoba.lambda.twitch;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record HelixUser(
+        @JsonProperty("id") String id,
+        @JsonProperty("login") String login,
+        @JsonProperty("display_name") String displayName,
+        @JsonProperty("type") String type,
+        @JsonProperty("broadcaster_type") String broadcasterType,
+        @JsonProperty("description") String description,
+        @JsonProperty("created_at") String createdAt) {
+}
@@ -0,0 +1,8 @@
+package org.seattleoba.lambda.twitch;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public record HelixUserList(@JsonProperty("data") List<HelixUser> data) {
+}
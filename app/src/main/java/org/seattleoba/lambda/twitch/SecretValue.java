@@ -0,0 +1,9 @@
+package org.seattleoba.lambda.twitch;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The part of a Secrets Manager GetSecretValue response, as returned by the Lambda secrets extension, that is read.
+ */
+public record SecretValue(@JsonProperty("SecretString") String secretString) {
+}
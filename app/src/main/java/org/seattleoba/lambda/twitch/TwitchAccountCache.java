@@ -0,0 +1,185 @@
+package org.seattleoba.lambda.twitch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.data.dynamodb.bean.TwitchAccount;
+import org.seattleoba.lambda.dynamodb.BatchGetOutcome;
+import org.seattleoba.lambda.dynamodb.BatchWriteOutcome;
+import org.seattleoba.lambda.dynamodb.DynamoDbBatchExecutor;
+import org.seattleoba.lambda.dynamodb.bean.TwitchLogin;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Two-tier cache of Twitch accounts keyed by lower-case login. The first tier is an in-process LRU map that lives
+ * as long as the Lambda execution environment; the second is the Twitch login table, read with BatchGetItem. Entries
+ * older than the TTL are treated as stale so that renamed accounts are eventually looked up again.
+ */
+@Singleton
+public class TwitchAccountCache {
+    private static final Logger LOG = LogManager.getLogger(TwitchAccountCache.class);
+
+    private final DynamoDbBatchExecutor batchExecutor;
+    private final DynamoDbTable<TwitchLogin> twitchLoginTable;
+    private final int maxMemoryEntries;
+    private final Duration ttl;
+    private final Map<String, TwitchLogin> memoryCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, TwitchLogin> eldest) {
+            return size() > maxMemoryEntries;
+        }
+    };
+
+    @Inject
+    public TwitchAccountCache(
+            final DynamoDbBatchExecutor batchExecutor,
+            final DynamoDbTable<TwitchLogin> twitchLoginTable,
+            @Named("twitchCacheMaxEntries") final int maxMemoryEntries,
+            @Named("twitchCacheTtl") final Duration ttl) {
+        this.batchExecutor = batchExecutor;
+        this.twitchLoginTable = twitchLoginTable;
+        this.maxMemoryEntries = maxMemoryEntries;
+        this.ttl = ttl;
+    }
+
+    public TwitchAccountLookup lookup(final Collection<String> logins) {
+        final long now = System.currentTimeMillis();
+        final Map<String, TwitchAccount> accounts = new HashMap<>();
+        final Set<String> expiredLogins = new HashSet<>();
+        final List<String> memoryMisses;
+        int memoryHits = 0;
+        synchronized (memoryCache) {
+            for (final String login : logins) {
+                final TwitchLogin entry = memoryCache.get(login);
+                if (Objects.nonNull(entry) && isFresh(entry, now)) {
+                    accounts.put(login, toTwitchAccount(entry));
+                    memoryHits++;
+                } else if (Objects.nonNull(entry)) {
+                    memoryCache.remove(login);
+                    expiredLogins.add(login);
+                }
+            }
+            memoryMisses = logins.stream()
+                    .filter(login -> !accounts.containsKey(login))
+                    .distinct()
+                    .collect(Collectors.toList());
+        }
+
+        int tableHits = 0;
+        final Set<String> unreadLogins = new HashSet<>();
+        if (!memoryMisses.isEmpty()) {
+            try {
+                final BatchGetOutcome<TwitchLogin> outcome = batchExecutor.getItems(twitchLoginTable,
+                        memoryMisses.stream()
+                                .map(login -> Key.builder().partitionValue(login).build())
+                                .collect(Collectors.toList()));
+                for (final TwitchLogin entry : outcome.items().values()) {
+                    if (isFresh(entry, now)) {
+                        accounts.put(entry.getLogin(), toTwitchAccount(entry));
+                        remember(entry);
+                        tableHits++;
+                    } else {
+                        expiredLogins.add(entry.getLogin());
+                    }
+                }
+                outcome.unprocessedKeys().forEach(key -> unreadLogins.add(key.partitionKeyValue().s()));
+                if (!unreadLogins.isEmpty()) {
+                    LOG.warn("Unable to read {} Twitch logins from the cache table", unreadLogins.size());
+                }
+            } catch (final Exception exception) {
+                LOG.error("Unable to read Twitch login cache table", exception);
+                unreadLogins.addAll(memoryMisses);
+            }
+        }
+
+        // The table may hold a fresh entry for a login it could not return, so an unread login counts as a read
+        // error even when its memory entry had expired.
+        int stale = 0;
+        int readErrors = 0;
+        int misses = 0;
+        for (final String login : memoryMisses) {
+            if (accounts.containsKey(login)) {
+                continue;
+            }
+            if (unreadLogins.contains(login)) {
+                readErrors++;
+            } else if (expiredLogins.contains(login)) {
+                stale++;
+            } else {
+                misses++;
+            }
+        }
+        return new TwitchAccountLookup(accounts, memoryHits, tableHits, misses, stale, readErrors);
+    }
+
+    public void put(final Collection<TwitchAccount> twitchAccounts) {
+        if (twitchAccounts.isEmpty()) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final List<TwitchLogin> entries = twitchAccounts.stream()
+                .map(twitchAccount -> toTwitchLogin(twitchAccount, now))
+                .collect(Collectors.toList());
+        entries.forEach(this::remember);
+        try {
+            final BatchWriteOutcome<TwitchLogin> outcome = batchExecutor.putItems(twitchLoginTable, entries);
+            if (!outcome.unprocessedItems().isEmpty()) {
+                LOG.warn("Unable to cache {} Twitch logins", outcome.unprocessedItems().size());
+            }
+        } catch (final Exception exception) {
+            LOG.warn("Unable to write Twitch login cache table", exception);
+        }
+    }
+
+    private void remember(final TwitchLogin entry) {
+        synchronized (memoryCache) {
+            memoryCache.put(entry.getLogin(), entry);
+        }
+    }
+
+    private boolean isFresh(final TwitchLogin entry, final long now) {
+        return Objects.nonNull(entry.getCachedAt()) && now - entry.getCachedAt() < ttl.toMillis();
+    }
+
+    private TwitchLogin toTwitchLogin(final TwitchAccount twitchAccount, final long now) {
+        final TwitchLogin entry = new TwitchLogin();
+        entry.setLogin(twitchAccount.getUserName().toLowerCase(Locale.ROOT));
+        entry.setTwitchId(twitchAccount.getId());
+        entry.setUserName(twitchAccount.getUserName());
+        entry.setDisplayName(twitchAccount.getDisplayName());
+        entry.setUserType(twitchAccount.getUserType());
+        entry.setBroadcasterType(twitchAccount.getBroadcasterType());
+        entry.setDescription(twitchAccount.getDescription());
+        entry.setCreatedAt(twitchAccount.getCreatedAt());
+        entry.setCachedAt(now);
+        entry.setExpiresAt((now + ttl.toMillis()) / 1000L);
+        return entry;
+    }
+
+    private static TwitchAccount toTwitchAccount(final TwitchLogin entry) {
+        final TwitchAccount twitchAccount = new TwitchAccount();
+        twitchAccount.setId(entry.getTwitchId());
+        twitchAccount.setUserName(entry.getUserName());
+        twitchAccount.setDisplayName(entry.getDisplayName());
+        twitchAccount.setUserType(entry.getUserType());
+        twitchAccount.setBroadcasterType(entry.getBroadcasterType());
+        twitchAccount.setDescription(entry.getDescription());
+        twitchAccount.setCreatedAt(entry.getCreatedAt());
+        return twitchAccount;
+    }
+}
@@ -0,0 +1,19 @@
+package org.seattleoba.lambda.twitch;
+
+import org.seattleoba.data.dynamodb.bean.TwitchAccount;
+
+import java.util.Map;
+
+/**
+ * Accounts found in the Twitch account cache, keyed by lower-case login, with hit and miss counts for the lookup.
+ * Each login that was not found is counted once: as stale when its entry in memory or in the table had expired, as a
+ * read error when the table read failed or left it unprocessed, and otherwise as a miss.
+ */
+public record TwitchAccountLookup(
+        Map<String, TwitchAccount> accounts,
+        int memoryHits,
+        int tableHits,
+        int misses,
+        int stale,
+        int readErrors) {
+}
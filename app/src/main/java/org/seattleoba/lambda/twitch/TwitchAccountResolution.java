@@ -0,0 +1,17 @@
+package org.seattleoba.lambda.twitch;
+
+import org.seattleoba.data.dynamodb.bean.TwitchAccount;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Twitch accounts resolved for a batch of logins, keyed by lower-case login.
+ */
+public record TwitchAccountResolution(
+        Map<String, TwitchAccount> accounts,
+        Set<String> cachedUserNames,
+        TwitchAccountLookup cacheLookup,
+        int helixCalls,
+        boolean helixBudgetExceeded) {
+}
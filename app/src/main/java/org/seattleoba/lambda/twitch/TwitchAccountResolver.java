@@ -0,0 +1,140 @@
+package org.seattleoba.lambda.twitch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seattleoba.data.dynamodb.bean.TwitchAccount;
+import org.seattleoba.lambda.util.ExponentialBackoff;
+
+import javax.inject.Inject;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves purchaser logins to Twitch accounts, using the account cache first and Helix for the rest. A batch that
+ * Helix rejects as a bad request is split in half until the bad logins are isolated.
+ */
+public class TwitchAccountResolver {
+    private static final Logger LOG = LogManager.getLogger(TwitchAccountResolver.class);
+    private static final int BAD_REQUEST = 400;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVER_ERROR = 500;
+    private static final int MAX_TRANSIENT_ATTEMPTS = 3;
+
+    private final TwitchAccountCache twitchAccountCache;
+    private final HelixClient helixClient;
+    private final ExponentialBackoff backoff = new ExponentialBackoff(200L, 2_000L);
+
+    @Inject
+    public TwitchAccountResolver(
+            final TwitchAccountCache twitchAccountCache,
+            final HelixClient helixClient) {
+        this.twitchAccountCache = twitchAccountCache;
+        this.helixClient = helixClient;
+    }
+
+    /**
+     * Resolves lower-case logins. Logins that do not exist, or could not be looked up before the Helix budget ran out
+     * at {@code deadlineMillis}, are left out of the result.
+     */
+    public TwitchAccountResolution resolve(final List<String> userNames, final long deadlineMillis) {
+        final TwitchAccountLookup lookup = twitchAccountCache.lookup(userNames);
+        LOG.info("Twitch account cache: {} memory hits, {} table hits, {} misses, {} stale, {} read errors",
+                lookup.memoryHits(),
+                lookup.tableHits(),
+                lookup.misses(),
+                lookup.stale(),
+                lookup.readErrors());
+
+        final Map<String, TwitchAccount> accounts = new HashMap<>(lookup.accounts());
+        final List<String> uncachedUserNames = userNames.stream()
+                .filter(userName -> !accounts.containsKey(userName))
+                .distinct()
+                .collect(Collectors.toList());
+        final AtomicInteger helixCalls = new AtomicInteger();
+        boolean helixBudgetExceeded = false;
+        try {
+            if (!uncachedUserNames.isEmpty()) {
+                resolveFromHelix(uncachedUserNames, deadlineMillis, accounts, helixCalls);
+            }
+        } catch (final HelixBudgetExceededException exception) {
+            LOG.warn("Helix rate limit budget exhausted after {} calls", helixCalls.get());
+            helixBudgetExceeded = true;
+        }
+        return new TwitchAccountResolution(
+                accounts,
+                lookup.accounts().keySet(),
+                lookup,
+                helixCalls.get(),
+                helixBudgetExceeded);
+    }
+
+    private void resolveFromHelix(
+            final List<String> userNames,
+            final long deadlineMillis,
+            final Map<String, TwitchAccount> accounts,
+            final AtomicInteger helixCalls) {
+        try {
+            getUsers(userNames, deadlineMillis, helixCalls).forEach(user -> {
+                final TwitchAccount twitchAccount = getTwitchAccount(user);
+                accounts.put(twitchAccount.getUserName().toLowerCase(Locale.ROOT), twitchAccount);
+            });
+        } catch (final HelixBudgetExceededException exception) {
+            throw exception;
+        } catch (final HelixException exception) {
+            if (exception.statusCode() != BAD_REQUEST) {
+                LOG.error("Twitch GetUsers API call failed for {} users", userNames.size(), exception);
+            } else if (userNames.size() == 1) {
+                LOG.error("Twitch GetUsers API call rejected user {}", userNames.get(0), exception);
+            } else {
+                final int middle = userNames.size() / 2;
+                resolveFromHelix(userNames.subList(0, middle), deadlineMillis, accounts, helixCalls);
+                resolveFromHelix(userNames.subList(middle, userNames.size()), deadlineMillis, accounts, helixCalls);
+            }
+        }
+    }
+
+    private List<HelixUser> getUsers(
+            final List<String> userNames,
+            final long deadlineMillis,
+            final AtomicInteger helixCalls) {
+        int attempt = 0;
+        while (true) {
+            try {
+                helixCalls.incrementAndGet();
+                return helixClient.getUsers(userNames, deadlineMillis);
+            } catch (final HelixBudgetExceededException exception) {
+                throw exception;
+            } catch (final HelixException exception) {
+                attempt++;
+                if (!isTransient(exception) || attempt >= MAX_TRANSIENT_ATTEMPTS) {
+                    throw exception;
+                }
+                LOG.warn("Retrying Twitch GetUsers after transient failure {}", exception.statusCode());
+                backoff.pause(attempt);
+            }
+        }
+    }
+
+    private static boolean isTransient(final HelixException exception) {
+        return exception.statusCode() == 0
+                || exception.statusCode() == TOO_MANY_REQUESTS
+                || exception.statusCode() >= SERVER_ERROR;
+    }
+
+    private static TwitchAccount getTwitchAccount(final HelixUser user) {
+        final TwitchAccount twitchAccount = new TwitchAccount();
+        twitchAccount.setId(Integer.parseInt(user.id()));
+        twitchAccount.setUserName(user.login());
+        twitchAccount.setDisplayName(user.displayName());
+        twitchAccount.setUserType(user.type());
+        twitchAccount.setBroadcasterType(user.broadcasterType());
+        twitchAccount.setDescription(user.description());
+        twitchAccount.setCreatedAt(Instant.parse(user.createdAt()).toEpochMilli());
+        return twitchAccount;
+    }
+}
@@ -0,0 +1,209 @@
+package org.seattleoba.lambda.twitch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provides the Twitch app access token used for Helix calls. The client secret and token are fetched in the
+ * background and cached until they expire or Helix rejects the token.
+ */
+@Singleton
+public class TwitchCredentialProvider {
+    private static final Logger LOG = LogManager.getLogger(TwitchCredentialProvider.class);
+    private static final String TOKEN_ENDPOINT = "https://id.twitch.tv/oauth2/token";
+    private static final Duration TOKEN_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final String SECRETS_EXTENSION_ENDPOINT = "http://localhost:2773/secretsmanager/get?secretId=";
+    // Used when the token response does not say how long the token lasts.
+    private static final Duration DEFAULT_TOKEN_TTL = Duration.ofHours(1);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String clientId;
+    private final String clientSecretArn;
+    private final Duration secretTtl;
+    private final Duration refreshAhead;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Cached accessToken;
+    private Cached clientSecret;
+    private CompletableFuture<Cached> pendingRefresh;
+
+    @Inject
+    public TwitchCredentialProvider(
+            final HttpClient httpClient,
+            final ObjectMapper objectMapper,
+            @Named("clientId") final String clientId,
+            @Named("clientSecretArn") final String clientSecretArn,
+            @Named("twitchSecretTtl") final Duration secretTtl,
+            @Named("twitchTokenRefreshAhead") final Duration refreshAhead) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.clientId = clientId;
+        this.clientSecretArn = clientSecretArn;
+        this.secretTtl = secretTtl;
+        this.refreshAhead = refreshAhead;
+    }
+
+    /**
+     * Starts fetching the credentials in the background, so that the fetch overlaps the rest of init.
+     */
+    public void prefetch() {
+        refreshAsync();
+    }
+
+    public String accessToken() {
+        final CompletableFuture<Cached> refresh;
+        synchronized (this) {
+            final long now = System.currentTimeMillis();
+            if (Objects.nonNull(accessToken) && now < accessToken.expiresAtMillis() - refreshAhead.toMillis()) {
+                return accessToken.value();
+            }
+            refresh = refreshAsync();
+            if (Objects.nonNull(accessToken) && now < accessToken.expiresAtMillis()) {
+                return accessToken.value();
+            }
+        }
+        try {
+            return refresh.join().value();
+        } catch (final CompletionException exception) {
+            throw new IllegalStateException("Unable to fetch Twitch app access token", exception.getCause());
+        }
+    }
+
+    /**
+     * Drops {@code rejectedAccessToken} and the client secret it was issued for, if they are still cached, so that
+     * the next call to {@link #accessToken()} fetches both again.
+     */
+    public synchronized void invalidate(final String rejectedAccessToken) {
+        if (Objects.nonNull(accessToken) && accessToken.value().equals(rejectedAccessToken)) {
+            LOG.warn("Twitch app access token was rejected, fetching new credentials");
+            accessToken = null;
+            clientSecret = null;
+        }
+    }
+
+    /**
+     * Drops the cached credentials and fetches new ones, waiting for them.
+     */
+    public void refresh() {
+        synchronized (this) {
+            accessToken = null;
+            clientSecret = null;
+        }
+        accessToken();
+    }
+
+    private synchronized CompletableFuture<Cached> refreshAsync() {
+        if (Objects.isNull(pendingRefresh) || pendingRefresh.isDone()) {
+            pendingRefresh = CompletableFuture.supplyAsync(this::fetchAccessToken, executor)
+                    .whenComplete((fetched, throwable) -> {
+                        if (Objects.nonNull(throwable)) {
+                            LOG.error("Unable to fetch Twitch app access token", throwable);
+                            return;
+                        }
+                        synchronized (this) {
+                            accessToken = fetched;
+                        }
+                    });
+        }
+        return pendingRefresh;
+    }
+
+    private Cached fetchAccessToken() {
+        final AppAccessToken appAccessToken = requestAppAccessToken(clientSecret());
+        final long ttlMillis = Optional.ofNullable(appAccessToken.expiresIn())
+                .filter(expiresIn -> expiresIn > 0)
+                .map(expiresIn -> Duration.ofSeconds(expiresIn).toMillis())
+                .orElse(DEFAULT_TOKEN_TTL.toMillis());
+        LOG.info("Fetched Twitch app access token valid for {} s", ttlMillis / 1000L);
+        return new Cached(appAccessToken.accessToken(), System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * Requests an app access token with the OAuth client credentials grant.
+     */
+    private AppAccessToken requestAppAccessToken(final String secret) {
+        try {
+            final String form = String.format("client_id=%s&client_secret=%s&grant_type=client_credentials",
+                    URLEncoder.encode(clientId, StandardCharsets.UTF_8),
+                    URLEncoder.encode(secret, StandardCharsets.UTF_8));
+            final HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(TOKEN_ENDPOINT))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .timeout(TOKEN_REQUEST_TIMEOUT)
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
+                    .build();
+
+            final HttpResponse<String> response = httpClient.send(request,
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(
+                        String.format("Twitch token endpoint returned %d: %s", response.statusCode(), response.body()));
+            }
+            return objectMapper.readValue(response.body(), AppAccessToken.class);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        } catch (final IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private String clientSecret() {
+        synchronized (this) {
+            if (Objects.nonNull(clientSecret) && System.currentTimeMillis() < clientSecret.expiresAtMillis()) {
+                return clientSecret.value();
+            }
+        }
+        final Cached fetched = new Cached(fetchClientSecret(), System.currentTimeMillis() + secretTtl.toMillis());
+        synchronized (this) {
+            clientSecret = fetched;
+        }
+        return fetched.value();
+    }
+
+    private String fetchClientSecret() {
+        try {
+            final HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(SECRETS_EXTENSION_ENDPOINT + clientSecretArn))
+                    .header("X-Aws-Parameters-Secrets-Token", System.getenv("AWS_SESSION_TOKEN"))
+                    .GET()
+                    .build();
+
+            final HttpResponse<String> response = httpClient.send(request,
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(
+                        String.format("Secrets extension returned %d: %s", response.statusCode(), response.body()));
+            }
+            return objectMapper.readValue(response.body(), SecretValue.class).secretString();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        } catch (final Exception exception) {
+            LOG.error("Unable to retrieve Twitch client secret", exception);
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private record Cached(String value, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,30 @@
+package org.seattleoba.lambda.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter, used when retrying throttled or unprocessed AWS requests.
+ */
+public class ExponentialBackoff {
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public ExponentialBackoff(final long baseDelayMillis, final long maxDelayMillis) {
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public long delayMillis(final int attempt) {
+        final long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public void pause(final int attempt) {
+        try {
+            Thread.sleep(delayMillis(attempt));
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", exception);
+        }
+    }
+}
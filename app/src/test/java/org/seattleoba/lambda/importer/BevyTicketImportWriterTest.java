@@ -0,0 +1,103 @@
+package org.seattleoba.lambda.importer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seattleoba.lambda.dynamodb.bean.HashedBevyTicket;
+import org.seattleoba.lambda.model.BevyRosterImportMode;
+import org.seattleoba.lambda.model.BevyRosterImportRequest;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+class BevyTicketImportWriterTest {
+    private static final int EVENT_ID = 467;
+    private static final String OBJECT_KEY = "rosters/467.csv";
+    private static final int ROWS = 200;
+
+    private RosterImportFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new RosterImportFixture();
+        final byte[] roster = RosterImportFixture.roster(EVENT_ID, ROWS, "General Admission");
+        importRoster(fixture.importWriter(), roster, new ImportCounters());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void changedRowsAreUpdated() {
+        final byte[] roster = RosterImportFixture.roster(EVENT_ID, ROWS, "VIP");
+        final ImportCounters counters = new ImportCounters();
+
+        importRoster(fixture.importWriter(), roster, counters);
+
+        assertEquals(0, counters.inserted());
+        assertEquals(ROWS, counters.updated());
+        assertEquals(0, counters.failed());
+        assertEquals("VIP", fixture.ticket(EVENT_ID, 1).getTicketType());
+        assertEquals("VIP", fixture.ticket(EVENT_ID, ROWS).getTicketType());
+    }
+
+    @Test
+    void repeatedRowsInAChunkAreCountedAsDuplicates() {
+        // The repeat of the last row lands in the same 100-row chunk as the row it repeats.
+        final String roster = new String(RosterImportFixture.roster(EVENT_ID, ROWS - 1, "General Admission"),
+                StandardCharsets.UTF_8);
+        final String lastRow = roster.substring(roster.lastIndexOf('\n', roster.length() - 2) + 1);
+        final ImportCounters counters = new ImportCounters();
+
+        importRoster(fixture.importWriter(), (roster + lastRow).getBytes(StandardCharsets.UTF_8), counters);
+
+        assertEquals(ROWS - 1, counters.unchanged());
+        assertEquals(1, counters.duplicates());
+        assertEquals(0, counters.failed());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void throttledUpdatesAreRetried() {
+        final DynamoDbTable<HashedBevyTicket> table = spy(fixture.bevyTicketTable());
+        final DynamoDbException throttled = (DynamoDbException) DynamoDbException.builder()
+                .statusCode(400)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                        .errorCode("ProvisionedThroughputExceededException")
+                        .build())
+                .build();
+        doThrow(throttled, throttled)
+                .doCallRealMethod()
+                .when(table)
+                .putItem(any(PutItemEnhancedRequest.class));
+        final byte[] roster = RosterImportFixture.roster(EVENT_ID, ROWS, "VIP");
+        final ImportCounters counters = new ImportCounters();
+
+        importRoster(fixture.importWriter(table), roster, counters);
+
+        assertEquals(ROWS, counters.updated());
+        assertEquals(0, counters.failed());
+        assertEquals(2, counters.throttleEvents());
+    }
+
+    private void importRoster(final BevyTicketImportWriter importWriter, final byte[] roster,
+                              final ImportCounters counters) {
+        final String eTag = fixture.store(OBJECT_KEY, roster);
+        new ParallelRosterImporter(fixture.s3Client(), importWriter, 4, 8, 2_000).importRoster(
+                new BevyRosterImportRequest(EVENT_ID, RosterImportFixture.BUCKET_NAME, OBJECT_KEY,
+                        BevyRosterImportMode.PARALLEL, null),
+                roster.length,
+                eTag,
+                counters);
+    }
+}
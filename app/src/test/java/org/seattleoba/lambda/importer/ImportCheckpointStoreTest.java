@@ -0,0 +1,82 @@
+package org.seattleoba.lambda.importer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seattleoba.lambda.dynamodb.bean.BevyRosterImportCheckpoint;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportCheckpointStoreTest {
+    private static final int EVENT_ID = 467;
+    private static final String OBJECT_KEY = "rosters/467.csv";
+
+    private RosterImportFixture fixture;
+    private ImportCheckpointStore importCheckpointStore;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new RosterImportFixture();
+        importCheckpointStore = fixture.checkpointStore();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void savedCheckpointLoadsBack() {
+        final BevyRosterImportCheckpoint checkpoint = new BevyRosterImportCheckpoint();
+        checkpoint.setImportId("import-1");
+        checkpoint.setEventId(EVENT_ID);
+        checkpoint.setBucketName(RosterImportFixture.BUCKET_NAME);
+        checkpoint.setObjectKey(OBJECT_KEY);
+        checkpoint.setETag("\"etag-1\"");
+        checkpoint.setObjectSize(10_000L);
+        checkpoint.setHeader("Ticket Number,Order Number\n");
+        final long before = Instant.now().toEpochMilli();
+
+        importCheckpointStore.save(checkpoint, 4_096L, 37L, new ImportCounters(30, 4, 2, 1, 3), false);
+
+        final BevyRosterImportCheckpoint loaded = importCheckpointStore.load("import-1").orElseThrow();
+        assertEquals(EVENT_ID, loaded.getEventId());
+        assertEquals(RosterImportFixture.BUCKET_NAME, loaded.getBucketName());
+        assertEquals(OBJECT_KEY, loaded.getObjectKey());
+        assertEquals("\"etag-1\"", loaded.getETag());
+        assertEquals(10_000L, loaded.getObjectSize());
+        assertEquals("Ticket Number,Order Number\n", loaded.getHeader());
+        assertEquals(4_096L, loaded.getByteOffset());
+        assertEquals(37L, loaded.getRowNumber());
+        assertEquals(30, loaded.getInserted());
+        assertEquals(4, loaded.getUpdated());
+        assertEquals(2, loaded.getUnchanged());
+        assertEquals(1, loaded.getFailed());
+        assertEquals(3, loaded.getDuplicates());
+        assertFalse(loaded.getComplete());
+        assertTrue(loaded.getUpdatedAt() >= before);
+        assertTrue(loaded.getExpiresAt() > Instant.now().plus(Duration.ofDays(6)).getEpochSecond());
+    }
+
+    @Test
+    void unknownImportLoadsEmpty() {
+        assertTrue(importCheckpointStore.load("import-unknown").isEmpty());
+    }
+
+    @Test
+    void importedMarkerIsKeyedByEventAndETag() {
+        importCheckpointStore.markImported(EVENT_ID, RosterImportFixture.BUCKET_NAME, OBJECT_KEY, "\"etag-1\"",
+                new ImportCounters(10, 0, 0, 0, 0));
+
+        assertTrue(importCheckpointStore.isImported(EVENT_ID, "\"etag-1\""));
+        // S3 returns ETags quoted; the marker does not depend on the quotes.
+        assertTrue(importCheckpointStore.isImported(EVENT_ID, "etag-1"));
+        assertFalse(importCheckpointStore.isImported(EVENT_ID, "\"etag-2\""));
+        assertFalse(importCheckpointStore.isImported(EVENT_ID + 1, "\"etag-1\""));
+    }
+}
@@ -0,0 +1,77 @@
+package org.seattleoba.lambda.importer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.seattleoba.lambda.model.BevyRosterImportMode;
+import org.seattleoba.lambda.model.BevyRosterImportRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
+
+class ParallelRosterImporterTest {
+    private static final int EVENT_ID = 467;
+    private static final String OBJECT_KEY = "rosters/467.csv";
+    // Rows of about 1 KB make a roster of about 3 MB, which is split into three ranges of at least 1 MB.
+    private static final int ROWS = 3_000;
+    private static final String TICKET_TYPE = "General Admission " + "x".repeat(1_000);
+
+    private RosterImportFixture fixture;
+    private ParallelRosterImporter parallelRosterImporter;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new RosterImportFixture();
+        parallelRosterImporter = new ParallelRosterImporter(fixture.s3Client(), fixture.importWriter(), 4, 8, 2_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void importsEveryRowOfEveryRangeOnce() {
+        final byte[] roster = RosterImportFixture.roster(EVENT_ID, ROWS, TICKET_TYPE);
+        final String eTag = fixture.store(OBJECT_KEY, roster);
+        final ImportCounters counters = new ImportCounters();
+
+        parallelRosterImporter.importRoster(request(), roster.length, eTag, counters);
+
+        assertEquals(ROWS, counters.inserted());
+        assertEquals(0, counters.unchanged());
+        assertEquals(0, counters.failed());
+        assertEquals(ROWS, fixture.ticketCount());
+        // The header GET and one GET per range.
+        final ArgumentCaptor<GetObjectRequest> getObjectRequests = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(fixture.s3Client(), atLeast(3)).getObject(getObjectRequests.capture());
+        final List<GetObjectRequest> requests = getObjectRequests.getAllValues();
+        assertTrue(requests.stream().allMatch(request -> eTag.equals(request.ifMatch())));
+        assertTrue(requests.stream().anyMatch(request -> request.range().equals("bytes=0-65535")));
+    }
+
+    @Test
+    void reimportOfSameRosterLeavesEveryRowUnchanged() {
+        final byte[] roster = RosterImportFixture.roster(EVENT_ID, ROWS, TICKET_TYPE);
+        final String eTag = fixture.store(OBJECT_KEY, roster);
+        parallelRosterImporter.importRoster(request(), roster.length, eTag, new ImportCounters());
+        final ImportCounters counters = new ImportCounters();
+
+        parallelRosterImporter.importRoster(request(), roster.length, eTag, counters);
+
+        assertEquals(0, counters.inserted());
+        assertEquals(0, counters.updated());
+        assertEquals(ROWS, counters.unchanged());
+    }
+
+    private static BevyRosterImportRequest request() {
+        return new BevyRosterImportRequest(EVENT_ID, RosterImportFixture.BUCKET_NAME, OBJECT_KEY,
+                BevyRosterImportMode.PARALLEL, null);
+    }
+}
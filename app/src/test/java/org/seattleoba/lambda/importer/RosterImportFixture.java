@@ -0,0 +1,186 @@
+package org.seattleoba.lambda.importer;
+
+import com.amazonaws.services.dynamodbv2.local.embedded.DynamoDBEmbedded;
+import com.amazonaws.services.dynamodbv2.local.shared.access.AmazonDynamoDBLocal;
+import com.google.common.hash.Hashing;
+import org.seattleoba.lambda.dynamodb.DynamoDbBatchExecutor;
+import org.seattleoba.lambda.dynamodb.bean.BevyRosterImportCheckpoint;
+import org.seattleoba.lambda.dynamodb.bean.HashedBevyTicket;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * DynamoDB Local, embedded and in memory, with the Bevy ticket and import checkpoint tables, and a mocked S3 client
+ * that serves rosters from memory. GETs honour byte ranges and {@code If-Match}, so a roster that is replaced after an
+ * import started fails the way S3 fails it, with a 412.
+ */
+public final class RosterImportFixture implements AutoCloseable {
+    public static final String BUCKET_NAME = "rosters";
+    private static final String HEADER = "Ticket Number,Order Number,Access Code,Purchaser Name,Ticket Type,Price,"
+            + "Purchase Date,Check In Date\n";
+    private static final Instant PURCHASE_DATE = Instant.parse("2024-06-01T17:00:00Z");
+    private static final int PRECONDITION_FAILED = 412;
+
+    private final AmazonDynamoDBLocal dynamoDbLocal = DynamoDBEmbedded.create();
+    private final DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+            .dynamoDbClient(dynamoDbLocal.dynamoDbClient())
+            .build();
+    private final DynamoDbTable<HashedBevyTicket> bevyTicketTable =
+            enhancedClient.table("bevy-tickets", TableSchema.fromBean(HashedBevyTicket.class));
+    private final DynamoDbTable<BevyRosterImportCheckpoint> checkpointTable =
+            enhancedClient.table("import-checkpoints", TableSchema.fromBean(BevyRosterImportCheckpoint.class));
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final S3Client s3Client = mock(S3Client.class);
+
+    public RosterImportFixture() {
+        bevyTicketTable.createTable();
+        checkpointTable.createTable();
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenAnswer(invocation -> {
+            final byte[] content = content(invocation.<HeadObjectRequest>getArgument(0).key());
+            return HeadObjectResponse.builder()
+                    .contentLength((long) content.length)
+                    .eTag(eTag(content))
+                    .build();
+        });
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenAnswer(invocation -> getObject(invocation.getArgument(0)));
+    }
+
+    /**
+     * Returns a roster of {@code rows} tickets for the event, numbered from 1, as UTF-8 CSV bytes with a header row.
+     */
+    public static byte[] roster(final int eventId, final int rows, final String ticketType) {
+        final StringBuilder roster = new StringBuilder(HEADER);
+        for (int i = 1; i <= rows; i++) {
+            roster.append(String.format("%d-%06d,%d-%06d,CODE%04d,viewer_%d,%s,25.00,%s,\n",
+                    eventId, i, eventId, (i + 1) / 2, i % 10_000, i, ticketType, PURCHASE_DATE.plusSeconds(i)));
+        }
+        return roster.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Byte offset just after the first {@code rows} data rows of a roster.
+     */
+    public static long offsetAfterRows(final byte[] roster, final int rows) {
+        int lines = 0;
+        for (int i = 0; i < roster.length; i++) {
+            if (roster[i] == '\n' && ++lines == rows + 1) {
+                return i + 1;
+            }
+        }
+        return roster.length;
+    }
+
+    public static String eTag(final byte[] content) {
+        return '"' + Hashing.murmur3_128().hashBytes(content).toString() + '"';
+    }
+
+    /**
+     * Stores or replaces a roster and returns its ETag.
+     */
+    public String store(final String objectKey, final byte[] content) {
+        objects.put(objectKey, content);
+        return eTag(content);
+    }
+
+    public S3Client s3Client() {
+        return s3Client;
+    }
+
+    public DynamoDbTable<BevyRosterImportCheckpoint> checkpointTable() {
+        return checkpointTable;
+    }
+
+    public ImportCheckpointStore checkpointStore() {
+        return new ImportCheckpointStore(checkpointTable);
+    }
+
+    public DynamoDbTable<HashedBevyTicket> bevyTicketTable() {
+        return bevyTicketTable;
+    }
+
+    public BevyTicketImportWriter importWriter() {
+        return importWriter(bevyTicketTable);
+    }
+
+    /**
+     * An import writer that writes through the given table, such as a spy of {@link #bevyTicketTable()}.
+     */
+    public BevyTicketImportWriter importWriter(final DynamoDbTable<HashedBevyTicket> table) {
+        return new BevyTicketImportWriter(new DynamoDbBatchExecutor(enhancedClient), table, 16);
+    }
+
+    public HashedBevyTicket ticket(final int eventId, final int id) {
+        return bevyTicketTable.getItem(Key.builder()
+                .partitionValue(eventId)
+                .sortValue(id)
+                .build());
+    }
+
+    public long ticketCount() {
+        return bevyTicketTable.scan().items().stream().count();
+    }
+
+    @Override
+    public void close() {
+        dynamoDbLocal.shutdown();
+    }
+
+    private ResponseInputStream<GetObjectResponse> getObject(final GetObjectRequest request) {
+        final byte[] content = content(request.key());
+        final String eTag = eTag(content);
+        if (Objects.nonNull(request.ifMatch()) && !request.ifMatch().equals(eTag)) {
+            throw (S3Exception) S3Exception.builder()
+                    .statusCode(PRECONDITION_FAILED)
+                    .message("At least one of the pre-conditions you specified did not hold")
+                    .build();
+        }
+        int start = 0;
+        int end = content.length;
+        if (Objects.nonNull(request.range())) {
+            final String[] bounds = request.range().substring("bytes=".length()).split("-", -1);
+            start = Integer.parseInt(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                end = Math.min(content.length, Integer.parseInt(bounds[1]) + 1);
+            }
+        }
+        return new ResponseInputStream<>(
+                GetObjectResponse.builder()
+                        .contentLength((long) (end - start))
+                        .eTag(eTag)
+                        .build(),
+                AbortableInputStream.create(new ByteArrayInputStream(content, start, end - start)));
+    }
+
+    private byte[] content(final String objectKey) {
+        final byte[] content = objects.get(objectKey);
+        if (Objects.isNull(content)) {
+            throw (S3Exception) S3Exception.builder()
+                    .statusCode(404)
+                    .message("The specified key does not exist.")
+                    .build();
+        }
+        return content;
+    }
+}
@@ -0,0 +1,90 @@
+package org.seattleoba.lambda.message;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seattleoba.lambda.dagger.JacksonModule;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BevyTicketEventCodecTest {
+    private static final int EVENT_ID = 467;
+
+    private BevyTicketEventCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        codec = new BevyTicketEventCodec(new JacksonModule().providesObjectMapper());
+    }
+
+    @Test
+    void decodesSingleAndPackedBodies() throws Exception {
+        final List<BevyTicketEvent> events = events(3);
+
+        final BevyTicketEventMessage single = codec.decode(codec.encode(events.get(0)));
+        final BevyTicketEventMessage packed = codec.decode(codec.encode(events));
+
+        assertEquals(List.of(events.get(0)), single.events());
+        assertFalse(single.packed());
+        assertEquals(events, packed.events());
+        assertTrue(packed.packed());
+    }
+
+    @Test
+    void packsUpToMaxEventsPerGroup() throws Exception {
+        final List<List<BevyTicketEvent>> groups =
+                codec.pack(events(5), Function.identity(), 2, BevyTicketEventCodec.MAX_PAYLOAD_BYTES);
+
+        assertEquals(List.of(2, 2, 1), groups.stream().map(List::size).collect(Collectors.toList()));
+    }
+
+    @Test
+    void packsGroupsThatFitInMaxBytes() throws Exception {
+        final List<BevyTicketEvent> events = events(5);
+        // Exactly the size of the first two events packed together.
+        final int maxBytes = bytes(codec.encode(events.subList(0, 2)));
+
+        final List<List<BevyTicketEvent>> groups = codec.pack(events, Function.identity(), 10, maxBytes);
+
+        assertEquals(events.subList(0, 2), groups.get(0));
+        for (final List<BevyTicketEvent> group : groups) {
+            assertTrue(bytes(codec.encode(group)) <= maxBytes);
+        }
+        assertEquals(events, groups.stream().flatMap(List::stream).collect(Collectors.toList()));
+    }
+
+    @Test
+    void keepsOversizedEventInAGroupOfItsOwn() throws Exception {
+        final List<BevyTicketEvent> events = List.of(
+                event(1),
+                new BevyTicketEvent(EVENT_ID, 2, "467-000002", "x".repeat(1_000)),
+                event(3));
+
+        final List<List<BevyTicketEvent>> groups = codec.pack(events, Function.identity(), 10, 200);
+
+        assertEquals(List.of(List.of(events.get(0)), List.of(events.get(1)), List.of(events.get(2))), groups);
+    }
+
+    private static List<BevyTicketEvent> events(final int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(BevyTicketEventCodecTest::event)
+                .collect(Collectors.toList());
+    }
+
+    private static BevyTicketEvent event(final int ticketId) {
+        return new BevyTicketEvent(EVENT_ID, ticketId, String.format("%d-%06d", EVENT_ID, ticketId),
+                "viewer_" + ticketId);
+    }
+
+    private static int bytes(final String body) {
+        return body.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
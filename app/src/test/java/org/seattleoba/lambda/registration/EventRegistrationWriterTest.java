@@ -0,0 +1,130 @@
+package org.seattleoba.lambda.registration;
+
+import com.amazonaws.services.dynamodbv2.local.embedded.DynamoDBEmbedded;
+import com.amazonaws.services.dynamodbv2.local.shared.access.AmazonDynamoDBLocal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seattleoba.data.dynamodb.bean.EventRegistration;
+import org.seattleoba.data.dynamodb.bean.TwitchAccount;
+import org.seattleoba.lambda.dynamodb.DynamoDbBatchExecutor;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+import org.seattleoba.lambda.model.RegistrationWriteMode;
+import org.seattleoba.lambda.model.TwitchRegistrationRequest;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventRegistrationWriterTest {
+    private static final int EVENT_ID = 467;
+    private static final String USER_NAME = "viewer_1";
+    private static final String EXTRA_ATTRIBUTE_NAME = "checked_in_at";
+
+    private AmazonDynamoDBLocal dynamoDbLocal;
+    private DynamoDbClient dynamoDbClient;
+    private DynamoDbTable<EventRegistration> eventRegistrationTable;
+    private DynamoDbTable<TwitchAccount> twitchAccountTable;
+    private EventRegistrationWriter eventRegistrationWriter;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbLocal = DynamoDBEmbedded.create();
+        dynamoDbClient = dynamoDbLocal.dynamoDbClient();
+        final DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+        eventRegistrationTable = enhancedClient.table("event-registrations",
+                TableSchema.fromBean(EventRegistration.class));
+        twitchAccountTable = enhancedClient.table("twitch-accounts", TableSchema.fromBean(TwitchAccount.class));
+        eventRegistrationTable.createTable();
+        twitchAccountTable.createTable();
+        eventRegistrationWriter = new EventRegistrationWriter(enhancedClient,
+                new DynamoDbBatchExecutor(enhancedClient), eventRegistrationTable, twitchAccountTable,
+                RegistrationWriteMode.TRANSACTIONAL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dynamoDbLocal.shutdown();
+    }
+
+    @Test
+    void rewriteKeepsAttributesTheBeansDoNotMap() {
+        final TwitchRegistrationRequest request = new TwitchRegistrationRequest("message-1", USER_NAME,
+                new BevyTicketEvent(EVENT_ID, 1, "467-000001", USER_NAME));
+        eventRegistrationWriter.write(List.of(request), Map.of(USER_NAME, twitchAccount(1001)), Set.of());
+        final Map<String, AttributeValue> itemKey = registrationKey();
+        dynamoDbClient.updateItem(builder -> builder
+                .tableName(eventRegistrationTable.tableName())
+                .key(itemKey)
+                .updateExpression("SET #extra = :extra")
+                .expressionAttributeNames(Map.of("#extra", EXTRA_ATTRIBUTE_NAME))
+                .expressionAttributeValues(Map.of(":extra", AttributeValue.fromN("1718000000"))));
+
+        final RegistrationWriteOutcome outcome = eventRegistrationWriter.write(
+                List.of(request), Map.of(USER_NAME, twitchAccount(1002)), Set.of());
+
+        assertTrue(outcome.failedRequests().isEmpty());
+        final Map<String, AttributeValue> item = dynamoDbClient.getItem(builder -> builder
+                .tableName(eventRegistrationTable.tableName())
+                .key(itemKey)).item();
+        assertEquals(AttributeValue.fromN("1718000000"), item.get(EXTRA_ATTRIBUTE_NAME));
+        assertEquals(1002, eventRegistrationTable.getItem(eventRegistrationTable.keyFrom(registration()))
+                .getTwitchId());
+    }
+
+    @Test
+    void failedUserDoesNotFailTheOthersInItsTransaction() {
+        final String otherUserName = "viewer_2";
+        final TwitchRegistrationRequest request = new TwitchRegistrationRequest("message-1", USER_NAME,
+                new BevyTicketEvent(EVENT_ID, 1, "467-000001", USER_NAME));
+        final TwitchRegistrationRequest otherRequest = new TwitchRegistrationRequest("message-1", otherUserName,
+                new BevyTicketEvent(EVENT_ID, 2, "467-000002", otherUserName));
+        // Larger than the DynamoDB item size limit, so that the account cannot be written.
+        final TwitchAccount oversizedAccount = twitchAccount(1002);
+        oversizedAccount.setUserName(otherUserName);
+        oversizedAccount.setDescription("x".repeat(400 * 1024));
+
+        final RegistrationWriteOutcome outcome = eventRegistrationWriter.write(
+                List.of(request, otherRequest),
+                Map.of(USER_NAME, twitchAccount(1001), otherUserName, oversizedAccount),
+                Set.of());
+
+        assertEquals(Set.of(otherRequest), outcome.failedRequests());
+        assertEquals(List.of(1001), outcome.persistedAccounts().stream()
+                .map(TwitchAccount::getId)
+                .collect(Collectors.toList()));
+        assertEquals(1001, eventRegistrationTable.getItem(eventRegistrationTable.keyFrom(registration()))
+                .getTwitchId());
+    }
+
+    private Map<String, AttributeValue> registrationKey() {
+        return eventRegistrationTable.keyFrom(registration())
+                .keyMap(eventRegistrationTable.tableSchema(), TableMetadata.primaryIndexName());
+    }
+
+    private static EventRegistration registration() {
+        final EventRegistration eventRegistration = new EventRegistration();
+        eventRegistration.setEventId(EVENT_ID);
+        eventRegistration.setId(1);
+        return eventRegistration;
+    }
+
+    private static TwitchAccount twitchAccount(final int id) {
+        final TwitchAccount twitchAccount = new TwitchAccount();
+        twitchAccount.setId(id);
+        twitchAccount.setUserName(USER_NAME);
+        return twitchAccount;
+    }
+}
@@ -0,0 +1,124 @@
+package org.seattleoba.lambda.requesthandler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seattleoba.lambda.dagger.JacksonModule;
+import org.seattleoba.lambda.message.BevyTicketEventCodec;
+import org.seattleoba.lambda.message.BevyTicketMessageSender;
+import org.seattleoba.lambda.message.OutgoingMessage;
+import org.seattleoba.lambda.message.SendOutcome;
+import org.seattleoba.lambda.metrics.MetricsPublisher;
+import org.seattleoba.lambda.model.BevyTicketMessageFormat;
+import org.seattleoba.lambda.stream.CoalescedTicketEvent;
+import org.seattleoba.lambda.stream.TicketStreamEventSerializer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BevyTicketDynamodbEventRequestHandlerTest {
+    private static final int EVENT_ID = 467;
+    private static final String QUEUE_URL = "https://sqs.us-west-2.amazonaws.com/000000000000/ticket-events";
+
+    private BevyTicketMessageSender messageSender;
+    private BevyTicketDynamodbEventRequestHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        final JacksonModule jacksonModule = new JacksonModule();
+        messageSender = mock(BevyTicketMessageSender.class);
+        handler = new BevyTicketDynamodbEventRequestHandler(
+                new BevyTicketEventCodec(jacksonModule.providesObjectMapper()),
+                new TicketStreamEventSerializer(jacksonModule.providesObjectMapper()),
+                messageSender,
+                new MetricsPublisher("SeattleOBA/TicketPipeline"),
+                QUEUE_URL,
+                BevyTicketMessageFormat.SINGLE,
+                100);
+    }
+
+    @Test
+    void acknowledgesBatchWhenEveryEventIsSent() {
+        when(messageSender.<CoalescedTicketEvent>send(any(), any(), any(), anyLong(), any()))
+                .thenReturn(new SendOutcome<>(List.of(), List.of()));
+
+        final StreamsEventResponse response = handler.handleRequest(
+                event(record("900", 1), record("950", 2)), mock(Context.class));
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+    }
+
+    @Test
+    void resumesFromTheNumericallyLowestSequenceNumberOfTheFailedEvents() {
+        // The first ticket is edited twice, so its event covers both records.
+        when(messageSender.<CoalescedTicketEvent>send(any(), any(), any(), anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    final List<OutgoingMessage<CoalescedTicketEvent>> batch = invocation.getArgument(1);
+                    return new SendOutcome<>(batch.subList(1, batch.size()), List.of());
+                });
+
+        final StreamsEventResponse response = handler.handleRequest(
+                event(record("900", 1), record("950", 2), record("1000", 1), record("1100", 3)),
+                mock(Context.class));
+
+        // "1100" sorts before "950" as a string.
+        assertEquals(List.of("950"), response.getBatchItemFailures().stream()
+                .map(StreamsEventResponse.BatchItemFailure::getItemIdentifier)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void countsUnsentMessagesAsFailedAfterAFailedBatch() {
+        // Twelve messages make two SendMessageBatch requests; the fifth message of the first one fails.
+        when(messageSender.<CoalescedTicketEvent>send(any(), any(), any(), anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    final List<OutgoingMessage<CoalescedTicketEvent>> batch = invocation.getArgument(1);
+                    return new SendOutcome<>(List.of(batch.get(4)), List.of());
+                });
+
+        final StreamsEventResponse response = handler.handleRequest(
+                event(IntStream.range(0, 12)
+                        .mapToObj(i -> record(String.valueOf(95 + i), i + 1))
+                        .toArray(DynamodbEvent.DynamodbStreamRecord[]::new)),
+                mock(Context.class));
+
+        verify(messageSender, times(1)).send(any(), any(), any(), anyLong(), any());
+        assertEquals("99", response.getBatchItemFailures().get(0).getItemIdentifier());
+    }
+
+    private static DynamodbEvent event(final DynamodbEvent.DynamodbStreamRecord... records) {
+        final DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(List.of(records));
+        return event;
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord record(final String sequenceNumber, final int ticketId) {
+        final StreamRecord streamRecord = new StreamRecord();
+        streamRecord.setSequenceNumber(sequenceNumber);
+        streamRecord.setNewImage(Map.of(
+                "event_id", new AttributeValue().withN(String.valueOf(EVENT_ID)),
+                "id", new AttributeValue().withN(String.valueOf(ticketId)),
+                "ticket_id", new AttributeValue(String.format("%d-%06d", EVENT_ID, ticketId)),
+                // Every record carries a new login, so that none is skipped as a no-op.
+                "purchaser_name", new AttributeValue("viewer_" + sequenceNumber)));
+        final DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventName("INSERT");
+        record.setDynamodb(streamRecord);
+        return record;
+    }
+}
@@ -0,0 +1,158 @@
+package org.seattleoba.lambda.requesthandler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.seattleoba.lambda.dynamodb.bean.BevyRosterImportCheckpoint;
+import org.seattleoba.lambda.importer.BevyTicketImportWriter;
+import org.seattleoba.lambda.importer.ImportCheckpointStore;
+import org.seattleoba.lambda.importer.ParallelRosterImporter;
+import org.seattleoba.lambda.importer.RosterImportFixture;
+import org.seattleoba.lambda.metrics.MetricsPublisher;
+import org.seattleoba.lambda.model.BevyRosterImportMode;
+import org.seattleoba.lambda.model.BevyRosterImportRequest;
+import org.seattleoba.lambda.model.BevyRosterImportResult;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BevyTicketImportRequestHandlerTest {
+    private static final int EVENT_ID = 467;
+    private static final String OBJECT_KEY = "rosters/467.csv";
+    private static final int ROWS = 250;
+    // The streaming import reads 100 rows at a time and checkpoints when less than 30 seconds are left.
+    private static final int STREAMING_BATCH_SIZE = 100;
+
+    private RosterImportFixture fixture;
+    private ImportCheckpointStore importCheckpointStore;
+    private BevyTicketImportRequestHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new RosterImportFixture();
+        importCheckpointStore = fixture.checkpointStore();
+        final BevyTicketImportWriter importWriter = fixture.importWriter();
+        handler = new BevyTicketImportRequestHandler(
+                fixture.s3Client(),
+                importWriter,
+                importCheckpointStore,
+                new ParallelRosterImporter(fixture.s3Client(), importWriter, 4, 8, 2_000),
+                new MetricsPublisher("SeattleOBA/TicketPipeline"),
+                30_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void resumesStreamingImportAtCheckpointedByteOffset() {
+        final byte[] roster = RosterImportFixture.roster(EVENT_ID, ROWS, "General Admission");
+        final String eTag = fixture.store(OBJECT_KEY, roster);
+
+        final BevyRosterImportResult first = handler.handleRequest(streamingRequest(null), context(1_000));
+
+        assertNotNull(first.continuationToken());
+        assertEquals(STREAMING_BATCH_SIZE, first.recordsInserted());
+        final BevyRosterImportCheckpoint checkpoint = importCheckpointStore.load(first.continuationToken())
+                .orElseThrow();
+        final long byteOffset = RosterImportFixture.offsetAfterRows(roster, STREAMING_BATCH_SIZE);
+        assertEquals(byteOffset, checkpoint.getByteOffset());
+        assertEquals(STREAMING_BATCH_SIZE, checkpoint.getRowNumber());
+        assertEquals(roster.length, checkpoint.getObjectSize());
+        assertEquals(eTag, checkpoint.getETag());
+        assertFalse(checkpoint.getComplete());
+        assertFalse(importCheckpointStore.isImported(EVENT_ID, eTag));
+
+        clearInvocations(fixture.s3Client());
+        final BevyRosterImportResult second = handler.handleRequest(
+                streamingRequest(first.continuationToken()), context(60_000));
+
+        final ArgumentCaptor<GetObjectRequest> getObjectRequest = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(fixture.s3Client()).getObject(getObjectRequest.capture());
+        assertEquals(String.format("bytes=%d-", byteOffset), getObjectRequest.getValue().range());
+        assertEquals(eTag, getObjectRequest.getValue().ifMatch());
+        assertNull(second.continuationToken());
+        assertEquals(ROWS, second.recordsInserted());
+        assertEquals(0, second.recordsFailed());
+        assertEquals(ROWS, fixture.ticketCount());
+        assertEquals("viewer_101", fixture.ticket(EVENT_ID, STREAMING_BATCH_SIZE + 1).getPurchaserName());
+        assertEquals("viewer_250", fixture.ticket(EVENT_ID, ROWS).getPurchaserName());
+        final BevyRosterImportCheckpoint completed = importCheckpointStore.load(first.continuationToken())
+                .orElseThrow();
+        assertTrue(completed.getComplete());
+        assertEquals(roster.length, completed.getByteOffset());
+        assertEquals(ROWS, completed.getRowNumber());
+        assertTrue(importCheckpointStore.isImported(EVENT_ID, eTag));
+    }
+
+    @Test
+    void resumeFailsWhenRosterChangedAfterCheckpoint() {
+        fixture.store(OBJECT_KEY, RosterImportFixture.roster(EVENT_ID, ROWS, "General Admission"));
+        final BevyRosterImportResult first = handler.handleRequest(streamingRequest(null), context(1_000));
+        assertNotNull(first.continuationToken());
+
+        final String changedETag = fixture.store(OBJECT_KEY, RosterImportFixture.roster(EVENT_ID, ROWS, "VIP"));
+
+        assertThrows(IllegalStateException.class, () -> handler.handleRequest(
+                streamingRequest(first.continuationToken()), context(60_000)));
+        assertEquals(STREAMING_BATCH_SIZE, fixture.ticketCount());
+        assertFalse(importCheckpointStore.isImported(EVENT_ID, changedETag));
+    }
+
+    @Test
+    void unchangedRosterIsSkippedUntilItsETagChanges() {
+        final String eTag = fixture.store(OBJECT_KEY, RosterImportFixture.roster(EVENT_ID, ROWS, "General Admission"));
+        final BevyRosterImportResult imported = handler.handleRequest(batchRequest(), context(60_000));
+        assertEquals(ROWS, imported.recordsInserted());
+        assertTrue(importCheckpointStore.isImported(EVENT_ID, eTag));
+
+        clearInvocations(fixture.s3Client());
+        final BevyRosterImportResult skipped = handler.handleRequest(batchRequest(), context(60_000));
+
+        assertTrue(skipped.rosterUnchanged());
+        verify(fixture.s3Client(), never()).getObject(any(GetObjectRequest.class));
+
+        final byte[] changedRoster = RosterImportFixture.roster(EVENT_ID, ROWS + 10, "General Admission");
+        final String changedETag = fixture.store(OBJECT_KEY, changedRoster);
+        final BevyRosterImportResult reimported = handler.handleRequest(batchRequest(), context(60_000));
+
+        verify(fixture.s3Client(), atLeastOnce()).getObject(any(GetObjectRequest.class));
+        assertFalse(Boolean.TRUE.equals(reimported.rosterUnchanged()));
+        assertEquals(10, reimported.recordsInserted());
+        assertEquals(ROWS, reimported.recordsUnchanged());
+        assertTrue(importCheckpointStore.isImported(EVENT_ID, changedETag));
+        assertEquals(ROWS + 10, fixture.ticketCount());
+    }
+
+    private static BevyRosterImportRequest streamingRequest(final String continuationToken) {
+        return new BevyRosterImportRequest(EVENT_ID, RosterImportFixture.BUCKET_NAME, OBJECT_KEY,
+                BevyRosterImportMode.STREAMING, continuationToken);
+    }
+
+    private static BevyRosterImportRequest batchRequest() {
+        return new BevyRosterImportRequest(EVENT_ID, RosterImportFixture.BUCKET_NAME, OBJECT_KEY,
+                BevyRosterImportMode.BATCH, null);
+    }
+
+    private static Context context(final int remainingTimeInMillis) {
+        final Context context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(remainingTimeInMillis);
+        return context;
+    }
+}
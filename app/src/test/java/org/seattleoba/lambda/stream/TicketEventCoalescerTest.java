@@ -0,0 +1,71 @@
+package org.seattleoba.lambda.stream;
+
+import org.junit.jupiter.api.Test;
+import org.seattleoba.lambda.model.BevyTicketEvent;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketEventCoalescerTest {
+    private static final int EVENT_ID = 467;
+
+    @Test
+    void foldsEditsToOneTicketIntoItsLatestImage() {
+        final List<CoalescedTicketEvent> events = TicketEventCoalescer.coalesceRecords(List.of(
+                insert("100", 1, "first_login"),
+                modify("101", 1, "first_login", "second_login"),
+                insert("102", 2, "other_login"),
+                modify("103", 1, "second_login", "third_login")));
+
+        assertEquals(2, events.size());
+        assertEquals(new BevyTicketEvent(EVENT_ID, 1, "467-000001", "third_login"), events.get(0).bevyTicketEvent());
+        assertEquals(List.of("100", "101", "103"), events.get(0).sequenceNumbers());
+        assertEquals("100", events.get(0).earliestSequenceNumber());
+        assertEquals(new BevyTicketEvent(EVENT_ID, 2, "467-000002", "other_login"), events.get(1).bevyTicketEvent());
+    }
+
+    @Test
+    void removeDropsThePendingEvent() {
+        final List<CoalescedTicketEvent> events = TicketEventCoalescer.coalesceRecords(List.of(
+                insert("100", 1, "first_login"),
+                remove("101", 1)));
+
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void skipsModifyThatLeavesLoginAndTicketNumberUnchanged() {
+        final List<CoalescedTicketEvent> events = TicketEventCoalescer.coalesceRecords(List.of(
+                modify("100", 1, "first_login", "first_login"),
+                modify("101", 2, "other_login", "new_login")));
+
+        assertEquals(1, events.size());
+        assertEquals(2, events.get(0).bevyTicketEvent().ticketId());
+        assertEquals(List.of("101"), events.get(0).sequenceNumbers());
+    }
+
+    private static TicketStreamRecord insert(final String sequenceNumber, final int ticketId, final String login) {
+        return new TicketStreamRecord("INSERT", sequenceNumber, EVENT_ID, ticketId, ticketNumber(ticketId), login,
+                false, null, null);
+    }
+
+    private static TicketStreamRecord modify(
+            final String sequenceNumber,
+            final int ticketId,
+            final String oldLogin,
+            final String login) {
+        return new TicketStreamRecord(TicketStreamRecord.MODIFY_EVENT_NAME, sequenceNumber, EVENT_ID, ticketId,
+                ticketNumber(ticketId), login, true, ticketNumber(ticketId), oldLogin);
+    }
+
+    private static TicketStreamRecord remove(final String sequenceNumber, final int ticketId) {
+        return new TicketStreamRecord(TicketStreamRecord.REMOVE_EVENT_NAME, sequenceNumber, EVENT_ID, ticketId,
+                null, null, true, ticketNumber(ticketId), null);
+    }
+
+    private static String ticketNumber(final int ticketId) {
+        return String.format("%d-%06d", EVENT_ID, ticketId);
+    }
+}
@@ -0,0 +1,91 @@
+package org.seattleoba.lambda.twitch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seattleoba.lambda.dynamodb.BatchGetOutcome;
+import org.seattleoba.lambda.dynamodb.DynamoDbBatchExecutor;
+import org.seattleoba.lambda.dynamodb.bean.TwitchLogin;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TwitchAccountCacheTest {
+    private DynamoDbBatchExecutor batchExecutor;
+    private DynamoDbTable<TwitchLogin> twitchLoginTable;
+    private TwitchAccountCache twitchAccountCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        batchExecutor = mock(DynamoDbBatchExecutor.class);
+        twitchLoginTable = mock(DynamoDbTable.class);
+        twitchAccountCache = new TwitchAccountCache(batchExecutor, twitchLoginTable, 10_000, Duration.ofDays(1));
+    }
+
+    @Test
+    void countsStaleEntriesAndUnreadLoginsApartFromMisses() {
+        final long now = System.currentTimeMillis();
+        when(batchExecutor.getItems(eq(twitchLoginTable), anyCollection())).thenReturn(new BatchGetOutcome<>(
+                Map.of(
+                        key("fresh"), entry("fresh", now),
+                        key("expired"), entry("expired", now - Duration.ofDays(2).toMillis())),
+                List.of(key("unprocessed")),
+                1));
+
+        final TwitchAccountLookup lookup = twitchAccountCache.lookup(
+                List.of("fresh", "expired", "unprocessed", "unknown"));
+
+        assertEquals(Set.of("fresh"), lookup.accounts().keySet());
+        assertEquals(0, lookup.memoryHits());
+        assertEquals(1, lookup.tableHits());
+        assertEquals(1, lookup.stale());
+        assertEquals(1, lookup.readErrors());
+        assertEquals(1, lookup.misses());
+    }
+
+    @Test
+    void countsEveryLoginAsReadErrorWhenTableReadFails() {
+        when(batchExecutor.getItems(eq(twitchLoginTable), anyCollection()))
+                .thenThrow(new IllegalStateException("unavailable"));
+
+        final TwitchAccountLookup lookup = twitchAccountCache.lookup(List.of("first", "second"));
+
+        assertEquals(2, lookup.readErrors());
+        assertEquals(0, lookup.misses());
+    }
+
+    @Test
+    void servesTableHitsFromMemoryOnTheNextLookup() {
+        when(batchExecutor.getItems(eq(twitchLoginTable), anyCollection())).thenReturn(new BatchGetOutcome<>(
+                Map.of(key("fresh"), entry("fresh", System.currentTimeMillis())), List.of(), 0));
+        twitchAccountCache.lookup(List.of("fresh"));
+
+        final TwitchAccountLookup lookup = twitchAccountCache.lookup(List.of("fresh"));
+
+        assertEquals(1, lookup.memoryHits());
+        assertEquals(0, lookup.tableHits());
+    }
+
+    private static Key key(final String login) {
+        return Key.builder().partitionValue(login).build();
+    }
+
+    private static TwitchLogin entry(final String login, final long cachedAt) {
+        final TwitchLogin entry = new TwitchLogin();
+        entry.setLogin(login);
+        entry.setTwitchId(login.hashCode());
+        entry.setUserName(login);
+        entry.setCachedAt(cachedAt);
+        return entry;
+    }
+}
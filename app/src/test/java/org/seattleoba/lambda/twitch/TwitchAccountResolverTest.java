@@ -0,0 +1,91 @@
+package org.seattleoba.lambda.twitch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwitchAccountResolverTest {
+    private static final String BAD_LOGIN = "bad login";
+    private static final long DEADLINE_MILLIS = Long.MAX_VALUE;
+
+    private TwitchAccountCache twitchAccountCache;
+    private HelixClient helixClient;
+    private TwitchAccountResolver twitchAccountResolver;
+
+    @BeforeEach
+    void setUp() {
+        twitchAccountCache = mock(TwitchAccountCache.class);
+        helixClient = mock(HelixClient.class);
+        twitchAccountResolver = new TwitchAccountResolver(twitchAccountCache, helixClient);
+        when(twitchAccountCache.lookup(anyList()))
+                .thenAnswer(invocation -> new TwitchAccountLookup(Map.of(), 0, 0,
+                        invocation.<List<String>>getArgument(0).size(), 0, 0));
+    }
+
+    @Test
+    void bisectsBadRequestDownToTheRejectedLogin() {
+        when(helixClient.getUsers(anyList(), anyLong())).thenAnswer(invocation -> {
+            final List<String> logins = invocation.getArgument(0);
+            if (logins.contains(BAD_LOGIN)) {
+                throw new HelixException(400, "Invalid login names");
+            }
+            return logins.stream().map(TwitchAccountResolverTest::helixUser).collect(Collectors.toList());
+        });
+
+        final TwitchAccountResolution resolution = twitchAccountResolver.resolve(
+                List.of("first", "second", BAD_LOGIN, "fourth"), DEADLINE_MILLIS);
+
+        assertEquals(Set.of("first", "second", "fourth"), resolution.accounts().keySet());
+        // The whole batch, both halves, then both quarters of the half with the bad login.
+        assertEquals(5, resolution.helixCalls());
+        verify(helixClient).getUsers(List.of(BAD_LOGIN), DEADLINE_MILLIS);
+        assertFalse(resolution.helixBudgetExceeded());
+    }
+
+    @Test
+    void retriesTransientFailureWithoutSplitting() {
+        final List<String> logins = List.of("first", "second");
+        when(helixClient.getUsers(anyList(), anyLong()))
+                .thenThrow(new HelixException(503, "Service unavailable"))
+                .thenReturn(List.of(helixUser("first"), helixUser("second")));
+
+        final TwitchAccountResolution resolution = twitchAccountResolver.resolve(logins, DEADLINE_MILLIS);
+
+        assertEquals(Set.of("first", "second"), resolution.accounts().keySet());
+        assertEquals(2, resolution.helixCalls());
+        verify(helixClient, times(2)).getUsers(logins, DEADLINE_MILLIS);
+    }
+
+    @Test
+    void stopsBisectingWhenHelixBudgetRunsOut() {
+        when(helixClient.getUsers(anyList(), anyLong()))
+                .thenThrow(new HelixException(400, "Invalid login names"))
+                .thenThrow(new HelixBudgetExceededException("No budget"));
+
+        final TwitchAccountResolution resolution = twitchAccountResolver.resolve(
+                List.of("first", "second", BAD_LOGIN, "fourth"), DEADLINE_MILLIS);
+
+        assertTrue(resolution.accounts().isEmpty());
+        assertEquals(2, resolution.helixCalls());
+        assertTrue(resolution.helixBudgetExceeded());
+    }
+
+    private static HelixUser helixUser(final String login) {
+        return new HelixUser(String.valueOf(Math.abs(login.hashCode())), login, login, "", "", "",
+                "2020-01-01T00:00:00Z");
+    }
+}